@@ -0,0 +1,18 @@
+@echo off
+rem Copyright (c) 2016 matsubara masakazu
+rem Released under the MIT license
+rem https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+
+rem JMH benchmark (mmsort.SortBenchmark)
+rem   JMH_LIB : directory of jmh-core, jmh-generator-annprocess, jopt-simple, commons-math3 jar files
+rem   usage   : benchmark.bat [JMH options]
+rem   example : benchmark.bat -p algorithm=mmsort.MmSort,mmsort.MmsSort -p arraySize=1000000 -p keyType=I
+
+if "%JMH_LIB%"=="" (
+	echo JMH_LIB is not set.
+	exit /b 1
+)
+if not exist bin-benchmark mkdir bin-benchmark
+javac.exe -encoding UTF-8 -classpath "bin;%JMH_LIB%\*" -d bin-benchmark benchmark\src\mmsort\SortBenchmark.java
+if errorlevel 1 exit /b 1
+java.exe -server -classpath "bin-benchmark;bin;%JMH_LIB%\*" mmsort.SortBenchmark %*
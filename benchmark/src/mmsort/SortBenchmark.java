@@ -0,0 +1,308 @@
+/*
+ * Sort benchmark (JMH)
+ *
+ * JMH によるソートのベンチマーク
+ * SortTest は System.gc() 後に１回の実行を System.nanoTime で計測するだけなので、
+ * JIT のウォームアップやフォーク、統計的な誤差を考慮した計測はこちらで行う。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sort benchmark (JMH)
+ *
+ * ISortAlgorithm の実装クラス・配列の種類・キーの種類・配列サイズの組み合わせごとにソート時間を計測する。
+ * 参照型配列（Integer / String キー）は sortObjects、プリミティブ型配列（int[] / long[]）は IPrimitiveSortAlgorithm の実装クラスのみを
+ * 対象とする sortPrimitives で計測する。（無効な組み合わせはパラメータの組み合わせに現れない）
+ * 配列の生成は SortTest と同じ（先頭と末尾は番兵、ランダム系は計測の繰り返し（イテレーション）ごとに種を変えてシャッフル）。
+ * ソート前の配列はイテレーションの開始時に用意し、各呼び出しではそれを事前に確保した配列へコピーしてからソートする。
+ * （計測時間にはコピーの O(n) が含まれるが、呼び出しごとの準備でメモリを割り当てないので gc.alloc.rate.norm はソート自体の割り当て量になる）
+ * main から実行した場合は GC プロファイラ（gc.alloc.rate.norm : １回のソートあたりの割り当てバイト数）を有効にする。
+ *
+ * 既定の algorithm には O(n^2) のアルゴリズム（InsertionSort, BinInsertionSort, InplaceMergeSort）と CombSort を含めない。
+ * （配列サイズ 1000000 では終わらないため）これらや組み合わせの絞り込みは JMH のオプションで指定する。
+ * （例 : -p algorithm=mmsort.InsertionSort -p arraySize=100,10000）
+ *
+ * @author matsubara
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 2, jvmArgsAppend = "-server")
+public class SortBenchmark {
+	/**
+	 * 参照型配列（Integer / String キー）のベンチマークの状態
+	 */
+	@State(Scope.Benchmark)
+	public static class ObjectState {
+		@Param({
+			"mmsort.ArraysSort",
+			"mmsort.ArraysSortMT",
+			"mmsort.AutoSort",
+			"mmsort.HeapSort",
+			"mmsort.ImprovedMergeSort",
+			"mmsort.ImprovedMergeSortMT",
+			"mmsort.ManyPivotSort",
+			"mmsort.ManyPivotSort3W",
+			"mmsort.ManyPivotSortMT",
+			"mmsort.Mas4Sort",
+			"mmsort.MasSort",
+			"mmsort.MasSortMT",
+			"mmsort.MatMasSort",
+			"mmsort.MatSort",
+			"mmsort.MatSortMT",
+			"mmsort.MergeSort",
+			"mmsort.MmSort",
+			"mmsort.MmsSort",
+			"mmsort.MmsSortH",
+			"mmsort.MmsSortMT",
+			"mmsort.MmsSortP",
+			"mmsort.QuickSort",
+			"mmsort.QuickSort3WM5",
+			"mmsort.QuickSortM3",
+			"mmsort.QuickSortM5",
+			"mmsort.RadixSort",
+			"mmsort.StringRadixSort",
+		})
+		public String algorithm;
+
+		//	R : Random(10), U : Unique Random, S : Noise on sine curve, H : Half sorted, A : Ascending ordered, D : Descending ordered, F : Flat
+		@Param({"R", "U", "S", "H", "A", "D", "F"})
+		public String arrayType;
+
+		//	I : Integer, S : String
+		@Param({"I", "S"})
+		public String keyType;
+
+		@Param({"100", "10000", "1000000"})
+		public int arraySize;
+
+		private ISortAlgorithm sorter;
+		private Comparator<SortTest.SortItem> comparator;
+		private int keyTypeValue;
+		private SortTest.SortItem[] initArray;		//	初期状態の配列
+		private SortTest.SortItem[] sourceArray;	//	イテレーションごとのソート前の配列
+		private SortTest.SortItem[] array;			//	ソート対象（呼び出しごとに sourceArray からコピーする）
+		private int iteration = 0;
+
+		@Setup(Level.Trial)
+		public void setupTrial() throws Exception
+		{
+			sorter = (ISortAlgorithm)Class.forName(algorithm).newInstance();
+			if (keyType.equals("I")) {
+				keyTypeValue = SortTest.KEYTYPE_INT;
+				comparator = SortTest.intComparator;
+			} else if (keyType.equals("S")) {
+				keyTypeValue = SortTest.KEYTYPE_STRING;
+				comparator = SortTest.strComparator;
+			} else
+				throw new Exception("parameter error (keyType=" + keyType + ")");
+
+			initArray = createInitArray(arrayType, arraySize, keyTypeValue);
+			sourceArray = new SortTest.SortItem[arraySize + 2];
+			array = new SortTest.SortItem[arraySize + 2];
+		}
+
+		@Setup(Level.Iteration)
+		public void setupIteration()
+		{
+			iteration++;
+			prepareArray(initArray, sourceArray, arrayType, arraySize, keyTypeValue, iteration);
+		}
+	}
+
+	/**
+	 * プリミティブ型配列（int[] / long[]）のベンチマークの状態（IPrimitiveSortAlgorithm の実装クラスのみ）
+	 */
+	@State(Scope.Benchmark)
+	public static class PrimitiveState {
+		@Param({
+			"mmsort.MmSort",
+		})
+		public String algorithm;
+
+		//	R : Random(10), U : Unique Random, S : Noise on sine curve, H : Half sorted, A : Ascending ordered, D : Descending ordered, F : Flat
+		@Param({"R", "U", "S", "H", "A", "D", "F"})
+		public String arrayType;
+
+		//	P : int[], L : long[]
+		@Param({"P", "L"})
+		public String keyType;
+
+		@Param({"100", "10000", "1000000"})
+		public int arraySize;
+
+		private IPrimitiveSortAlgorithm sorter;
+		private boolean longKey;
+		private SortTest.SortItem[] initArray;		//	初期状態の配列
+		private SortTest.SortItem[] sourceArray;	//	イテレーションごとのソート前の配列
+		private int[] sourceIntKeys;				//	イテレーションごとのソート前のキー値
+		private long[] sourceLongKeys;
+		private int[] intKeys;						//	ソート対象（呼び出しごとに sourceIntKeys からコピーする）
+		private long[] longKeys;
+		private int iteration = 0;
+
+		@Setup(Level.Trial)
+		public void setupTrial() throws Exception
+		{
+			final Object instance = Class.forName(algorithm).newInstance();
+			if (!(instance instanceof IPrimitiveSortAlgorithm))
+				throw new Exception("parameter error (" + algorithm + " does not implement IPrimitiveSortAlgorithm)");
+			sorter = (IPrimitiveSortAlgorithm)instance;
+			if (keyType.equals("P"))
+				longKey = false;
+			else if (keyType.equals("L"))
+				longKey = true;
+			else
+				throw new Exception("parameter error (keyType=" + keyType + ")");
+
+			initArray = createInitArray(arrayType, arraySize, SortTest.KEYTYPE_INT);
+			sourceArray = new SortTest.SortItem[arraySize + 2];
+			if (longKey) {
+				sourceLongKeys = new long[arraySize + 2];
+				longKeys = new long[arraySize + 2];
+			} else {
+				sourceIntKeys = new int[arraySize + 2];
+				intKeys = new int[arraySize + 2];
+			}
+		}
+
+		@Setup(Level.Iteration)
+		public void setupIteration()
+		{
+			iteration++;
+			prepareArray(initArray, sourceArray, arrayType, arraySize, SortTest.KEYTYPE_INT, iteration);
+
+			//	キー値のみを取り出す（SortTest.initPrimitiveArray / initPrimitiveLongArray と同じ値。先頭と末尾は番兵）
+			if (longKey) {
+				sourceLongKeys[0] = Long.MIN_VALUE;
+				sourceLongKeys[arraySize + 1] = Long.MIN_VALUE;
+				for (int i = 1; i <= arraySize; i++)
+					sourceLongKeys[i] = ((long)sourceArray[i].key << 32) | sourceArray[i].orginalOrder;
+			} else {
+				sourceIntKeys[0] = Integer.MIN_VALUE;
+				sourceIntKeys[arraySize + 1] = Integer.MIN_VALUE;
+				for (int i = 1; i <= arraySize; i++)
+					sourceIntKeys[i] = sourceArray[i].key;
+			}
+		}
+	}
+
+	/**
+	 * 初期状態の配列を作成する（SortTest と同じ）
+	 * @param arrayType array type / 配列の種類
+	 * @param arraySize array size / 配列サイズ
+	 * @param keyTypeValue key type / キーの種類
+	 * @return array (first and last elements are sentinels) / 配列（先頭と末尾は番兵）
+	 * @throws Exception
+	 */
+	private static SortTest.SortItem[] createInitArray(final String arrayType, final int arraySize, final int keyTypeValue) throws Exception
+	{
+		final SortTest.SortItem[] initArray = new SortTest.SortItem[arraySize + 2];
+		if (arrayType.equals("R"))
+			SortTest.initArray(initArray, 10, keyTypeValue);
+		else if (arrayType.equals("U"))
+			SortTest.initArray(initArray, 1, keyTypeValue);
+		else if (arrayType.equals("S"))
+			SortTest.initNoiseOnSin(initArray, 1, keyTypeValue);
+		else if (arrayType.equals("H"))
+			SortTest.initHalfSortedArray(initArray, 0, 10, keyTypeValue);
+		else if (arrayType.equals("A"))
+			SortTest.initArray(initArray, 10, keyTypeValue);
+		else if (arrayType.equals("D"))
+			SortTest.initReverseArray(initArray, 10, keyTypeValue);
+		else if (arrayType.equals("F"))
+			SortTest.initFlatArray(initArray, keyTypeValue);
+		else
+			throw new Exception("parameter error (arrayType=" + arrayType + ")");
+		SortTest.assignOriginalOrderArray(initArray);
+		return initArray;
+	}
+
+	/**
+	 * イテレーションごとのソート前の配列を用意する
+	 * SortTest と同じく、イテレーション回数を乱数の種として疑似乱数配列を固定化する。
+	 * @param initArray initial array / 初期状態の配列
+	 * @param sourceArray destination / 格納先
+	 * @param arrayType array type / 配列の種類
+	 * @param arraySize array size / 配列サイズ
+	 * @param keyTypeValue key type / キーの種類
+	 * @param iteration iteration count / イテレーション回数
+	 */
+	private static void prepareArray(final SortTest.SortItem[] initArray, final SortTest.SortItem[] sourceArray, final String arrayType, final int arraySize, final int keyTypeValue, final int iteration)
+	{
+		System.arraycopy(initArray, 0, sourceArray, 0, sourceArray.length);
+		if (arrayType.equals("R") || arrayType.equals("U"))
+			SortTest.shuffleArray(sourceArray, iteration, keyTypeValue, 1, sourceArray.length - 1);
+		else if (arrayType.equals("H"))
+			SortTest.shuffleArray(sourceArray, iteration, keyTypeValue, arraySize / 2 + 1, sourceArray.length - 1);
+	}
+
+	@Benchmark
+	public Object sortObjects(final ObjectState state)
+	{
+		final SortTest.SortItem[] array = state.array;
+		System.arraycopy(state.sourceArray, 0, array, 0, array.length);
+		state.sorter.sort(array, 1, array.length - 1, state.comparator);
+		return array;
+	}
+
+	@Benchmark
+	public Object sortPrimitives(final PrimitiveState state)
+	{
+		if (state.longKey) {
+			final long[] longKeys = state.longKeys;
+			System.arraycopy(state.sourceLongKeys, 0, longKeys, 0, longKeys.length);
+			state.sorter.sort(longKeys, 1, longKeys.length - 1);
+			return longKeys;
+		} else {
+			final int[] intKeys = state.intKeys;
+			System.arraycopy(state.sourceIntKeys, 0, intKeys, 0, intKeys.length);
+			state.sorter.sort(intKeys, 1, intKeys.length - 1);
+			return intKeys;
+		}
+	}
+
+	/**
+	 * GC プロファイラ（gc.alloc.rate.norm）を有効にしてベンチマークを実行する
+	 * その他のオプションは JMH のコマンドライン引数で指定する。
+	 * @param args JMH command line options / JMH のコマンドライン引数
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(SortBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
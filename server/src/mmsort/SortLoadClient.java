@@ -0,0 +1,222 @@
+/*
+ * Load generator for SortServer
+ *
+ * 複数の接続から SortServer に依頼を送り、応答時間（p50 / p99）とスループットを計測する
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Random;
+
+public class SortLoadClient {
+	// レコードのサイズ（バイト）
+	private static final int RECORD_SIZE = 32;
+	// レコード内のキーの開始位置とキーの長さ（バイト）
+	private static final int KEY_OFFSET = 4;
+	private static final int KEY_LENGTH = 8;
+
+	/**
+	 * Load thread
+	 *
+	 * １つの接続で、依頼を送信して応答を受け取ることを繰り返す（同期）。応答はソート済みかどうかを検証する。
+	 */
+	private static class LoadThread extends Thread {
+		final String host;
+		final int port;
+		final int requestCount;
+		final int size;
+		final byte type;
+		final long[] latencies;	// 応答時間（ナノ秒）
+		Throwable error;
+
+		public LoadThread(final String host, final int port, final int requestCount, final int size, final byte type, final long[] latencies) {
+			this.host = host;
+			this.port = port;
+			this.requestCount = requestCount;
+			this.size = size;
+			this.type = type;
+			this.latencies = latencies;
+		}
+
+		@Override
+		public void run() {
+			try (final Socket socket = new Socket(host, port)) {
+				socket.setTcpNoDelay(true);
+				final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+				final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+				final Random random = new Random(getId());
+				final int[] ints = new int[size];
+				final long[] longs = new long[size];
+				final byte[] records = new byte[size * RECORD_SIZE];
+
+				for (int request = 0; request < requestCount; request++) {
+					// 依頼データの作成
+					if (type == SortServer.TYPE_INT) {
+						for (int idx = 0; idx < size; idx++)
+							ints[idx] = random.nextInt();
+					} else if (type == SortServer.TYPE_LONG) {
+						for (int idx = 0; idx < size; idx++)
+							longs[idx] = random.nextLong();
+					} else
+						random.nextBytes(records);
+
+					final long startTime = System.nanoTime();
+
+					// 送信
+					out.writeInt(request);
+					out.writeByte(type);
+					out.writeInt(size);
+					if (type == SortServer.TYPE_INT) {
+						for (int idx = 0; idx < size; idx++)
+							out.writeInt(ints[idx]);
+					} else if (type == SortServer.TYPE_LONG) {
+						for (int idx = 0; idx < size; idx++)
+							out.writeLong(longs[idx]);
+					} else {
+						out.writeInt(RECORD_SIZE);
+						out.writeInt(KEY_OFFSET);
+						out.writeInt(KEY_LENGTH);
+						out.write(records);
+					}
+					out.flush();
+
+					// 受信
+					final int requestId = in.readInt();
+					final byte status = in.readByte();
+					if (status != SortServer.STATUS_OK)
+						throw new IOException("Request " + requestId + " failed : " + in.readUTF());
+					final int count = in.readInt();
+					if (requestId != request || count != size)
+						throw new IOException("Unexpected response : requestId=" + requestId + " count=" + count);
+					if (type == SortServer.TYPE_INT) {
+						for (int idx = 0; idx < size; idx++)
+							ints[idx] = in.readInt();
+					} else if (type == SortServer.TYPE_LONG) {
+						for (int idx = 0; idx < size; idx++)
+							longs[idx] = in.readLong();
+					} else
+						in.readFully(records);
+
+					latencies[request] = System.nanoTime() - startTime;
+
+					// 検証
+					if (!isSorted(ints, longs, records))
+						throw new IOException("Response of request " + requestId + " is not sorted");
+				}
+			} catch (Throwable e) {
+				error = e;
+			}
+		}
+
+		boolean isSorted(final int[] ints, final long[] longs, final byte[] records) {
+			if (type == SortServer.TYPE_INT) {
+				for (int idx = 1; idx < size; idx++)
+					if (ints[idx - 1] > ints[idx])
+						return false;
+			} else if (type == SortServer.TYPE_LONG) {
+				for (int idx = 1; idx < size; idx++)
+					if (longs[idx - 1] > longs[idx])
+						return false;
+			} else {
+				final IRecordComparator comparator = FileMergeSort.unsignedBytesComparator(KEY_OFFSET, KEY_LENGTH);
+				for (int idx = 1; idx < size; idx++)
+					if (comparator.compare(records, (idx - 1) * RECORD_SIZE, records, idx * RECORD_SIZE) > 0)
+						return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Load generator for SortServer
+	 *
+	 * usage : java mmsort.SortLoadClient host port connections requests size type
+	 *   host        : サーバのホスト名（通常は localhost）
+	 *   port        : ポート番号
+	 *   connections : 同時接続数（スレッド数）
+	 *   requests    : １接続あたりの依頼数
+	 *   size        : １依頼あたりの要素数
+	 *   type        : I : int, L : long, R : レコード（32 バイト、キーは 4 バイト目から 8 バイト）
+	 *
+	 * 結果はタブ区切りで出力する。（応答時間はミリ秒）
+	 *
+	 * @param args 引数
+	 * @throws Exception 通信エラーなど
+	 */
+	public static void main(final String[] args) throws Exception
+	{
+		if (args.length < 6) {
+			System.err.println("usage : java mmsort.SortLoadClient host port connections requests size type(I/L/R)");
+			System.exit(1);
+		}
+		final String host = args[0];
+		final int port = Integer.parseInt(args[1]);
+		final int connectionCount = Integer.parseInt(args[2]);
+		final int requestCount = Integer.parseInt(args[3]);
+		final int size = Integer.parseInt(args[4]);
+		final byte type;
+		if ("I".equals(args[5]))
+			type = SortServer.TYPE_INT;
+		else if ("L".equals(args[5]))
+			type = SortServer.TYPE_LONG;
+		else if ("R".equals(args[5]))
+			type = SortServer.TYPE_RECORD;
+		else
+			throw new IllegalArgumentException("Unknown type : " + args[5]);
+
+		final long[] latencies = new long[connectionCount * requestCount];
+		final LoadThread[] threads = new LoadThread[connectionCount];
+		final long startTime = System.nanoTime();
+		for (int idx = 0; idx < connectionCount; idx++) {
+			final long[] threadLatencies = new long[requestCount];
+			threads[idx] = new LoadThread(host, port, requestCount, size, type, threadLatencies);
+			threads[idx].start();
+		}
+		for (int idx = 0; idx < connectionCount; idx++) {
+			threads[idx].join();
+			if (threads[idx].error != null)
+				throw new RuntimeException("Connection " + idx + " failed", threads[idx].error);
+			System.arraycopy(threads[idx].latencies, 0, latencies, idx * requestCount, requestCount);
+		}
+		final long elapsed = System.nanoTime() - startTime;
+
+		// 応答時間の分布
+		MmSort.sortImpl(latencies, 0, latencies.length);
+		final long total = latencies.length;
+		final double seconds = elapsed / 1e9;
+
+		System.out.println("type\tconnections\trequests\tsize\tp50(ms)\tp99(ms)\tmax(ms)\trequests/s\telements/s");
+		System.out.println(args[5]
+				+ "\t" + connectionCount
+				+ "\t" + total
+				+ "\t" + size
+				+ "\t" + String.format("%.3f", percentile(latencies, 50) / 1e6)
+				+ "\t" + String.format("%.3f", percentile(latencies, 99) / 1e6)
+				+ "\t" + String.format("%.3f", latencies[latencies.length - 1] / 1e6)
+				+ "\t" + String.format("%.1f", total / seconds)
+				+ "\t" + String.format("%.1f", total * size / seconds));
+	}
+
+	/**
+	 * ソート済みの値から百分位数を求める（nearest-rank 法）
+	 * @param sorted sorted values / ソート済みの値
+	 * @param percent percent / 百分率
+	 * @return percentile / 百分位数
+	 */
+	private static long percentile(final long[] sorted, final int percent)
+	{
+		final int rank = (int)Math.ceil(sorted.length * percent / 100.0);
+		return sorted[Math.max(rank, 1) - 1];
+	}
+}
@@ -0,0 +1,463 @@
+/*
+ * Sort server
+ *
+ * ループバックの TCP で int / long / 固定長バイナリレコードの配列を受け取り、ソートして返すサーバ
+ * 多数のスレッドから小さな配列のソートを依頼される場合に、JIT のウォームアップ・メモリ割り当て・スレッドの受け渡しの
+ * コストを呼び出し側から取り除く。同時に届いた小さな依頼はまとめて（バッチにして）ワーカースレッドで連続してソートする。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sort server
+ *
+ * プロトコル（数値はすべてビッグエンディアン。１つの接続で複数の依頼を続けて送ってよい）
+ *
+ * 依頼
+ *   int  requestId   依頼番号（応答にそのまま返す）
+ *   byte type        TYPE_INT : int 配列, TYPE_LONG : long 配列, TYPE_RECORD : 固定長バイナリレコード
+ *   int  count       要素数（レコード数）
+ *   TYPE_RECORD の場合のみ
+ *     int recordSize レコードサイズ（バイト）
+ *     int keyOffset  キーの開始位置（バイト。キーは符号なしバイト列として辞書順に比較する）
+ *     int keyLength  キーの長さ（バイト）
+ *   要素  count 個の int / long、または count * recordSize バイト
+ *
+ * 応答
+ *   int  requestId   依頼番号
+ *   byte status      STATUS_OK : 成功, STATUS_ERROR : 失敗
+ *   STATUS_OK の場合   int count と、ソートした要素（依頼と同じ形式）
+ *   STATUS_ERROR の場合 UTF 形式のエラーメッセージ
+ *
+ * 応答は依頼の順とは限らない（バッチごとに別のワーカースレッドが処理するため）。依頼番号で対応をとること。
+ * 受信済みで応答を送信していない依頼のバイト数の合計には上限があり、上限に達すると空きができるまで受信を待つ。
+ * int / long 配列は mmSort（プリミティブ版）、レコードは mmsSort の argsort（安定ソート）でソートする。
+ *
+ * @author matsubara
+ *
+ */
+public class SortServer {
+	/** 要素の種類 : int 配列 */
+	public static final byte TYPE_INT = 1;
+	/** 要素の種類 : long 配列 */
+	public static final byte TYPE_LONG = 2;
+	/** 要素の種類 : 固定長バイナリレコード */
+	public static final byte TYPE_RECORD = 3;
+
+	/** 応答の状態 : 成功 */
+	public static final byte STATUS_OK = 0;
+	/** 応答の状態 : 失敗 */
+	public static final byte STATUS_ERROR = 1;
+
+	/** 既定のポート番号 */
+	public static final int DEFAULT_PORT = 7170;
+	/** 既定の１バッチあたりの最大依頼数 */
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	/** １バッチあたりの最大要素数（これを超えたらバッチを締め切る。大きな依頼は単独のバッチになる） */
+	public static final int BATCH_ELEMENTS = 1 << 20;
+	/** １依頼あたりの最大バイト数 */
+	public static final int MAX_REQUEST_BYTES = 1 << 30;
+	/** 既定の処理中（受信済みで応答を送信していない）の依頼の最大バイト数 */
+	public static final int DEFAULT_MAX_IN_FLIGHT_BYTES = 1 << 30;
+	/** 依頼ごとの管理領域の概算バイト数（要素数 0 の依頼も処理中のバイト数に数えるため） */
+	private static final int JOB_OVERHEAD_BYTES = 64;
+
+	/**
+	 * Sort request
+	 *
+	 * 受信した依頼（ソート後に同じオブジェクトで応答を返す）
+	 */
+	private static final class Job {
+		final Connection connection;
+		final int requestId;
+		final byte type;
+		final int count;
+		int[] ints;
+		long[] longs;
+		byte[] records;
+		int recordSize;
+		int keyOffset;
+		int keyLength;
+		String error;
+		// 処理中のバイト数として確保した量（応答の送信後に解放する）
+		int reservedBytes;
+
+		Job(final Connection connection, final int requestId, final byte type, final int count) {
+			this.connection = connection;
+			this.requestId = requestId;
+			this.type = type;
+			this.count = count;
+		}
+
+		/**
+		 * ソートする
+		 */
+		void sort() {
+			if (type == TYPE_INT)
+				MmSort.sortImpl(ints, 0, count);
+			else if (type == TYPE_LONG)
+				MmSort.sortImpl(longs, 0, count);
+			else
+				records = sortRecords(records, count, recordSize, keyOffset, keyLength);
+		}
+
+		/**
+		 * 要素を手放す（応答の送信後、またはソートに失敗したとき）
+		 */
+		void clear() {
+			ints = null;
+			longs = null;
+			records = null;
+		}
+	}
+
+	/**
+	 * Client connection
+	 *
+	 * クライアントとの接続。受信は接続ごとのスレッドで行い、応答の送信はワーカースレッドから行う（送信は接続ごとに排他）。
+	 */
+	private final class Connection implements Runnable {
+		final Socket socket;
+		final DataInputStream in;
+		final DataOutputStream out;
+
+		Connection(final Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+		}
+
+		@Override
+		public void run() {
+			// 確保済みで、まだキューに入れていない処理中のバイト数
+			int reservedBytes = 0;
+			try {
+				while (true) {
+					final int requestId;
+					try {
+						requestId = in.readInt();
+					} catch (EOFException e) {
+						break;	//	クライアントが接続を閉じた
+					}
+					final byte type = in.readByte();
+					final int count = in.readInt();
+					final Job job = new Job(this, requestId, type, count);
+					if (count < 0)
+						throw new IOException("Invalid count : " + count);
+					if (type == TYPE_INT) {
+						reservedBytes = reserve((long)count * 4);
+						final int[] ints = new int[count];
+						for (int idx = 0; idx < count; idx++)
+							ints[idx] = in.readInt();
+						job.ints = ints;
+					} else if (type == TYPE_LONG) {
+						reservedBytes = reserve((long)count * 8);
+						final long[] longs = new long[count];
+						for (int idx = 0; idx < count; idx++)
+							longs[idx] = in.readLong();
+						job.longs = longs;
+					} else if (type == TYPE_RECORD) {
+						job.recordSize = in.readInt();
+						job.keyOffset = in.readInt();
+						job.keyLength = in.readInt();
+						if (job.recordSize <= 0 || job.keyOffset < 0 || job.keyLength < 0 || job.keyOffset + job.keyLength > job.recordSize)
+							throw new IOException("Invalid record layout : recordSize=" + job.recordSize + " keyOffset=" + job.keyOffset + " keyLength=" + job.keyLength);
+						reservedBytes = reserve((long)count * job.recordSize);
+						job.records = new byte[count * job.recordSize];
+						in.readFully(job.records);
+					} else
+						throw new IOException("Unknown type : " + type);
+					job.reservedBytes = reservedBytes;
+					queue.put(job);
+					reservedBytes = 0;
+				}
+			} catch (IOException e) {
+				// 不正な依頼や通信エラー（接続を閉じる）
+				System.err.println("SortServer: " + socket.getRemoteSocketAddress() + " : " + e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlightBytes.release(reservedBytes);
+				close();
+			}
+		}
+
+		/**
+		 * 依頼のサイズを確認し、処理中のバイト数を確保する（上限に達していれば、応答の送信で空きができるまで待つ）
+		 * @param bytes size of request / 依頼のバイト数
+		 * @return reserved bytes / 確保したバイト数
+		 * @throws IOException 依頼が大きすぎる
+		 * @throws InterruptedException 待機中に割り込まれた
+		 */
+		int reserve(final long bytes) throws IOException, InterruptedException {
+			if (bytes > MAX_REQUEST_BYTES)
+				throw new IOException("Request is too large : " + bytes + " bytes");
+			// 上限より大きな依頼は、他の依頼がすべて応答を送信するまで待って単独で処理する
+			final int reservedBytes = (int)Math.min(bytes + JOB_OVERHEAD_BYTES, maxInFlightBytes);
+			inFlightBytes.acquire(reservedBytes);
+			return reservedBytes;
+		}
+
+		/**
+		 * 応答を送信する（送信バッファに書き込むだけで、フラッシュはしない）
+		 */
+		synchronized void write(final Job job) throws IOException {
+			out.writeInt(job.requestId);
+			if (job.error != null) {
+				out.writeByte(STATUS_ERROR);
+				out.writeUTF(job.error);
+				return;
+			}
+			out.writeByte(STATUS_OK);
+			out.writeInt(job.count);
+			if (job.type == TYPE_INT) {
+				for (int idx = 0; idx < job.count; idx++)
+					out.writeInt(job.ints[idx]);
+			} else if (job.type == TYPE_LONG) {
+				for (int idx = 0; idx < job.count; idx++)
+					out.writeLong(job.longs[idx]);
+			} else
+				out.write(job.records, 0, job.count * job.recordSize);
+		}
+
+		synchronized void flush() throws IOException {
+			out.flush();
+		}
+
+		void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// 何もしない
+			}
+		}
+	}
+
+	/**
+	 * Worker
+	 *
+	 * 依頼のキューからバッチを取り出し、連続してソートしてから、まとめて応答を送信する。
+	 * ソート中の例外やエラー（OutOfMemoryError など）はその依頼の失敗として応答し、ワーカースレッドは処理を続ける。
+	 */
+	private final class Worker implements Runnable {
+		@Override
+		public void run() {
+			final List<Job> batch = new ArrayList<Job>(batchSize);
+			final List<Connection> connections = new ArrayList<Connection>(batchSize);
+			try {
+				while (true) {
+					// 少なくとも１件を待ち、その時点で届いている依頼をバッチの上限まで取り出す
+					batch.add(queue.take());
+					long elements = batch.get(0).count;
+					while (batch.size() < batchSize && elements < BATCH_ELEMENTS) {
+						final Job job = queue.poll();
+						if (job == null)
+							break;
+						batch.add(job);
+						elements += job.count;
+					}
+
+					// バッチ内の依頼を連続してソート
+					for (final Job job : batch) {
+						try {
+							job.sort();
+						} catch (Throwable e) {
+							job.clear();
+							job.error = e.toString();
+						}
+					}
+
+					// 応答の送信（接続ごとにフラッシュは１回）。送信した依頼の処理中のバイト数を解放する
+					for (final Job job : batch) {
+						try {
+							job.connection.write(job);
+							if (!connections.contains(job.connection))
+								connections.add(job.connection);
+						} catch (IOException e) {
+							job.connection.close();
+						} finally {
+							job.clear();
+							inFlightBytes.release(job.reservedBytes);
+						}
+					}
+					for (final Connection connection : connections) {
+						try {
+							connection.flush();
+						} catch (IOException e) {
+							connection.close();
+						}
+					}
+					batch.clear();
+					connections.clear();
+				}
+			} catch (InterruptedException e) {
+				// 停止
+			}
+		}
+	}
+
+	/**
+	 * 固定長バイナリレコードのソート（安定）
+	 *
+	 * レコード番号の順列を mmsSort の argsort で求め、その順にレコードを並べた新しい配列を返す。
+	 * @param records records / レコード
+	 * @param count number of records / レコード数
+	 * @param recordSize record size / レコードサイズ
+	 * @param keyOffset offset of key in record / レコード内のキーの開始位置（バイト）
+	 * @param keyLength length of key / キーの長さ（バイト）
+	 * @return sorted records / ソートしたレコード
+	 */
+	public static byte[] sortRecords(final byte[] records, final int count, final int recordSize, final int keyOffset, final int keyLength)
+	{
+		final IRecordComparator recordComparator = FileMergeSort.unsignedBytesComparator(keyOffset, keyLength);
+		final int[] order = MmsSort.argsort(count, (row1, row2) -> recordComparator.compare(records, row1 * recordSize, records, row2 * recordSize));
+		final byte[] sorted = new byte[count * recordSize];
+		for (int idx = 0; idx < count; idx++)
+			System.arraycopy(records, order[idx] * recordSize, sorted, idx * recordSize, recordSize);
+		return sorted;
+	}
+
+	// 依頼のキュー（処理中のバイト数の上限で制限されるので、キュー自体の長さは制限しない）
+	private final BlockingQueue<Job> queue = new LinkedBlockingQueue<Job>();
+	// 処理中の依頼の最大バイト数
+	private final int maxInFlightBytes;
+	// 処理中の依頼のバイト数の空き
+	private final Semaphore inFlightBytes;
+	// ポート番号
+	private final int port;
+	// ワーカースレッド数
+	private final int workerCount;
+	// １バッチあたりの最大依頼数
+	private final int batchSize;
+
+	/**
+	 * @param port port number (0 : any free port) / ポート番号（0 なら空いているポート）
+	 * @param workerCount number of worker threads / ワーカースレッド数
+	 * @param batchSize maximum number of requests in a batch / １バッチあたりの最大依頼数
+	 */
+	public SortServer(final int port, final int workerCount, final int batchSize)
+	{
+		this(port, workerCount, batchSize, DEFAULT_MAX_IN_FLIGHT_BYTES);
+	}
+
+	/**
+	 * @param port port number (0 : any free port) / ポート番号（0 なら空いているポート）
+	 * @param workerCount number of worker threads / ワーカースレッド数
+	 * @param batchSize maximum number of requests in a batch / １バッチあたりの最大依頼数
+	 * @param maxInFlightBytes maximum bytes of requests received but not yet answered / 受信済みで応答を送信していない依頼の最大バイト数
+	 */
+	public SortServer(final int port, final int workerCount, final int batchSize, final int maxInFlightBytes)
+	{
+		if (maxInFlightBytes <= 0)
+			throw new IllegalArgumentException("maxInFlightBytes must be positive : " + maxInFlightBytes);
+		this.port = port;
+		this.workerCount = workerCount;
+		this.batchSize = batchSize;
+		this.maxInFlightBytes = maxInFlightBytes;
+		this.inFlightBytes = new Semaphore(maxInFlightBytes);
+	}
+
+	/**
+	 * ループバックアドレスで待ち受けを開始する（受け付けとワーカーはデーモンスレッドで動作する）
+	 * @return server socket / 待ち受けソケット（閉じるとサーバは新しい接続を受け付けなくなる）
+	 * @throws IOException 待ち受けを開始できなかった
+	 */
+	public ServerSocket start() throws IOException
+	{
+		final ServerSocket serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+
+		for (int idx = 0; idx < workerCount; idx++) {
+			final Thread worker = new Thread(new Worker(), "SortServer-worker-" + idx);
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		final Thread acceptor = new Thread(() -> {
+			while (!serverSocket.isClosed()) {
+				try {
+					final Socket socket = serverSocket.accept();
+					socket.setTcpNoDelay(true);
+					final Thread reader = new Thread(new Connection(socket), "SortServer-connection-" + socket.getPort());
+					reader.setDaemon(true);
+					reader.start();
+				} catch (IOException e) {
+					if (!serverSocket.isClosed())
+						System.err.println("SortServer: " + e);
+				}
+			}
+		}, "SortServer-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return serverSocket;
+	}
+
+	/**
+	 * JIT のウォームアップ（起動時に各ソートを何度か実行しておく）
+	 */
+	public static void warmUp()
+	{
+		final java.util.Random random = new java.util.Random(0);
+		for (int loop = 0; loop < 2000; loop++) {
+			final int count = 16 + random.nextInt(2000);
+			final int[] ints = new int[count];
+			final long[] longs = new long[count];
+			final byte[] records = new byte[count * 16];
+			for (int idx = 0; idx < count; idx++) {
+				ints[idx] = random.nextInt();
+				longs[idx] = random.nextLong();
+			}
+			random.nextBytes(records);
+			MmSort.sortImpl(ints, 0, count);
+			MmSort.sortImpl(longs, 0, count);
+			sortRecords(records, count, 16, 0, 8);
+		}
+	}
+
+	/**
+	 * Sort server
+	 *
+	 * usage : java mmsort.SortServer [port] [workers] [batch size] [in-flight MB]
+	 *   port         : ポート番号（既定値 7170）
+	 *   workers      : ワーカースレッド数（既定値 CPU 数）
+	 *   batch size   : １バッチあたりの最大依頼数（既定値 64）
+	 *   in-flight MB : 受信済みで応答を送信していない依頼の最大サイズ（MB、既定値 1024）
+	 *
+	 * @param args 引数
+	 * @throws Exception 待ち受けを開始できなかった
+	 */
+	public static void main(final String[] args) throws Exception
+	{
+		final int port = (args.length >= 1) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		final int workerCount = (args.length >= 2) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		final int batchSize = (args.length >= 3) ? Integer.parseInt(args[2]) : DEFAULT_BATCH_SIZE;
+		final int maxInFlightBytes = (args.length >= 4) ? (int)Math.min(Integer.MAX_VALUE, Long.parseLong(args[3]) * 1024 * 1024) : DEFAULT_MAX_IN_FLIGHT_BYTES;
+
+		warmUp();
+		final ServerSocket serverSocket = new SortServer(port, workerCount, batchSize, maxInFlightBytes).start();
+		System.out.println("SortServer listening on " + serverSocket.getLocalSocketAddress() + " (workers=" + workerCount + ", batch size=" + batchSize + ", in-flight bytes=" + maxInFlightBytes + ")");
+
+		// Ctrl+C などで終了するまで待つ
+		while (true)
+			Thread.sleep(Long.MAX_VALUE);
+	}
+}
@@ -0,0 +1,31 @@
+@echo off
+rem Copyright (c) 2016 matsubara masakazu
+rem Released under the MIT license
+rem https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+
+rem Sort server (mmsort.SortServer) and load generator (mmsort.SortLoadClient)
+rem   usage   : sortServer.bat server [port] [workers] [batch size] [in-flight MB]
+rem             sortServer.bat client host port connections requests size type(I/L/R)
+rem   example : sortServer.bat server 7170 4 64
+rem             sortServer.bat client localhost 7170 16 1000 1000 I
+
+if not exist bin-server mkdir bin-server
+javac.exe -encoding UTF-8 -classpath bin -d bin-server server\src\mmsort\SortServer.java server\src\mmsort\SortLoadClient.java
+if errorlevel 1 exit /b 1
+set MODE=%1
+shift
+set ARGS=
+:loop
+if "%1"=="" goto run
+set ARGS=%ARGS% %1
+shift
+goto loop
+:run
+if "%MODE%"=="server" (
+	java.exe -server -classpath "bin-server;bin" mmsort.SortServer %ARGS%
+) else if "%MODE%"=="client" (
+	java.exe -server -classpath "bin-server;bin" mmsort.SortLoadClient %ARGS%
+) else (
+	echo usage : sortServer.bat server^|client [arguments]
+	exit /b 1
+)
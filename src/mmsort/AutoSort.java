@@ -0,0 +1,292 @@
+/*
+ * AutoSort
+ *
+ * Adaptive algorithm selector
+ *
+ * ソート前に配列を標本調査し、その特徴（整列の度合い、重複値の多さ、要素数）に応じて、
+ * 最も速いと思われるソートアルゴリズムを選んで実行する。
+ * アルゴリズムの選択は testAll.txt のベンチマーク結果をもとにしている。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+
+public class AutoSort implements ISortAlgorithm {
+	// 標本の数（ManyPivotSort3W のピボットリストと同じく、2のべき乗 - 1）
+	private static final int SAMPLE_SIZE = 127;
+	// 標本調査をせずに BinInsertionSort を行う要素数
+	private static final int SMALL_THRESHOLD = 64;
+	// 作業用一時領域の少ないアルゴリズム（MatSort, ManyPivotSort）に切り替える要素数
+	private static final int LARGE_THRESHOLD = 1 << 24;
+
+	/** 配列の特徴 : 要素数が少ない */
+	public static final int PROFILE_SMALL = 0;
+	/** 配列の特徴 : ランダム */
+	public static final int PROFILE_RANDOM = 1;
+	/** 配列の特徴 : ほぼ昇順に整列済み */
+	public static final int PROFILE_PRESORTED = 2;
+	/** 配列の特徴 : ほぼ降順に整列済み */
+	public static final int PROFILE_DESCENDING = 3;
+	/** 配列の特徴 : 重複値が多い */
+	public static final int PROFILE_MANY_DUPLICATES = 4;
+
+	/**
+	 * Sampled statistics and decision
+	 *
+	 * 標本調査の結果と、選択したアルゴリズム（ログ出力用）
+	 */
+	public static class Statistics {
+		/** ソート範囲サイズ */
+		public int range;
+		/** 標本の数 */
+		public int sampleSize;
+		/** 標本位置で隣の要素より小さかった（昇順だった）数 */
+		public int ascentCount;
+		/** 標本位置で隣の要素より大きかった（降順だった）数 */
+		public int descentCount;
+		/** 前の標本より大きかった（隣り合う標本どうしが昇順だった）数 */
+		public int sampleAscentCount;
+		/** 前の標本より小さかった（隣り合う標本どうしが降順だった）数 */
+		public int sampleDescentCount;
+		/** 標本の中の異なる値の数 */
+		public int distinctCount;
+		/** 推定した昇順列（ラン）の数 */
+		public int estimatedRunCount;
+		/** 配列の特徴（PROFILE_*） */
+		public int profile;
+		/** 選択したアルゴリズム */
+		public ISortAlgorithm algorithm;
+
+		public String toString() {
+			//	analyze() の結果はアルゴリズムが未選択（null）
+			return "(range=" + range + ":sampleSize=" + sampleSize + ":ascentCount=" + ascentCount + ":descentCount=" + descentCount
+					+ ":sampleAscentCount=" + sampleAscentCount + ":sampleDescentCount=" + sampleDescentCount + ":distinctCount=" + distinctCount
+					+ ":estimatedRunCount=" + estimatedRunCount + ":profile=" + profileName(profile) + ":algorithm=" + ((algorithm != null) ? algorithm.getName() : "-") + ")";
+		}
+	}
+
+	/**
+	 * 配列の特徴の名称
+	 * @param profile 配列の特徴（PROFILE_*）
+	 * @return 名称
+	 */
+	public static String profileName(final int profile)
+	{
+		switch (profile) {
+			case PROFILE_SMALL:				return "small";
+			case PROFILE_RANDOM:			return "random";
+			case PROFILE_PRESORTED:			return "presorted";
+			case PROFILE_DESCENDING:		return "descending";
+			case PROFILE_MANY_DUPLICATES:	return "many duplicates";
+			default:						return "unknown";
+		}
+	}
+
+	/**
+	 * 配列を標本調査する
+	 *
+	 * 範囲内の等間隔の位置で隣り合う要素を比較して昇順・降順になっている数をそれぞれ数え（等しい場合はどちらにも数えない）、昇順列の数を推定する。
+	 * 隣り合う標本どうしについても同様に昇順・降順の数を数える。
+	 * また、標本を ManyPivotSort3W のピボット選出と同じく重複を取り除きながら２分挿入し、異なる値の数を数える。
+	 * 比較回数は標本の数 × 8 程度。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @return 標本調査の結果（アルゴリズムは未選択）
+	 */
+	public static final <T> Statistics analyze(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		final Statistics stats = new Statistics();
+		final int range = to - from;
+		stats.range = range;
+		if (range < 2)
+			return stats;
+
+		final int sampleSize = Math.min(SAMPLE_SIZE, range - 1);
+		stats.sampleSize = sampleSize;
+
+		@SuppressWarnings("unchecked")
+		final T[] samples = (T[])new Object[sampleSize];		//	重複を取り除いた標本（昇順）
+		int distinctCount = 0;
+		int ascentCount = 0;
+		int descentCount = 0;
+		int sampleAscentCount = 0;
+		int sampleDescentCount = 0;
+		T prevItem = null;
+		for (int i = 0; i < sampleSize; i++) {
+			// 配列より適当な間隔で要素を取得（次の要素も範囲内）
+			final int idx = (int)(from + (long)(range - 1) * i / sampleSize + (range - 1) / 2 / sampleSize);
+			final T item = array[idx];
+			final int order = comparator.compare(item, array[idx + 1]);
+			if (order < 0)
+				ascentCount++;
+			else if (order > 0)
+				descentCount++;
+			if (i > 0) {
+				final int sampleOrder = comparator.compare(prevItem, item);
+				if (sampleOrder < 0)
+					sampleAscentCount++;
+				else if (sampleOrder > 0)
+					sampleDescentCount++;
+			}
+			prevItem = item;
+
+			// 二分探索して重複がなければ挿入
+			int fromIdx = 0;
+			int toIdx = distinctCount;
+			boolean duplicate = false;
+			while (fromIdx < toIdx) {
+				final int curIdx = fromIdx + (toIdx - fromIdx) / 2;
+				final int comp = comparator.compare(item, samples[curIdx]);
+				if (comp == 0) {
+					duplicate = true;
+					break;
+				}
+				if (comp < 0)
+					toIdx = curIdx;
+				else
+					fromIdx = curIdx + 1;
+			}
+			if (!duplicate) {
+				System.arraycopy(samples, fromIdx, samples, fromIdx + 1, distinctCount - fromIdx);
+				samples[fromIdx] = item;
+				distinctCount++;
+			}
+		}
+		stats.ascentCount = ascentCount;
+		stats.descentCount = descentCount;
+		stats.sampleAscentCount = sampleAscentCount;
+		stats.sampleDescentCount = sampleDescentCount;
+		stats.distinctCount = distinctCount;
+		stats.estimatedRunCount = (int)((long)range * descentCount / sampleSize) + 1;
+		return stats;
+	}
+
+	/**
+	 * 標本調査の結果から配列の特徴を判定し、アルゴリズムを選択する
+	 * 整列の度合いは、隣り合う要素が等しくなかった標本（昇順 + 降順）に占める降順・昇順の割合で判定する。
+	 * （重複値の多い配列では等しい組が大部分になるため、標本の数に対する割合では判定できない）
+	 * 等しくなかった標本が 1/4 未満の場合（同じ値の連続が標本の間隔と揃った場合など）は、隣り合う標本どうしの昇順・降順の数で判定する。
+	 *
+	 *  特徴              安定ソート              非安定ソート
+	 *  small             BinInsertionSort        BinInsertionSort
+	 *  presorted         MasSort                 MasSort
+	 *  descending        MmsSort                 MmsSort
+	 *  many duplicates   MasSort                 QuickSort3WM5
+	 *  random            MmsSort (MatSort)       MmsSort (ManyPivotSort)
+	 * （括弧内は要素数が LARGE_THRESHOLD 以上の場合。作業用一時領域を節約する）
+	 *
+	 * @param stats 標本調査の結果（profile, algorithm を設定する）
+	 * @param stable 安定ソートが必要か
+	 * @return 選択したアルゴリズム
+	 */
+	public static final ISortAlgorithm choose(final Statistics stats, final boolean stable)
+	{
+		final int sampleSize = stats.sampleSize;
+		int ascentCount = stats.ascentCount;
+		int descentCount = stats.descentCount;
+		if ((ascentCount + descentCount) * 4 < sampleSize) {
+			ascentCount = stats.sampleAscentCount;
+			descentCount = stats.sampleDescentCount;
+		}
+		final int orderedCount = ascentCount + descentCount;	// 等しくなかった数
+		if (stats.range < SMALL_THRESHOLD) {
+			stats.profile = PROFILE_SMALL;
+			stats.algorithm = new BinInsertionSort();
+		} else if (descentCount * 16 <= orderedCount) {
+			// 降順の箇所が 1/16 以下（全て等しい場合も含む）
+			stats.profile = PROFILE_PRESORTED;
+			stats.algorithm = new MasSort();
+		} else if (ascentCount * 16 <= orderedCount) {
+			// 昇順の箇所が 1/16 以下
+			stats.profile = PROFILE_DESCENDING;
+			stats.algorithm = new MmsSort();
+		} else if (stats.distinctCount * 4 <= sampleSize) {
+			// 異なる値が標本の 1/4 以下
+			stats.profile = PROFILE_MANY_DUPLICATES;
+			stats.algorithm = stable ? new MasSort() : new QuickSort3WM5();
+		} else {
+			stats.profile = PROFILE_RANDOM;
+			if (stats.range >= LARGE_THRESHOLD)
+				stats.algorithm = stable ? new MatSort() : new ManyPivotSort();
+			else
+				stats.algorithm = new MmsSort();
+		}
+		return stats.algorithm;
+	}
+
+	/**
+	 * AutoSort
+	 *
+	 * 配列を標本調査してアルゴリズムを選択し、ソートする。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param stable 安定ソートが必要か
+	 * @param comparator comparator of array element / 比較器
+	 * @return 標本調査の結果と選択したアルゴリズム
+	 */
+	public static final <T> Statistics sortImpl(final T[] array, final int from, final int to, final boolean stable, final Comparator<? super T> comparator)
+	{
+		final Statistics stats = (to - from < SMALL_THRESHOLD) ? new Statistics() : analyze(array, from, to, comparator);
+		stats.range = to - from;
+		choose(stats, stable).sort(array, from, to, comparator);
+		return stats;
+	}
+
+	// 安定ソートが必要か
+	private final boolean stable;
+	// 直前のソートの標本調査の結果
+	private volatile Statistics lastStatistics = null;
+
+	/**
+	 * 安定ソートを行う AutoSort
+	 */
+	public AutoSort()
+	{
+		this(true);
+	}
+
+	/**
+	 * @param stable 安定ソートが必要か
+	 */
+	public AutoSort(final boolean stable)
+	{
+		this.stable = stable;
+	}
+
+	/**
+	 * 直前のソートの標本調査の結果と選択したアルゴリズム
+	 * @return 標本調査の結果（まだソートしていない場合は null）
+	 */
+	public Statistics getLastStatistics()
+	{
+		return lastStatistics;
+	}
+
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		lastStatistics = sortImpl(array, from, to, stable, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return stable;
+	}
+
+	@Override
+	public String getName()
+	{
+		return stable ? "AutoSort (stable)" : "AutoSort";
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Columnar Sort
+ *
+ * Multi-column sort over struct-of-arrays
+ *
+ * 列ごとに別の配列（int[], long[], double[]）に格納された表（列指向のデータ）を、複数のキー列でソートする。
+ * 行オブジェクトを作らずに、行番号の順列を mmsSort（argsort）で求めてから、すべての列をその順列で並べ替える。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+public class ColumnarSort {
+	/**
+	 * 列の行数
+	 * @param column 列（int[], long[], double[]）
+	 * @return 行数
+	 */
+	public static final int rowCount(final Object column)
+	{
+		if (column instanceof int[])
+			return ((int[])column).length;
+		else if (column instanceof long[])
+			return ((long[])column).length;
+		else if (column instanceof double[])
+			return ((double[])column).length;
+		else
+			throw new IllegalArgumentException("Unsupported column type : " + (column == null ? "null" : column.getClass().getName()));
+	}
+
+	/**
+	 * １つのキー列の行番号の比較器
+	 *
+	 * double 列は Double.compare の順序（-0.0 < 0.0、NaN は最大）で比較する。
+	 * 降順の場合は比較の向きを逆にするだけなので、キーが等しい行の順序は昇順の場合と同じく行番号順のまま（安定）になる。
+	 *
+	 * @param column key column / キー列（int[], long[], double[]）
+	 * @param descending 降順か
+	 * @return 行番号の比較器
+	 */
+	public static final IIntComparator columnComparator(final Object column, final boolean descending)
+	{
+		if (column instanceof int[]) {
+			final int[] values = (int[])column;
+			if (descending)
+				return (row1, row2) -> Integer.compare(values[row2], values[row1]);
+			else
+				return (row1, row2) -> Integer.compare(values[row1], values[row2]);
+		} else if (column instanceof long[]) {
+			final long[] values = (long[])column;
+			if (descending)
+				return (row1, row2) -> Long.compare(values[row2], values[row1]);
+			else
+				return (row1, row2) -> Long.compare(values[row1], values[row2]);
+		} else if (column instanceof double[]) {
+			final double[] values = (double[])column;
+			if (descending)
+				return (row1, row2) -> Double.compare(values[row2], values[row1]);
+			else
+				return (row1, row2) -> Double.compare(values[row1], values[row2]);
+		} else
+			throw new IllegalArgumentException("Unsupported column type : " + (column == null ? "null" : column.getClass().getName()));
+	}
+
+	/**
+	 * 複数のキー列の行番号の比較器
+	 *
+	 * 先頭のキー列から順に比較し、等しければ次のキー列（タイブレーカー）で比較する。
+	 *
+	 * @param keyColumns key columns in order of priority / キー列（優先順）
+	 * @param descending 各キー列が降順か（null ならすべて昇順）
+	 * @return 行番号の比較器
+	 */
+	public static final IIntComparator keyComparator(final Object[] keyColumns, final boolean[] descending)
+	{
+		final IIntComparator[] comparators = new IIntComparator[keyColumns.length];
+		for (int idx = 0; idx < keyColumns.length; idx++)
+			comparators[idx] = columnComparator(keyColumns[idx], descending != null && descending[idx]);
+
+		// キー列が１つ・２つの場合はループを避ける
+		if (comparators.length == 1)
+			return comparators[0];
+		if (comparators.length == 2) {
+			final IIntComparator comparator1 = comparators[0];
+			final IIntComparator comparator2 = comparators[1];
+			return (row1, row2) -> {
+				final int comp = comparator1.compare(row1, row2);
+				return (comp != 0) ? comp : comparator2.compare(row1, row2);
+			};
+		}
+		return (row1, row2) -> {
+			for (final IIntComparator comparator : comparators) {
+				final int comp = comparator.compare(row1, row2);
+				if (comp != 0)
+					return comp;
+			}
+			return 0;
+		};
+	}
+
+	/**
+	 * Sort order (argsort)
+	 *
+	 * キー列の順に並べた行番号の順列を求める。（安定ソート。キーがすべて等しい行は行番号順）
+	 * キー列はすべて同じ行数でなければならない。
+	 *
+	 * @param keyColumns key columns in order of priority / キー列（優先順）
+	 * @param descending 各キー列が降順か（null ならすべて昇順）
+	 * @return sorted row ids / ソートした行番号の配列
+	 */
+	public static final int[] sortOrder(final Object[] keyColumns, final boolean[] descending)
+	{
+		if (keyColumns.length == 0)
+			throw new IllegalArgumentException("No key column");
+		if (descending != null && descending.length != keyColumns.length)
+			throw new IllegalArgumentException("Length of descending is not equal to number of key columns : " + descending.length);
+		final int size = rowCount(keyColumns[0]);
+		for (int idx = 1; idx < keyColumns.length; idx++) {
+			if (rowCount(keyColumns[idx]) != size)
+				throw new IllegalArgumentException("Row count of key column " + idx + " is not equal to " + size);
+		}
+		return MmsSort.argsort(size, keyComparator(keyColumns, descending));
+	}
+
+	/**
+	 * 列を行番号の順列で並べ替える
+	 *
+	 * 作業用一時領域に順列の順に集めて（読み込みはランダム、書き込みは連続）、列に書き戻す。
+	 * 作業用一時領域は同じ型の列の間で使いまわす。（列の型に合わない場合や行数より小さい場合は確保しなおす）
+	 *
+	 * @param column 列（int[], long[], double[]）
+	 * @param order row ids / 行番号の順列
+	 * @param workArray 作業用一時領域（null 可）
+	 * @return 使用した作業用一時領域（次の呼び出しに渡すことができる）
+	 */
+	public static final Object gather(final Object column, final int[] order, final Object workArray)
+	{
+		final int size = order.length;
+		if (column instanceof int[]) {
+			final int[] values = (int[])column;
+			final int[] work = (workArray instanceof int[] && ((int[])workArray).length >= size) ? (int[])workArray : new int[size];
+			for (int idx = 0; idx < size; idx++)
+				work[idx] = values[order[idx]];
+			System.arraycopy(work, 0, values, 0, size);
+			return work;
+		} else if (column instanceof long[]) {
+			final long[] values = (long[])column;
+			final long[] work = (workArray instanceof long[] && ((long[])workArray).length >= size) ? (long[])workArray : new long[size];
+			for (int idx = 0; idx < size; idx++)
+				work[idx] = values[order[idx]];
+			System.arraycopy(work, 0, values, 0, size);
+			return work;
+		} else if (column instanceof double[]) {
+			final double[] values = (double[])column;
+			final double[] work = (workArray instanceof double[] && ((double[])workArray).length >= size) ? (double[])workArray : new double[size];
+			for (int idx = 0; idx < size; idx++)
+				work[idx] = values[order[idx]];
+			System.arraycopy(work, 0, values, 0, size);
+			return work;
+		} else
+			throw new IllegalArgumentException("Unsupported column type : " + (column == null ? "null" : column.getClass().getName()));
+	}
+
+	/**
+	 * Columnar sort
+	 *
+	 * 表のすべての列を、キー列の順に並べ替える。（安定ソート）
+	 * 行番号の順列を mmsSort（argsort）で求め、すべての列（キー列を含む）をその順列で並べ替える。
+	 * 作業用一時領域は、順列の int 配列２つと、列の型ごとに１つの配列。
+	 *
+	 * @param columns all columns of table / 表のすべての列（int[], long[], double[]。すべて同じ行数）
+	 * @param keyColumnIndexes indexes of key columns in order of priority / キー列の columns 内の位置（優先順）
+	 * @param descending 各キー列が降順か（null ならすべて昇順）
+	 * @return sorted row ids (original row id of each row after sort) / ソート後の各行の、元の行番号
+	 */
+	public static final int[] sortImpl(final Object[] columns, final int[] keyColumnIndexes, final boolean[] descending)
+	{
+		final Object[] keyColumns = new Object[keyColumnIndexes.length];
+		for (int idx = 0; idx < keyColumnIndexes.length; idx++)
+			keyColumns[idx] = columns[keyColumnIndexes[idx]];
+		final int[] order = sortOrder(keyColumns, descending);
+
+		// すべての列が同じ行数か確認してから並べ替える（途中で例外になり、一部の列だけ並べ替わるのを防ぐ）
+		for (int idx = 0; idx < columns.length; idx++) {
+			if (rowCount(columns[idx]) != order.length)
+				throw new IllegalArgumentException("Row count of column " + idx + " is not equal to " + order.length);
+		}
+
+		// 並べ替え（作業用一時領域は列の型ごとに使いまわす）
+		Object intWork = null;
+		Object longWork = null;
+		Object doubleWork = null;
+		for (final Object column : columns) {
+			if (column instanceof int[])
+				intWork = gather(column, order, intWork);
+			else if (column instanceof long[])
+				longWork = gather(column, order, longWork);
+			else
+				doubleWork = gather(column, order, doubleWork);
+		}
+		return order;
+	}
+}
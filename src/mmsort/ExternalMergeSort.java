@@ -0,0 +1,473 @@
+/*
+ * External Merge Sort
+ *
+ * 外部マージソート
+ * メモリに収まらないレコード列を、チャンクごとに mmsSort でソートして一時ファイルに書き出し（ラン）、
+ * ランを MasSort / Mas4Sort と同じく「レーンの並びを整数型変数１つで管理する」方式（RecordLaneMerge）で多方向マージする。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * External merge sort
+ *
+ * 外部マージソート（安定ソート）
+ * 第１段階 : 入力をチャンク（chunkSize レコード）ごとに読み込み、mmsSort でソートする。
+ * 第２段階 : ソート済みのチャンクを一時ファイル（ラン）に書き出す。
+ * 第３段階 : ランを fanIn 個ずつマージする。ランが fanIn 個より多い場合は、fanIn 個以下になるまでマージを繰り返す。
+ *            マージは FileMergeSort と共通の RecordLaneMerge で行い、途中段階のマージはレコードを変換せずにそのまま書き出す。
+ * 各段階の所要時間は getReport() などで取得できる。
+ *
+ * @author matsubara
+ *
+ */
+public class ExternalMergeSort<T> {
+	/**
+	 * チャンクサイズ（レコード数）の既定値
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000000;
+	/**
+	 * マージの多重度の既定値（Mas4Sort と同じ４）
+	 */
+	public static final int DEFAULT_FAN_IN = 4;
+	/**
+	 * 入出力バッファサイズ（バイト）の既定値
+	 */
+	public static final int DEFAULT_IO_BUFFER_SIZE = 1024 * 1024;
+	/**
+	 * マージの多重度の最大値（レーンの並びを int 型変数の４ビットずつで管理するため）
+	 */
+	public static final int MAX_FAN_IN = RecordLaneMerge.MAX_LANE_COUNT;
+
+	private final IRecordCodec<T> codec;
+	private final Comparator<? super T> comparator;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int fanIn = DEFAULT_FAN_IN;
+	private int ioBufferSize = DEFAULT_IO_BUFFER_SIZE;
+	private Path tempDirectory = null;
+
+	//	各段階の所要時間（ナノ秒）と件数
+	private long readNanos;
+	private long sortNanos;
+	private long spillNanos;
+	private long mergeNanos;
+	private long recordCount;
+	private int runCount;
+	private int mergePassCount;
+
+	/**
+	 * Writer of run file
+	 *
+	 * ランファイルへの書き込み（バッファリングして書き出す）
+	 */
+	private static class RunWriter<T> implements Consumer<T> {
+		final IRecordCodec<T> codec;
+		final FileChannel channel;
+		final ByteBuffer buf;
+
+		public RunWriter(final Path path, final IRecordCodec<T> codec, final int ioBufferSize) throws IOException {
+			this.codec = codec;
+			this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.buf = ByteBuffer.allocateDirect(Math.max(1, ioBufferSize / codec.recordSize()) * codec.recordSize());
+		}
+		@Override
+		public void accept(final T value) {
+			try {
+				if (buf.remaining() < codec.recordSize())
+					flush();
+				codec.write(value, buf);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		private void flush() throws IOException {
+			buf.flip();
+			while (buf.hasRemaining())
+				channel.write(buf);
+			buf.clear();
+		}
+		public void close() throws IOException {
+			flush();
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reader of run file
+	 *
+	 * ランファイルからの読み込み（バッファリングして読み込む）
+	 */
+	private static class RunReader<T> implements Iterator<T> {
+		final IRecordCodec<T> codec;
+		final FileChannel channel;
+		final ByteBuffer buf;
+		boolean eof = false;
+
+		public RunReader(final Path path, final IRecordCodec<T> codec, final int ioBufferSize) throws IOException {
+			this.codec = codec;
+			this.channel = FileChannel.open(path, StandardOpenOption.READ);
+			this.buf = ByteBuffer.allocateDirect(Math.max(1, ioBufferSize / codec.recordSize()) * codec.recordSize());
+			buf.flip();
+		}
+		@Override
+		public boolean hasNext() {
+			if (buf.remaining() >= codec.recordSize())
+				return true;
+			if (eof)
+				return false;
+			try {
+				buf.compact();
+				while (buf.hasRemaining()) {
+					if (channel.read(buf) < 0) {
+						eof = true;
+						break;
+					}
+				}
+				buf.flip();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return buf.remaining() >= codec.recordSize();
+		}
+		@Override
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return codec.read(buf);
+		}
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param codec record codec / レコードの変換
+	 * @param comparator comparator of record / 比較器
+	 */
+	public ExternalMergeSort(final IRecordCodec<T> codec, final Comparator<? super T> comparator)
+	{
+		this.codec = codec;
+		this.comparator = comparator;
+	}
+
+	/**
+	 * チャンクサイズ（１度にメモリ上でソートするレコード数）を設定する
+	 * @param chunkSize chunk size (records) / チャンクサイズ（レコード数）
+	 * @return this
+	 */
+	public ExternalMergeSort<T> setChunkSize(final int chunkSize)
+	{
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunkSize must be positive : " + chunkSize);
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * マージの多重度を設定する (2 ～ MAX_FAN_IN)
+	 * @param fanIn merge fan-in / マージの多重度
+	 * @return this
+	 */
+	public ExternalMergeSort<T> setFanIn(final int fanIn)
+	{
+		if (fanIn < 2 || fanIn > MAX_FAN_IN)
+			throw new IllegalArgumentException("fanIn must be 2 - " + MAX_FAN_IN + " : " + fanIn);
+		this.fanIn = fanIn;
+		return this;
+	}
+
+	/**
+	 * ランファイルの入出力バッファサイズ（バイト）を設定する（レーンごと・書き出しごとに確保される）
+	 * @param ioBufferSize I/O buffer size (bytes) / 入出力バッファサイズ（バイト）
+	 * @return this
+	 */
+	public ExternalMergeSort<T> setIoBufferSize(final int ioBufferSize)
+	{
+		if (ioBufferSize < 1)
+			throw new IllegalArgumentException("ioBufferSize must be positive : " + ioBufferSize);
+		this.ioBufferSize = ioBufferSize;
+		return this;
+	}
+
+	/**
+	 * 一時ファイルの作成先を設定する（null ならシステムの既定の一時ディレクトリ）
+	 * @param tempDirectory directory of temporary files / 一時ファイルの作成先
+	 * @return this
+	 */
+	public ExternalMergeSort<T> setTempDirectory(final Path tempDirectory)
+	{
+		this.tempDirectory = tempDirectory;
+		return this;
+	}
+
+	public long getReadNanos()
+	{
+		return readNanos;
+	}
+
+	public long getSortNanos()
+	{
+		return sortNanos;
+	}
+
+	public long getSpillNanos()
+	{
+		return spillNanos;
+	}
+
+	public long getMergeNanos()
+	{
+		return mergeNanos;
+	}
+
+	public long getRecordCount()
+	{
+		return recordCount;
+	}
+
+	public int getRunCount()
+	{
+		return runCount;
+	}
+
+	public int getMergePassCount()
+	{
+		return mergePassCount;
+	}
+
+	/**
+	 * 直前のソートの各段階の所要時間と件数（タブ区切り）
+	 * @return report / 所要時間と件数
+	 */
+	public String getReport()
+	{
+		return String.format("records	%d	runs	%d	merge passes	%d	read	%f	sort	%f	spill	%f	merge	%f",
+				recordCount, runCount, mergePassCount, readNanos / 1000000000.0, sortNanos / 1000000000.0, spillNanos / 1000000000.0, mergeNanos / 1000000000.0);
+	}
+
+	private Path createTempFile() throws IOException
+	{
+		if (tempDirectory != null)
+			return Files.createTempFile(tempDirectory, "mmsort", ".run");
+		else
+			return Files.createTempFile("mmsort", ".run");
+	}
+
+	/**
+	 * Merge of run files
+	 *
+	 * ランファイルのマージ
+	 * 比較のため、レーンの先頭レコードは先頭が変わるたびにオブジェクトに変換しておく。（比較ごとに変換しない）
+	 * 出力先は、ランファイル（レコードのまま書き込む）または Consumer（オブジェクトに変換して渡す）。
+	 */
+	private final class RunMerge extends RecordLaneMerge {
+		final T[] heads;
+		final ByteBuffer laneView;
+		FileChannel outChannel;
+		Consumer<? super T> outConsumer;
+
+		@SuppressWarnings("unchecked")
+		public RunMerge(final int bufRecords) {
+			super(codec.recordSize(), fanIn, new byte[fanIn * bufRecords * codec.recordSize()], new byte[bufRecords * codec.recordSize()]);
+			this.heads = (T[])new Object[fanIn];
+			this.laneView = ByteBuffer.wrap(laneBuf);
+		}
+
+		@Override
+		protected void headChanged(final int lane) {
+			laneView.clear();
+			laneView.position(headOffset(lane));
+			heads[lane] = codec.read(laneView);
+		}
+
+		@Override
+		protected int compareHeads(final int lane1, final int lane2) {
+			return comparator.compare(heads[lane1], heads[lane2]);
+		}
+
+		@Override
+		protected void output(final byte[] buf, final int offset, final int count) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.wrap(buf, offset, count * recordSize);
+			if (outChannel != null) {
+				while (buffer.hasRemaining())
+					outChannel.write(buffer);
+			} else {
+				for (int idx = 0; idx < count; idx++)
+					outConsumer.accept(codec.read(buffer));
+			}
+		}
+	}
+
+	/**
+	 * ランファイル群をマージする（マージしたランファイルは削除する）
+	 * @param merge merger / マージ処理
+	 * @param runs run files / ランファイル
+	 * @param outChannel destination run file (null : outConsumer) / 出力先のランファイル（null なら outConsumer に出力）
+	 * @param outConsumer destination / 出力先
+	 * @throws IOException
+	 */
+	private void mergeRuns(final RunMerge merge, final List<Path> runs, final FileChannel outChannel, final Consumer<? super T> outConsumer) throws IOException
+	{
+		final List<FileChannel> channels = new ArrayList<FileChannel>(runs.size());
+		try {
+			for (Path run : runs) {
+				final FileChannel channel = FileChannel.open(run, StandardOpenOption.READ);
+				channels.add(channel);
+				merge.addLane(channel, 0, channel.size() / codec.recordSize());
+			}
+			merge.outChannel = outChannel;
+			merge.outConsumer = outConsumer;
+			merge.merge();
+		} finally {
+			for (FileChannel channel : channels)
+				channel.close();
+			for (Path run : runs)
+				Files.deleteIfExists(run);
+		}
+	}
+
+	/**
+	 * Sort record stream
+	 *
+	 * レコード列をソートして出力する
+	 * @param input records / ソート対象のレコード列
+	 * @param output destination / ソート結果の出力先
+	 * @throws IOException
+	 */
+	public void sort(final Iterator<? extends T> input, final Consumer<? super T> output) throws IOException
+	{
+		readNanos = 0;
+		sortNanos = 0;
+		spillNanos = 0;
+		mergeNanos = 0;
+		recordCount = 0;
+		runCount = 0;
+		mergePassCount = 0;
+
+		@SuppressWarnings("unchecked")
+		final T[] chunk = (T[])new Object[chunkSize];
+		List<Path> runs = new ArrayList<Path>();
+		final List<Path> nextRuns = new ArrayList<Path>();		// マージ中の段階で作成したランファイル（失敗時の削除用）
+		try {
+			while (true) {
+				// 第１段階 : チャンクの読み込みとソート
+				long startTime = System.nanoTime();
+				int size = 0;
+				while (size < chunkSize && input.hasNext())
+					chunk[size++] = input.next();
+				long endTime = System.nanoTime();
+				readNanos += endTime - startTime;
+				recordCount += size;
+
+				startTime = endTime;
+				MmsSort.sortImpl(chunk, 0, size, comparator);
+				endTime = System.nanoTime();
+				sortNanos += endTime - startTime;
+
+				if (runs.isEmpty() && !input.hasNext()) {
+					// 入力全体が１チャンクに収まったので、一時ファイルを使わずに出力する
+					startTime = System.nanoTime();
+					for (int idx = 0; idx < size; idx++)
+						output.accept(chunk[idx]);
+					mergeNanos += System.nanoTime() - startTime;
+					return;
+				}
+
+				// 第２段階 : ランファイルへの書き出し
+				startTime = System.nanoTime();
+				final Path run = createTempFile();
+				runs.add(run);
+				final RunWriter<T> writer = new RunWriter<T>(run, codec, ioBufferSize);
+				try {
+					for (int idx = 0; idx < size; idx++) {
+						writer.accept(chunk[idx]);
+						chunk[idx] = null;
+					}
+				} finally {
+					writer.close();
+				}
+				spillNanos += System.nanoTime() - startTime;
+				runCount++;
+
+				if (!input.hasNext())
+					break;
+			}
+
+			// 第３段階 : ランのマージ（fanIn 個以下になるまで段階的にマージ）
+			final long startTime = System.nanoTime();
+			final RunMerge merge = new RunMerge(Math.max(1, ioBufferSize / codec.recordSize()));
+			while (runs.size() > fanIn) {
+				nextRuns.clear();
+				for (int idx = 0; idx < runs.size(); idx += fanIn) {
+					final List<Path> group = new ArrayList<Path>(runs.subList(idx, Math.min(idx + fanIn, runs.size())));
+					if (group.size() == 1) {
+						nextRuns.add(group.get(0));
+						continue;
+					}
+					final Path run = createTempFile();
+					nextRuns.add(run);
+					try (final FileChannel channel = FileChannel.open(run, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+						mergeRuns(merge, group, channel, null);
+					}
+				}
+				runs = new ArrayList<Path>(nextRuns);
+				mergePassCount++;
+			}
+			mergeRuns(merge, runs, null, output);
+			mergePassCount++;
+			runs.clear();
+			mergeNanos += System.nanoTime() - startTime;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			for (Path run : runs)
+				Files.deleteIfExists(run);
+			for (Path run : nextRuns)
+				Files.deleteIfExists(run);
+		}
+	}
+
+	/**
+	 * Sort records of file
+	 *
+	 * ファイル上のレコードをソートして、別のファイルに出力する
+	 * @param input input file / 入力ファイル
+	 * @param output output file / 出力ファイル
+	 * @throws IOException
+	 */
+	public void sort(final Path input, final Path output) throws IOException
+	{
+		final RunReader<T> reader = new RunReader<T>(input, codec, ioBufferSize);
+		try {
+			final RunWriter<T> writer = new RunWriter<T>(output, codec, ioBufferSize);
+			try {
+				sort(reader, writer);
+			} finally {
+				writer.close();
+			}
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * ExternalMergeSort Test Program
+ * Command line Arguments : <RecordCount> <ChunkSize> <FanIn> <Duplicate> <Times>
+ *   Example : $ java mmsort.ExternalSortTest 1000000 10000 4 10 3
+ *   RecordCount: number of records / レコード数
+ *   ChunkSize:   chunk size (records) / チャンクサイズ（レコード数）
+ *   FanIn:       merge fan-in (2 - 8) / マージの多重度（2 ～ 8）
+ *   Duplicate:   average number of records with the same key / 同じキーを持つレコード数の平均
+ *   Times:       number of repetitions / 繰り返し数
+ *
+ * ランダムなレコード列を ExternalMergeSort でソートし、出力されたレコード列を確認して、各段階の所要時間を表示する。
+ * レコードはキー（int）、ソート前の順序（long、安定ソートの確認用）、順序から決まる値（int、レコードが壊れていないかの確認用）の 16 バイト。
+ * チャンクサイズに対してレコード数が fanIn * チャンクサイズ より多いと、ランの段階的なマージ（複数回のマージ）が行われる。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.Consumer;
+
+public class ExternalSortTest {
+	/**
+	 * Test record
+	 */
+	public static class Record {
+		final int key;
+		final long order;
+		final int check;
+
+		public Record(final int key, final long order, final int check) {
+			this.key = key;
+			this.order = order;
+			this.check = check;
+		}
+	}
+
+	/**
+	 * ソート前の順序から決まる値
+	 * @param order ソート前の順序
+	 * @return 値
+	 */
+	private static int check(final long order)
+	{
+		return (int)(order * 0x9E3779B1L);
+	}
+
+	/**
+	 * Record codec / レコードの変換
+	 */
+	public static final IRecordCodec<Record> CODEC = new IRecordCodec<Record>() {
+		@Override
+		public int recordSize() {
+			return 16;
+		}
+		@Override
+		public void write(final Record value, final ByteBuffer buf) {
+			buf.putInt(value.key);
+			buf.putLong(value.order);
+			buf.putInt(value.check);
+		}
+		@Override
+		public Record read(final ByteBuffer buf) {
+			final int key = buf.getInt();
+			final long order = buf.getLong();
+			final int check = buf.getInt();
+			return new Record(key, order, check);
+		}
+	};
+
+	/**
+	 * ランダムなレコード列
+	 * @param recordCount レコード数
+	 * @param duplicate 同じキーを持つレコード数の平均
+	 * @param randSeed 乱数の種
+	 * @return レコード列
+	 */
+	public static Iterator<Record> randomRecords(final long recordCount, final int duplicate, final long randSeed)
+	{
+		final Random rand = new Random(randSeed);
+		final int keyRange = (int)Math.max(1, Math.min(Integer.MAX_VALUE, recordCount / duplicate));
+		return new Iterator<Record>() {
+			private long order = 0;
+			@Override
+			public boolean hasNext() {
+				return order < recordCount;
+			}
+			@Override
+			public Record next() {
+				if (order >= recordCount)
+					throw new NoSuchElementException();
+				final Record record = new Record(rand.nextInt(keyRange), order, check(order));
+				order++;
+				return record;
+			}
+		};
+	}
+
+	/**
+	 * Validator of sorted records
+	 *
+	 * ソート結果のレコード列を確認する
+	 * キーの昇順であること、キーが等しいレコードはソート前の順序であること（安定）、
+	 * 全てのレコードが１回ずつ現れて内容が壊れていないことを確認する。
+	 */
+	public static class Validator implements Consumer<Record> {
+		final long recordCount;
+		final BitSet seen;
+		long count = 0;
+		int prevKey = Integer.MIN_VALUE;
+		long prevOrder = -1;
+
+		public Validator(final long recordCount) {
+			this.recordCount = recordCount;
+			this.seen = new BitSet((int)recordCount);
+		}
+
+		@Override
+		public void accept(final Record record) {
+			if (record.order < 0 || record.order >= recordCount || seen.get((int)record.order))
+				throw new RuntimeException("sort validation error. (not a permutation of input) : " + count);
+			seen.set((int)record.order);
+			if (record.check != check(record.order))
+				throw new RuntimeException("sort validation error. (broken record) : " + count);
+			if (record.key < prevKey || (record.key == prevKey && record.order < prevOrder))
+				throw new RuntimeException("sort validation error. (stable mode) : " + count);
+			prevKey = record.key;
+			prevOrder = record.order;
+			count++;
+		}
+
+		public void finish() {
+			if (count != recordCount)
+				throw new RuntimeException("sort validation error. (record count) : " + count);
+		}
+	}
+
+	/**
+	 * ExternalMergeSort Test Program
+	 * Command line Arguments : <RecordCount> <ChunkSize> <FanIn> <Duplicate> <Times>
+	 *
+	 * @param args arguments
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		final long recordCount = Long.parseLong(args[0]);
+		final int chunkSize = (args.length >= 2) ? Integer.parseInt(args[1]) : ExternalMergeSort.DEFAULT_CHUNK_SIZE;
+		final int fanIn = (args.length >= 3) ? Integer.parseInt(args[2]) : ExternalMergeSort.DEFAULT_FAN_IN;
+		final int duplicate = (args.length >= 4) ? Integer.parseInt(args[3]) : 10;
+		final int times = (args.length >= 5) ? Integer.parseInt(args[4]) : 1;
+		if (recordCount > Integer.MAX_VALUE)
+			throw new Exception("arguments error ");
+
+		final ExternalMergeSort<Record> sorter = new ExternalMergeSort<Record>(CODEC, (r1, r2) -> Integer.compare(r1.key, r2.key))
+				.setChunkSize(chunkSize)
+				.setFanIn(fanIn);
+		for (int idx = 1; idx <= times; idx++) {
+			final Validator validator = new Validator(recordCount);
+
+			final long startTime = System.nanoTime();
+			sorter.sort(randomRecords(recordCount, duplicate, idx), validator);
+			final long endTime = System.nanoTime();
+
+			validator.finish();
+			System.out.printf("Java	%d	ExternalMergeSort	Random(%d)	chunk size %d	fan-in %d	%d	%f	stable	%s\n", idx, duplicate, chunkSize, fanIn, recordCount, (endTime - startTime) / 1000000000.0, sorter.getReport());
+		}
+	}
+}
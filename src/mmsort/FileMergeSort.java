@@ -0,0 +1,385 @@
+/*
+ * FileMergeSort
+ * External (out-of-core) merge sort of fixed-width records in a file
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File merge sort
+ *
+ * ファイル上の固定長バイナリレコードを、ファイル上でソートする。
+ * 第１段階 : ブロック（workSize レコード）ごとにヒープ上の作業領域でソートし、ファイルに書き戻す（ラン）。
+ * 第２段階 : ランを最大 MAX_FAN_IN 個ずつ RecordLaneMerge で多方向マージすることを、ランが１つになるまで繰り返す。
+ *            マージはソート対象ファイルと同じサイズの一時ファイルとの間で交互に行う。
+ *            （マージ回数が奇数ならランを一時ファイル側に作るので、結果は常に元のファイルに残る）
+ * ヒープ上の作業領域はブロックサイズ分に限られるので、ヒープより大きなファイルもソートできる。
+ * ただし、レコード数が workSize より多い場合は、ソート対象と同じサイズの一時ファイル（ディスクの空き容量）が必要になる。
+ * ファイル上の入出力量は O(n log(n / workSize)) （MatSort のように後方のソート済み領域へ１ブロックずつマージすると、
+ * ファイル上では O(n^2 / workSize) のレコード移動が必要になるため、この方式としている）
+ * ファイルはメモリマップせず、ヒープ上のバッファとの間で FileChannel で読み書きする。
+ * （マップしたままの区画があると、Windows ではガベージコレクションまでファイルの削除・切り詰めができないため）
+ * 安定ソート
+ *
+ * @author matsubara
+ *
+ */
+public class FileMergeSort {
+	/**
+	 * 作業領域サイズの既定値（バイト）
+	 */
+	public static final int DEFAULT_WORK_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * マージの多重度（一度にマージするランの最大数）
+	 */
+	public static final int MAX_FAN_IN = RecordLaneMerge.MAX_LANE_COUNT;
+
+	/**
+	 * File of fixed-width records
+	 *
+	 * 固定長レコードのファイル
+	 */
+	private static class RecordFile {
+		final FileChannel channel;
+		final int recordSize;
+		final long recordCount;
+
+		/**
+		 * @param channel file channel / ファイルチャネル
+		 * @param recordSize record size (bytes) / レコードサイズ（バイト）
+		 * @param recordCount number of records / レコード数
+		 */
+		public RecordFile(final FileChannel channel, final int recordSize, final long recordCount) {
+			this.channel = channel;
+			this.recordSize = recordSize;
+			this.recordCount = recordCount;
+		}
+
+		/**
+		 * レコードの読み込み
+		 * @param idx index of first record / 読み込むレコードの開始位置
+		 * @param buf destination / 読み込み先
+		 * @param bufIdx index of record in buf / 読み込み先のレコード位置
+		 * @param count number of records / レコード数
+		 * @throws IOException
+		 */
+		public void read(final long idx, final byte[] buf, final int bufIdx, final int count) throws IOException {
+			RecordLaneMerge.read(channel, idx * recordSize, buf, bufIdx * recordSize, count * recordSize);
+		}
+
+		/**
+		 * レコードの書き込み
+		 * @param idx index of first record / 書き込むレコードの開始位置
+		 * @param buf source / 書き込み元
+		 * @param bufIdx index of record in buf / 書き込み元のレコード位置
+		 * @param count number of records / レコード数
+		 * @throws IOException
+		 */
+		public void write(final long idx, final byte[] buf, final int bufIdx, final int count) throws IOException {
+			RecordLaneMerge.write(channel, idx * recordSize, buf, bufIdx * recordSize, count * recordSize);
+		}
+
+		/**
+		 * 別のファイルへのレコードのコピー
+		 * @param src index of source / コピー元の開始位置
+		 * @param dest destination file / コピー先のファイル
+		 * @param destIdx index of destination / コピー先の開始位置
+		 * @param count number of records / レコード数
+		 * @param buf transfer buffer / 転送用バッファ
+		 * @throws IOException
+		 */
+		public void copyTo(long src, final RecordFile dest, long destIdx, long count, final byte[] buf) throws IOException {
+			final int bufRecords = buf.length / recordSize;
+			while (count > 0) {
+				final int n = (int)Math.min(count, bufRecords);
+				read(src, buf, 0, n);
+				dest.write(destIdx, buf, 0, n);
+				src += n;
+				destIdx += n;
+				count -= n;
+			}
+		}
+	}
+
+	/**
+	 * Merge of runs into file
+	 *
+	 * ランを IRecordComparator で比較してマージし、マージ先のファイルの指定位置から書き込む
+	 */
+	private static class FileLaneMerge extends RecordLaneMerge {
+		final IRecordComparator comparator;
+		RecordFile dest;
+		long destIdx;			// 次に書き込むマージ先の位置（レコード）
+
+		public FileLaneMerge(final int recordSize, final int maxLaneCount, final byte[] laneBuf, final byte[] outBuf, final IRecordComparator comparator) {
+			super(recordSize, maxLaneCount, laneBuf, outBuf);
+			this.comparator = comparator;
+		}
+
+		@Override
+		protected int compareHeads(final int lane1, final int lane2) {
+			return comparator.compare(laneBuf, headOffset(lane1), laneBuf, headOffset(lane2));
+		}
+
+		@Override
+		protected void output(final byte[] buf, final int offset, final int count) throws IOException {
+			RecordLaneMerge.write(dest.channel, destIdx * recordSize, buf, offset, count * recordSize);
+			destIdx += count;
+		}
+	}
+
+	/**
+	 * Comparator of unsigned byte sequence
+	 *
+	 * レコードの一部（キー）を符号なしバイト列として辞書順に比較する比較器
+	 * @param keyOffset offset of key in record / レコード内のキーの開始位置（バイト）
+	 * @param keyLength length of key / キーの長さ（バイト）
+	 * @return record comparator / 比較器
+	 */
+	public static IRecordComparator unsignedBytesComparator(final int keyOffset, final int keyLength)
+	{
+		return new IRecordComparator() {
+			@Override
+			public int compare(final byte[] buf1, final int offset1, final byte[] buf2, final int offset2) {
+				final int from1 = offset1 + keyOffset;
+				final int from2 = offset2 + keyOffset;
+				for (int i = 0; i < keyLength; i++) {
+					final int b1 = buf1[from1 + i] & 0xff;
+					final int b2 = buf2[from2 + i] & 0xff;
+					if (b1 != b2)
+						return b1 - b2;
+				}
+				return 0;
+			}
+		};
+	}
+
+	/**
+	 * Stable merge sort of record indexes
+	 *
+	 * レコードの添え字の配列（順列）の安定マージソート
+	 * @param perm permutation / 順列
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workPerm work area / 作業領域
+	 * @param buf records / レコードを格納したバッファ
+	 * @param recordSize record size / レコードサイズ
+	 * @param comparator comparator of record / 比較器
+	 */
+	private static void sortPerm(final int[] perm, final int from, final int to, final int[] workPerm, final byte[] buf, final int recordSize, final IRecordComparator comparator)
+	{
+		final int range = to - from;
+		if (range <= 10) {
+			for (int idx = from + 1; idx < to; idx++) {
+				final int value = perm[idx];
+				int insIdx = idx;
+				while (insIdx > from && comparator.compare(buf, value * recordSize, buf, perm[insIdx - 1] * recordSize) < 0) {
+					perm[insIdx] = perm[insIdx - 1];
+					insIdx--;
+				}
+				perm[insIdx] = value;
+			}
+			return;
+		}
+		final int mid = from + (range >> 1);
+		sortPerm(perm, from, mid, workPerm, buf, recordSize, comparator);
+		sortPerm(perm, mid, to, workPerm, buf, recordSize, comparator);
+		if (comparator.compare(buf, perm[mid - 1] * recordSize, buf, perm[mid] * recordSize) <= 0)
+			return;
+
+		System.arraycopy(perm, from, workPerm, from, mid - from);
+		int idx = from;
+		int idx1 = from;
+		int idx2 = mid;
+		while (idx1 < mid && idx2 < to) {
+			if (comparator.compare(buf, workPerm[idx1] * recordSize, buf, perm[idx2] * recordSize) <= 0)
+				perm[idx++] = workPerm[idx1++];
+			else
+				perm[idx++] = perm[idx2++];
+		}
+		System.arraycopy(workPerm, idx1, perm, idx, mid - idx1);
+	}
+
+	/**
+	 * ヒープ上のブロックのソート
+	 * @param src records (unsorted) / ソート前のレコード
+	 * @param dest records (sorted) / ソート後のレコードの格納先
+	 * @param count number of records / レコード数
+	 * @param perm work area / 作業領域
+	 * @param workPerm work area / 作業領域
+	 * @param recordSize record size / レコードサイズ
+	 * @param comparator comparator of record / 比較器
+	 */
+	private static void sortBlock(final byte[] src, final byte[] dest, final int count, final int[] perm, final int[] workPerm, final int recordSize, final IRecordComparator comparator)
+	{
+		for (int i = 0; i < count; i++)
+			perm[i] = i;
+		sortPerm(perm, 0, count, workPerm, src, recordSize, comparator);
+		for (int i = 0; i < count; i++)
+			System.arraycopy(src, perm[i] * recordSize, dest, i * recordSize, recordSize);
+	}
+
+	/**
+	 * Sort body / ソート本体
+	 *
+	 * ブロックごとにソートしてランを作り、ランを多方向マージする。
+	 * ブロックのソートとマージのバッファは、ヒープ上の作業領域（workSize レコード * 2）で行う。
+	 *
+	 * @param file sort target / ソート対象
+	 * @param tempFile temporary file of the same size (used only if there are two or more blocks) / ソート対象と同じサイズの一時ファイル（ブロックが２つ以上の場合のみ使用）
+	 * @param comparator comparator of record / 比較器
+	 * @param workSize work area size (records) / 作業領域サイズ（レコード数）
+	 * @throws IOException
+	 */
+	private static void sortImpl(final RecordFile file, final RecordFile tempFile, final IRecordComparator comparator, int workSize) throws IOException
+	{
+		final int recordSize = file.recordSize;
+		final long to = file.recordCount;
+		if (to <= 1)
+			return;
+		if (workSize > to)
+			workSize = (int)to;
+		else if (workSize < 2)
+			workSize = 2;
+
+		// 作業領域（ヒープ上のメモリ使用量は、おおよそ workSize * (recordSize * 2 + 8) バイト）
+		final byte[] blockBuf = new byte[workSize * recordSize];		// ソート前のブロック、マージ時は各レーンのバッファ
+		final byte[] sortedBuf = new byte[workSize * recordSize];		// ソート済みのブロック、マージ時は出力バッファ
+		final int[] perm = new int[workSize];
+		final int[] workPerm = new int[workSize];
+
+		// マージの多重度とマージ回数
+		final int fanIn = Math.min(MAX_FAN_IN, workSize);
+		int passCount = 0;
+		for (long runCount = (to + workSize - 1) / workSize; runCount > 1; runCount = (runCount + fanIn - 1) / fanIn)
+			passCount++;
+
+		// ブロックごとにソートしてランを作る（マージ回数が奇数なら一時ファイル側に作り、最後のマージで元のファイルに戻す）
+		RecordFile src = (passCount % 2 == 0) ? file : tempFile;
+		for (long fromIdx = 0; fromIdx < to; fromIdx += workSize) {
+			final int count = (int)Math.min(workSize, to - fromIdx);
+			file.read(fromIdx, blockBuf, 0, count);
+			sortBlock(blockBuf, sortedBuf, count, perm, workPerm, recordSize, comparator);
+			src.write(fromIdx, sortedBuf, 0, count);
+		}
+
+		// ランを fanIn 個ずつマージすることを、ランが１つになるまで繰り返す
+		final FileLaneMerge merge = (passCount > 0) ? new FileLaneMerge(recordSize, fanIn, blockBuf, sortedBuf, comparator) : null;
+		long runLength = workSize;
+		while (runLength < to) {
+			final RecordFile dest = (src == file) ? tempFile : file;
+			final long groupLength = runLength * fanIn;
+			for (long groupFrom = 0; groupFrom < to; groupFrom += groupLength) {
+				final long groupTo = Math.min(groupFrom + groupLength, to);
+				if (groupTo - groupFrom <= runLength) {
+					// ランが１つだけのグループはそのままコピー
+					src.copyTo(groupFrom, dest, groupFrom, groupTo - groupFrom, sortedBuf);
+					continue;
+				}
+				for (long runFrom = groupFrom; runFrom < groupTo; runFrom += runLength)
+					merge.addLane(src.channel, runFrom, Math.min(runFrom + runLength, groupTo));
+				merge.dest = dest;
+				merge.destIdx = groupFrom;
+				merge.merge();
+			}
+			src = dest;
+			runLength = groupLength;
+		}
+	}
+
+	/**
+	 * Sort records of file channel
+	 *
+	 * ファイルチャネル上の固定長レコードをソートする
+	 * レコード数が workSize より多い場合は、tempDirectory にソート対象と同じサイズの一時ファイルを作成する。（終了時に削除する）
+	 * @param channel file channel (readable and writable) / ソート対象のファイルチャネル（読み書き可能であること）
+	 * @param recordSize record size (bytes) / レコードサイズ（バイト）
+	 * @param comparator comparator of record / 比較器
+	 * @param workSize work area size (records) / 作業領域サイズ（レコード数）
+	 * @param tempDirectory directory of temporary file (null : default) / 一時ファイルのディレクトリ（null ならシステムの既定）
+	 * @throws IOException
+	 */
+	public static void sortImpl(final FileChannel channel, final int recordSize, final IRecordComparator comparator, final int workSize, final Path tempDirectory) throws IOException
+	{
+		final long size = channel.size();
+		if (size % recordSize != 0)
+			throw new IllegalArgumentException("file size (" + size + ") is not a multiple of record size (" + recordSize + ")");
+		final RecordFile file = new RecordFile(channel, recordSize, size / recordSize);
+		if (file.recordCount <= Math.max(workSize, 2)) {
+			sortImpl(file, null, comparator, workSize);
+			channel.force(false);
+			return;
+		}
+
+		final Path tempPath = (tempDirectory != null) ? Files.createTempFile(tempDirectory, "filemergesort", ".tmp") : Files.createTempFile("filemergesort", ".tmp");
+		try {
+			try (final FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				sortImpl(file, new RecordFile(tempChannel, recordSize, file.recordCount), comparator, workSize);
+			}
+			channel.force(false);
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	/**
+	 * Sort records of file channel
+	 *
+	 * ファイルチャネル上の固定長レコードをソートする（一時ファイルはシステムの既定のディレクトリに作成する）
+	 * @param channel file channel (readable and writable) / ソート対象のファイルチャネル（読み書き可能であること）
+	 * @param recordSize record size (bytes) / レコードサイズ（バイト）
+	 * @param comparator comparator of record / 比較器
+	 * @param workSize work area size (records) / 作業領域サイズ（レコード数）
+	 * @throws IOException
+	 */
+	public static void sortImpl(final FileChannel channel, final int recordSize, final IRecordComparator comparator, final int workSize) throws IOException
+	{
+		sortImpl(channel, recordSize, comparator, workSize, null);
+	}
+
+	/**
+	 * Sort records of file
+	 *
+	 * ファイル上の固定長レコードをソートする
+	 * レコード数が workSize より多い場合は、ソート対象と同じディレクトリにソート対象と同じサイズの一時ファイルを作成する。
+	 * （そのファイルシステムにソート対象と同じ大きさの空き容量が必要。一時ファイルは終了時に削除する）
+	 * @param path sort target / ソート対象のファイル
+	 * @param recordSize record size (bytes) / レコードサイズ（バイト）
+	 * @param comparator comparator of record / 比較器
+	 * @param workSize work area size (records) / 作業領域サイズ（レコード数）
+	 * @throws IOException
+	 */
+	public static void sortImpl(final Path path, final int recordSize, final IRecordComparator comparator, final int workSize) throws IOException
+	{
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			sortImpl(channel, recordSize, comparator, workSize, path.toAbsolutePath().getParent());
+		}
+	}
+
+	/**
+	 * Sort records of file (default work area size)
+	 *
+	 * ファイル上の固定長レコードをソートする（作業領域サイズは既定値）
+	 * レコード数が作業領域に収まらない場合は、ソート対象と同じディレクトリにソート対象と同じサイズの一時ファイルを作成する。
+	 * @param path sort target / ソート対象のファイル
+	 * @param recordSize record size (bytes) / レコードサイズ（バイト）
+	 * @param comparator comparator of record / 比較器
+	 * @throws IOException
+	 */
+	public static void sortImpl(final Path path, final int recordSize, final IRecordComparator comparator) throws IOException
+	{
+		sortImpl(path, recordSize, comparator, DEFAULT_WORK_BYTES / (recordSize * 2));
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * FileMergeSort Test Program
+ * Command line Arguments : <RecordCount> <RecordSize> <WorkSize> <Duplicate> <Times>
+ *   Example : $ java mmsort.FileSortTest 1000000 32 10000 10 3
+ *   RecordCount: number of records / レコード数
+ *   RecordSize:  record size (bytes, 12 or more) / レコードサイズ（バイト。12 以上）
+ *   WorkSize:    work area size (records) / 作業領域サイズ（レコード数）
+ *   Duplicate:   average number of records with the same key / 同じキーを持つレコード数の平均
+ *   Times:       number of repetitions / 繰り返し数
+ *
+ * ランダムなレコードのファイルを作成して FileMergeSort でソートし、ファイルを読み戻して結果を確認する。
+ * レコードの先頭４バイトがキー（ビッグエンディアンの非負整数なので、符号なしバイト列の比較が数値の比較と一致する）、
+ * 続く８バイトがソート前の順序（安定ソートの確認用）、残りは順序から決まる値（レコードが壊れていないかの確認用）
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Random;
+
+public class FileSortTest {
+	// キーの位置と長さ
+	private static final int KEY_OFFSET = 0;
+	private static final int KEY_LENGTH = 4;
+	// ソート前の順序の位置
+	private static final int ORDER_OFFSET = 4;
+
+	/**
+	 * ソート前の順序から決まる詰め物の値
+	 * @param order ソート前の順序
+	 * @param idx レコード内の位置
+	 * @return 値
+	 */
+	private static byte filler(final long order, final int idx)
+	{
+		return (byte)(order * 31 + idx);
+	}
+
+	/**
+	 * ランダムなレコードのファイルを作成する
+	 * @param path ファイル
+	 * @param recordCount レコード数
+	 * @param recordSize レコードサイズ
+	 * @param duplicate 同じキーを持つレコード数の平均
+	 * @param randSeed 乱数の種
+	 * @throws IOException
+	 */
+	public static void createFile(final Path path, final long recordCount, final int recordSize, final int duplicate, final long randSeed) throws IOException
+	{
+		final Random rand = new Random(randSeed);
+		final int keyRange = (int)Math.max(1, Math.min(Integer.MAX_VALUE, recordCount / duplicate));
+		try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1024 * 1024))) {
+			for (long order = 0; order < recordCount; order++) {
+				out.writeInt(rand.nextInt(keyRange));
+				out.writeLong(order);
+				for (int idx = ORDER_OFFSET + 8; idx < recordSize; idx++)
+					out.writeByte(filler(order, idx));
+			}
+		}
+	}
+
+	/**
+	 * ソート結果のファイルを確認する
+	 * キーの昇順であること、キーが等しいレコードはソート前の順序であること（安定）、
+	 * 全てのレコードが１回ずつ現れて内容が壊れていないことを確認する。
+	 * @param path ファイル
+	 * @param recordCount レコード数
+	 * @param recordSize レコードサイズ
+	 * @throws IOException
+	 */
+	public static void validateFile(final Path path, final long recordCount, final int recordSize) throws IOException
+	{
+		if (Files.size(path) != recordCount * recordSize)
+			throw new RuntimeException("file validation error. (size) : " + Files.size(path));
+		final BitSet seen = new BitSet((int)recordCount);
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1024 * 1024))) {
+			int prevKey = -1;
+			long prevOrder = -1;
+			for (long idx = 0; idx < recordCount; idx++) {
+				final int key = in.readInt();
+				final long order = in.readLong();
+				for (int pos = ORDER_OFFSET + 8; pos < recordSize; pos++) {
+					if (in.readByte() != filler(order, pos))
+						throw new RuntimeException("file validation error. (broken record) : " + idx);
+				}
+				if (order < 0 || order >= recordCount || seen.get((int)order))
+					throw new RuntimeException("file validation error. (not a permutation of input) : " + idx);
+				seen.set((int)order);
+				if (key < prevKey || (key == prevKey && order < prevOrder))
+					throw new RuntimeException("file validation error. (stable mode) : " + idx);
+				prevKey = key;
+				prevOrder = order;
+			}
+		}
+	}
+
+	/**
+	 * FileMergeSort Test Program
+	 * Command line Arguments : <RecordCount> <RecordSize> <WorkSize> <Duplicate> <Times>
+	 *
+	 * @param args arguments
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		final long recordCount = Long.parseLong(args[0]);
+		final int recordSize = (args.length >= 2) ? Integer.parseInt(args[1]) : 32;
+		final int workSize = (args.length >= 3) ? Integer.parseInt(args[2]) : FileMergeSort.DEFAULT_WORK_BYTES / (recordSize * 2);
+		final int duplicate = (args.length >= 4) ? Integer.parseInt(args[3]) : 10;
+		final int times = (args.length >= 5) ? Integer.parseInt(args[4]) : 1;
+		if (recordSize < ORDER_OFFSET + 8 || recordCount > Integer.MAX_VALUE)
+			throw new Exception("arguments error ");
+
+		final IRecordComparator comparator = FileMergeSort.unsignedBytesComparator(KEY_OFFSET, KEY_LENGTH);
+		final Path path = Files.createTempFile("filesorttest", ".dat");
+		try {
+			for (int idx = 1; idx <= times; idx++) {
+				createFile(path, recordCount, recordSize, duplicate, idx);
+
+				final long startTime = System.nanoTime();
+				FileMergeSort.sortImpl(path, recordSize, comparator, workSize);
+				final long endTime = System.nanoTime();
+
+				System.out.printf("Java	%d	FileMergeSort	Random(%d)	%d bytes record	%d	work size %d	%f	stable\n", idx, duplicate, recordSize, recordCount, workSize, (endTime - startTime) / 1000000000.0);
+				validateFile(path, recordCount, recordSize);
+			}
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+}
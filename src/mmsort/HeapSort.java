@@ -87,9 +87,133 @@ public class HeapSort implements ISortAlgorithm {
 			array[from + idx] = array[from];
 			array[from] = temp;
 
-			downHeap(array, from, idx, comparator);
+			downHeap(array, from, from + idx, comparator);
 		}
 	}
+
+	/**
+	 * Heap sort (int array)
+	 *
+	 * ヒープソート（int配列版）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static void sortImpl(final int[] array, final int from, final int to)
+	{
+		final int range = to - from;
+
+		//	array[from] が最大の値となるヒープツリーを形成
+		for (int idx = (range >> 1) - 1; idx >= 0; idx--)
+			downHeap(array, from, idx, range);
+
+		for (int idx = range - 1; idx > 0; idx--) {
+			final int temp = array[from + idx];
+			array[from + idx] = array[from];
+			array[from] = temp;
+
+			downHeap(array, from, 0, idx);
+		}
+	}
+
+	private static void downHeap(final int[] array, final int from, int idx, final int range) {
+		final int value = array[from + idx];
+		for (;;) {
+			int child = (idx << 1) + 1;
+			if (child >= range)
+				break;
+			if (child + 1 < range && array[from + child] < array[from + child + 1])
+				child++;
+			if (array[from + child] <= value)
+				break;
+			array[from + idx] = array[from + child];
+			idx = child;
+		}
+		array[from + idx] = value;
+	}
+
+	/**
+	 * Heap sort (int array with comparator)
+	 *
+	 * ヒープソート（int配列・比較器版。argsort 用）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static void sortImpl(final int[] array, final int from, final int to, final IIntComparator comparator)
+	{
+		final int range = to - from;
+
+		//	array[from] が最大の値となるヒープツリーを形成
+		for (int idx = (range >> 1) - 1; idx >= 0; idx--)
+			downHeap(array, from, idx, range, comparator);
+
+		for (int idx = range - 1; idx > 0; idx--) {
+			final int temp = array[from + idx];
+			array[from + idx] = array[from];
+			array[from] = temp;
+
+			downHeap(array, from, 0, idx, comparator);
+		}
+	}
+
+	private static void downHeap(final int[] array, final int from, int idx, final int range, final IIntComparator comparator) {
+		final int value = array[from + idx];
+		for (;;) {
+			int child = (idx << 1) + 1;
+			if (child >= range)
+				break;
+			if (child + 1 < range && comparator.compare(array[from + child], array[from + child + 1]) < 0)
+				child++;
+			if (comparator.compare(array[from + child], value) <= 0)
+				break;
+			array[from + idx] = array[from + child];
+			idx = child;
+		}
+		array[from + idx] = value;
+	}
+
+	/**
+	 * Heap sort (long array)
+	 *
+	 * ヒープソート（long配列版）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static void sortImpl(final long[] array, final int from, final int to)
+	{
+		final int range = to - from;
+
+		//	array[from] が最大の値となるヒープツリーを形成
+		for (int idx = (range >> 1) - 1; idx >= 0; idx--)
+			downHeap(array, from, idx, range);
+
+		for (int idx = range - 1; idx > 0; idx--) {
+			final long temp = array[from + idx];
+			array[from + idx] = array[from];
+			array[from] = temp;
+
+			downHeap(array, from, 0, idx);
+		}
+	}
+
+	private static void downHeap(final long[] array, final int from, int idx, final int range) {
+		final long value = array[from + idx];
+		for (;;) {
+			int child = (idx << 1) + 1;
+			if (child >= range)
+				break;
+			if (child + 1 < range && array[from + child] < array[from + child + 1])
+				child++;
+			if (array[from + child] <= value)
+				break;
+			array[from + idx] = array[from + child];
+			idx = child;
+		}
+		array[from + idx] = value;
+	}
 	@Override
 	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
 	{
@@ -0,0 +1,32 @@
+/*
+ * IIntComparator interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+/**
+ * Comparator of int values such as row ids (for argsort)
+ *
+ * 行番号などの int 値の比較器(argsort 用)
+ * 列指向のデータのように、オブジェクトではなく行番号で要素を参照する場合に使用する。
+ *
+ * @author matsubara
+ *
+ */
+public interface IIntComparator {
+	/**
+	 * Compare method
+	 *
+	 * 比較メソッド
+	 *
+	 * @param value1 value 1 (row id) / 値１（行番号）
+	 * @param value2 value 2 (row id) / 値２（行番号）
+	 * @return negative, zero, or positive / 負・ゼロ・正の値
+	 */
+	public int compare(final int value1, final int value2);
+}
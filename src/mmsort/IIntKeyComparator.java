@@ -0,0 +1,35 @@
+/*
+ * IIntKeyComparator interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+
+/**
+ * Comparator with int sort key (for mmsort.RadixSort class)
+ *
+ * int のソートキーを持つ比較器(mmsort.RadixSortクラス用)
+ * compare の順序は key の値（符号付き int）の昇順と一致しなければならない。
+ * （compare(o1, o2) の符号は Integer.compare(key(o1), key(o2)) の符号と同じであること）
+ * RadixSort.sort は比較器がこのインターフェースを実装している場合に限り、compare ではなく key で基数ソートを行う。
+ *
+ * @author matsubara
+ *
+ */
+public interface IIntKeyComparator<T> extends Comparator<T> {
+	/**
+	 * Sort key
+	 *
+	 * ソートキー
+	 *
+	 * @param value array element / 配列の要素
+	 * @return sort key (consistent with compare) / ソートキー（compare の順序と一致すること）
+	 */
+	public int key(final T value);
+}
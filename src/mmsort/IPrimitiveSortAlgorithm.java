@@ -0,0 +1,42 @@
+/*
+ * IPrimitiveSortAlgorithm interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+/**
+ * Primitive array sort algorithm interface (for mmsort.SortTest class)
+ *
+ * プリミティブ型配列のソートアルゴリズムを実装するインターフェース(mmsort.SortTestクラス用)
+ *
+ * @author matsubara
+ *
+ */
+public interface IPrimitiveSortAlgorithm {
+	/**
+	 * Sort method (int array)
+	 *
+	 * ソートメソッド（int配列）
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public void sort(final int[] array, final int from, final int to);
+
+	/**
+	 * Sort method (long array)
+	 *
+	 * ソートメソッド（long配列）
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public void sort(final long[] array, final int from, final int to);
+}
@@ -0,0 +1,51 @@
+/*
+ * IRecordCodec interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width record codec (for mmsort.ExternalMergeSort class)
+ *
+ * 固定長レコードとオブジェクトの相互変換を行うインターフェース(mmsort.ExternalMergeSortクラス用)
+ *
+ * @author matsubara
+ *
+ */
+public interface IRecordCodec<T> {
+	/**
+	 * Record size
+	 *
+	 * レコードサイズ（バイト）
+	 *
+	 * @return record size / レコードサイズ
+	 */
+	public int recordSize();
+
+	/**
+	 * Write object to buffer
+	 *
+	 * オブジェクトをバッファに書き込む（recordSize() バイトちょうどを書き込むこと）
+	 *
+	 * @param value object / オブジェクト
+	 * @param buf buffer / 書き込み先
+	 */
+	public void write(final T value, final ByteBuffer buf);
+
+	/**
+	 * Read object from buffer
+	 *
+	 * バッファからオブジェクトを読み込む（recordSize() バイトちょうどを読み込むこと）
+	 *
+	 * @param buf buffer / 読み込み元
+	 * @return object / オブジェクト
+	 */
+	public T read(final ByteBuffer buf);
+}
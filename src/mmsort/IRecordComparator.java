@@ -0,0 +1,33 @@
+/*
+ * IRecordComparator interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+/**
+ * Comparator of fixed-width binary records (for mmsort.FileMergeSort class)
+ *
+ * 固定長バイナリレコードの比較器(mmsort.FileMergeSortクラス用)
+ *
+ * @author matsubara
+ *
+ */
+public interface IRecordComparator {
+	/**
+	 * Compare method
+	 *
+	 * 比較メソッド
+	 *
+	 * @param buf1 buffer of record 1 / レコード１を含むバッファ
+	 * @param offset1 offset of record 1 / レコード１の開始位置（バイト）
+	 * @param buf2 buffer of record 2 / レコード２を含むバッファ
+	 * @param offset2 offset of record 2 / レコード２の開始位置（バイト）
+	 * @return negative, zero, or positive / 負・ゼロ・正の値
+	 */
+	public int compare(final byte[] buf1, final int offset1, final byte[] buf2, final int offset2);
+}
@@ -0,0 +1,35 @@
+/*
+ * IStringKeyComparator interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+
+/**
+ * Comparator with String sort key (for mmsort.StringRadixSort / mmsort.MmsSortP class)
+ *
+ * String のソートキーを持つ比較器(mmsort.StringRadixSort / mmsort.MmsSortPクラス用)
+ * compare の順序は key の文字列の String.compareTo の順序（UTF-16 の char 単位の辞書順）と一致しなければならない。
+ * （compare(o1, o2) の符号は key(o1).compareTo(key(o2)) の符号と同じであること）
+ * StringRadixSort.sort / MmsSortP.sort は比較器がこのインターフェースを実装している場合に限り、key の文字列でソートする。
+ *
+ * @author matsubara
+ *
+ */
+public interface IStringKeyComparator<T> extends Comparator<T> {
+	/**
+	 * Sort key
+	 *
+	 * ソートキー
+	 *
+	 * @param value array element / 配列の要素
+	 * @return sort key (not null, consistent with compare) / ソートキー（null 不可。compare の順序と一致すること）
+	 */
+	public String key(final T value);
+}
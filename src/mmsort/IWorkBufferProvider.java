@@ -0,0 +1,40 @@
+/*
+ * IWorkBufferProvider interface
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+/**
+ * Work buffer provider interface (for stable sort algorithms)
+ *
+ * 作業用一時領域を提供するインターフェース(安定ソートのアルゴリズム用)
+ * 既定の実装は WorkBufferPool で、WorkBufferPool.setProvider() で差し替えられる。
+ *
+ * @author matsubara
+ *
+ */
+public interface IWorkBufferProvider {
+	/**
+	 * Acquire work buffer
+	 *
+	 * 作業用一時領域を取得する（要求より大きな配列が返されることがある）
+	 *
+	 * @param minSize required size / 必要な要素数
+	 * @return work buffer / 作業用一時領域
+	 */
+	public Object[] acquire(final int minSize);
+
+	/**
+	 * Release work buffer
+	 *
+	 * 作業用一時領域を返却する（返却後は使用しないこと）
+	 *
+	 * @param buffer work buffer acquired by acquire() / acquire() で取得した作業用一時領域
+	 */
+	public void release(final Object[] buffer);
+}
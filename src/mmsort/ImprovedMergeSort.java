@@ -252,9 +252,26 @@ public class ImprovedMergeSort implements ISortAlgorithm {
 	 */
 	public static final <T> void sortImpl(final T[] array, final int from, final int to, Comparator<? super T> comparator)
 	{
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[array.length];
+		final T[] workArray = WorkBufferPool.acquireBuffer(array.length);
 
+		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+	/**
+	 * Improved Merge sort (caller-supplied work area)
+	 *
+	 * 改良版マージソート（呼び出し元が作業用一時領域を指定）
+	 * 作業用一時領域は array と同じ添え字で使用するため、to 以上のサイズが必要
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, Comparator<? super T> comparator)
+	{
 		System.arraycopy(array, from, workArray, from, to - from);
 		sortImpl(workArray, array, from, to, comparator);
 	}
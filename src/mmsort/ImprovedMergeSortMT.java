@@ -0,0 +1,258 @@
+/*
+ * Improved Merge sort (Multi thread)
+ *
+ * ２つの区画のソートを並列に行い、大きな区画のマージ処理も出力範囲を分割して並列に行う改良版マージソート
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class ImprovedMergeSortMT implements ISortAlgorithm {
+	// スレッドを分ける要素数境界値
+	private static final int FORK_THRESHOLD = 50000;
+	// マージ処理を並列化する要素数境界値
+	private static final int PARALLEL_MERGE_THRESHOLD = 1000000;
+	// 並列マージ処理の１区画あたりの最小要素数
+	private static final int PARALLEL_MERGE_SEGMENT_MIN = 65536;
+
+	private static class SortThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = 4032529719856375102L;
+		final T[] arrayFrom;
+		final T[] arrayTo;
+		final int from;
+		final int to;
+		final Comparator<? super T> comparator;
+
+		public SortThread(final T[] arrayFrom, final T[] arrayTo, final int from, final int to, final Comparator<? super T> comparator) {
+			this.arrayFrom = arrayFrom;
+			this.arrayTo = arrayTo;
+			this.from = from;
+			this.to = to;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			ImprovedMergeSortMT.sortImpl(arrayFrom, arrayTo, from, to, comparator);
+		}
+	}
+
+	/**
+	 * Merge one output segment (parallel merge)
+	 *
+	 * 並列マージ処理の１区画分
+	 * co-ranking で求めた各範囲の担当部分を、出力範囲の担当区画へマージする。
+	 */
+	private static class MergeThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = -1386236429870592611L;
+		final T[] arrayFrom;
+		final int p1;
+		final int p1to;
+		final int p2;
+		final int p2to;
+		final T[] arrayTo;
+		final int idx;
+		final Comparator<? super T> comparator;
+
+		public MergeThread(final T[] arrayFrom, final int p1, final int p1to, final int p2, final int p2to, final T[] arrayTo, final int idx, final Comparator<? super T> comparator) {
+			this.arrayFrom = arrayFrom;
+			this.p1 = p1;
+			this.p1to = p1to;
+			this.p2 = p2;
+			this.p2to = p2to;
+			this.arrayTo = arrayTo;
+			this.idx = idx;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			ImprovedMergeSortMT.merge(arrayFrom, p1, p1to, p2, p2to, arrayTo, idx, comparator);
+		}
+	}
+
+	/**
+	 * ２つの範囲のマージ処理（並列マージ処理の１区画分）
+	 *
+	 * 範囲は連続していなくてもよい。同じ値の場合は範囲1, 2 の順に出力する（安定）。
+	 * @param arrayFrom マージ元
+	 * @param p1 範囲1の開始位置
+	 * @param p1to 範囲1の終了位置 (+1)
+	 * @param p2 範囲2の開始位置
+	 * @param p2to 範囲2の終了位置 (+1)
+	 * @param arrayTo マージ先
+	 * @param idx マージ先の開始位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void merge(final T[] arrayFrom, int p1, final int p1to, int p2, final int p2to, final T[] arrayTo, int idx, final Comparator<? super T> comparator)
+	{
+		if (p1 < p1to && p2 < p2to) {
+			T value1 = arrayFrom[p1];
+			T value2 = arrayFrom[p2];
+			for (;;) {
+				if (comparator.compare(value1, value2) <= 0) {
+					arrayTo[idx++] = value1;
+					p1++;
+					if (p1 >= p1to)
+						break;
+					value1 = arrayFrom[p1];
+				} else {
+					arrayTo[idx++] = value2;
+					p2++;
+					if (p2 >= p2to)
+						break;
+					value2 = arrayFrom[p2];
+				}
+			}
+		}
+
+		// 残りをコピー
+		System.arraycopy(arrayFrom, p1, arrayTo, idx, p1to - p1);
+		idx += p1to - p1;
+		System.arraycopy(arrayFrom, p2, arrayTo, idx, p2to - p2);
+	}
+
+	/**
+	 * ２つの範囲の並列マージ処理
+	 *
+	 * 出力範囲を等分し、各区画の境界で co-ranking（merge path の２分検索）を行って
+	 * 各範囲の担当部分を求め、区画ごとに独立してマージする。
+	 * @param arrayFrom マージ元
+	 * @param from 範囲1の開始位置
+	 * @param mid 範囲2の開始位置（範囲1の終了位置）
+	 * @param to 範囲2の終了位置 (+1)
+	 * @param arrayTo マージ先（arrayFrom と同じ添え字で使用）
+	 * @param segmentCount number of output segments / 出力範囲の分割数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void parallelMerge(final T[] arrayFrom, final int from, final int mid, final int to, final T[] arrayTo, final int segmentCount, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+
+		// 各区画の境界での範囲1の位置を co-ranking で求める（範囲2の位置は出力位置から決まる）
+		final int[] bounds = new int[segmentCount + 1];
+		bounds[0] = from;
+		bounds[segmentCount] = mid;
+		for (int segment = 1; segment < segmentCount; segment++) {
+			final int k = (int)((long)range * segment / segmentCount);
+			bounds[segment] = from + MasSortMT.coRank2(k, arrayFrom, from, mid, mid, to, comparator);
+		}
+
+		// 区画ごとにマージ
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final MergeThread<T>[] mergeThreads = new MergeThread[segmentCount];
+		for (int segment = 0; segment < segmentCount; segment++) {
+			final int idx = from + (int)((long)range * segment / segmentCount);
+			final int idxTo = from + (int)((long)range * (segment + 1) / segmentCount);
+			final int p1 = bounds[segment];
+			final int p1to = bounds[segment + 1];
+			final int p2 = mid + (idx - from) - (p1 - from);
+			final int p2to = mid + (idxTo - from) - (p1to - from);
+			mergeThreads[segment] = new MergeThread<T>(arrayFrom, p1, p1to, p2, p2to, arrayTo, idx, comparator);
+		}
+		ForkJoinTask.invokeAll(mergeThreads);
+	}
+
+	/**
+	 * Improved Merge sort (Multi thread)
+	 *
+	 * 改良版マージソート（マルチスレッド）
+	 * arrayFrom の範囲をソートした結果を arrayTo の同じ範囲に出力する。（arrayFrom の範囲の内容は破壊される）
+	 * ２つの区画を arrayTo から arrayFrom へ並列にソートし、arrayFrom から arrayTo へマージする。
+	 * @param arrayFrom sort target / ソート対象
+	 * @param arrayTo sort result / ソート結果の出力先
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] arrayFrom, final T[] arrayTo, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+
+		// 一定数以下はシングルスレッドの改良版マージソートで処理
+		if (range < FORK_THRESHOLD) {
+			ImprovedMergeSort.sortImpl(arrayFrom, arrayTo, from, to, comparator);
+			return;
+		}
+
+		final int mid = from + range / 2;
+
+		// ２つの区画を並列にソート
+		final SortThread<T> area2 = new SortThread<T>(arrayTo, arrayFrom, mid, to, comparator);
+		area2.fork();
+		sortImpl(arrayTo, arrayFrom, from, mid, comparator);
+		area2.join();
+
+		// ソート済み配列の場合の高速化
+		if (comparator.compare(arrayFrom[mid - 1], arrayFrom[mid]) <= 0) {
+			System.arraycopy(arrayFrom, from, arrayTo, from, range);
+			return;
+		}
+
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		if (range >= PARALLEL_MERGE_THRESHOLD && parallelism > 1) {
+			final int segmentCount = Math.min(parallelism * 4, range / PARALLEL_MERGE_SEGMENT_MIN);
+			parallelMerge(arrayFrom, from, mid, to, arrayTo, segmentCount, comparator);
+		} else
+			merge(arrayFrom, from, mid, mid, to, arrayTo, from, comparator);
+	}
+
+	/**
+	 * Improved Merge sort (Multi thread)
+	 *
+	 * 作業用一時領域は array と同じ添え字で使用するため、to 以上のサイズが必要
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final Comparator<? super T> comparator)
+	{
+		System.arraycopy(array, from, workArray, from, to - from);
+		sortImpl(workArray, array, from, to, comparator);
+	}
+
+	/**
+	 * Improved Merge sort (Multi thread)
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		// 作業用配列（array と同じ添え字で使用するため、array と同じサイズが必要）
+		final T[] workArray = WorkBufferPool.acquireBuffer(array.length);
+
+		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "Improved Merge Sort (Multi thread)";
+	}
+}
@@ -39,6 +39,195 @@ public class InsertionSort implements ISortAlgorithm {
 		}
 	}
 
+	/**
+	 * Insertion sort (int array)
+	 *
+	 * 挿入ソート（int配列版）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to)
+	{
+		for (int idx = from + 1; idx < to; idx++) {
+			final int value = array[idx];
+			int prevValue = array[idx - 1];
+			if (value < prevValue) {
+				int insIdx = idx;
+				do {
+					array[insIdx] = prevValue;
+					if (--insIdx <= from)
+						break;
+					prevValue = array[insIdx - 1];
+				} while (value < prevValue);
+				array[insIdx] = value;
+			}
+		}
+	}
+
+	/**
+	 * Insertion sort (int array with comparator)
+	 *
+	 * 挿入ソート（int配列・比較器版。argsort 用）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to, final IIntComparator comparator)
+	{
+		for (int idx = from + 1; idx < to; idx++) {
+			final int value = array[idx];
+			int prevValue = array[idx - 1];
+			if (comparator.compare(value, prevValue) < 0) {
+				int insIdx = idx;
+				do {
+					array[insIdx] = prevValue;
+					if (--insIdx <= from)
+						break;
+					prevValue = array[insIdx - 1];
+				} while (comparator.compare(value, prevValue) < 0);
+				array[insIdx] = value;
+			}
+		}
+	}
+
+	/**
+	 * Insertion sort (long array)
+	 *
+	 * 挿入ソート（long配列版）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static final void sortImpl(final long[] array, final int from, final int to)
+	{
+		for (int idx = from + 1; idx < to; idx++) {
+			final long value = array[idx];
+			long prevValue = array[idx - 1];
+			if (value < prevValue) {
+				int insIdx = idx;
+				do {
+					array[insIdx] = prevValue;
+					if (--insIdx <= from)
+						break;
+					prevValue = array[insIdx - 1];
+				} while (value < prevValue);
+				array[insIdx] = value;
+			}
+		}
+	}
+
+	/**
+	 * Insertion sort (int key array and value array)
+	 *
+	 * 挿入ソート（intキー配列と値配列の組）
+	 * キー配列の値で比較し、値配列の要素はキーと同じように移動する。（安定ソート）
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static final <T> void sortImpl(final int[] keys, final T[] values, final int from, final int to)
+	{
+		for (int idx = from + 1; idx < to; idx++) {
+			final int key = keys[idx];
+			int prevKey = keys[idx - 1];
+			if (key < prevKey) {
+				final T value = values[idx];
+				int insIdx = idx;
+				do {
+					keys[insIdx] = prevKey;
+					values[insIdx] = values[insIdx - 1];
+					if (--insIdx <= from)
+						break;
+					prevKey = keys[insIdx - 1];
+				} while (key < prevKey);
+				keys[insIdx] = key;
+				values[insIdx] = value;
+			}
+		}
+	}
+
+	/**
+	 * Insertion sort (long key array and value array)
+	 *
+	 * 挿入ソート（longキー配列と値配列の組）
+	 * キー配列の値で比較し、値配列の要素はキーと同じように移動する。（安定ソート）
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static final <T> void sortImpl(final long[] keys, final T[] values, final int from, final int to)
+	{
+		for (int idx = from + 1; idx < to; idx++) {
+			final long key = keys[idx];
+			long prevKey = keys[idx - 1];
+			if (key < prevKey) {
+				final T value = values[idx];
+				int insIdx = idx;
+				do {
+					keys[insIdx] = prevKey;
+					values[insIdx] = values[insIdx - 1];
+					if (--insIdx <= from)
+						break;
+					prevKey = keys[insIdx - 1];
+				} while (key < prevKey);
+				keys[insIdx] = key;
+				values[insIdx] = value;
+			}
+		}
+	}
+
+	/**
+	 * Insertion sort (String key array and value array)
+	 *
+	 * 挿入ソート（文字列キー配列と値配列の組）
+	 * キー文字列の depth 文字目以降で比較する（depth 文字目より前は範囲内のすべてのキーで等しいこと）。（安定ソート）
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depth character position to start comparison / 比較を開始する文字位置
+	 */
+	public static final <T> void sortImpl(final String[] keys, final T[] values, final int from, final int to, final int depth)
+	{
+		for (int idx = from + 1; idx < to; idx++) {
+			final String key = keys[idx];
+			String prevKey = keys[idx - 1];
+			if (compareFrom(key, prevKey, depth) < 0) {
+				final T value = values[idx];
+				int insIdx = idx;
+				do {
+					keys[insIdx] = prevKey;
+					values[insIdx] = values[insIdx - 1];
+					if (--insIdx <= from)
+						break;
+					prevKey = keys[insIdx - 1];
+				} while (compareFrom(key, prevKey, depth) < 0);
+				keys[insIdx] = key;
+				values[insIdx] = value;
+			}
+		}
+	}
+
+	/**
+	 * 文字列を depth 文字目以降で比較する
+	 */
+	private static final int compareFrom(final String key1, final String key2, final int depth)
+	{
+		final int length1 = key1.length();
+		final int length2 = key2.length();
+		final int length = Math.min(length1, length2);
+		for (int idx = depth; idx < length; idx++) {
+			final int diff = key1.charAt(idx) - key2.charAt(idx);
+			if (diff != 0)
+				return diff;
+		}
+		return length1 - length2;
+	}
+
 	@Override
 	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
 	{
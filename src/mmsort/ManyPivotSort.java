@@ -65,6 +65,38 @@ public class ManyPivotSort implements ISortAlgorithm {
 		}
 	}
 
+	/**
+	 * Create sorted pivot candidates
+	 *
+	 * ソート済みのピボット候補の配列を作成する
+	 * 配列から等間隔に要素を取り出し、ソートする。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param pivotsSize size of pivot candidates / ピボット候補の数
+	 * @param comparator comparator of array element / 比較器
+	 * @return sorted pivot candidates / ソート済みのピボット候補の配列
+	 */
+	public static final <T> T[] createPivots(final T[] array, final int from, final int to, final int pivotsSize, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;		//	sort range / ソート範囲サイズ
+
+		@SuppressWarnings("unchecked")
+		final T[] pivots = (T[])new Object[pivotsSize];		//	pivot candidates / ピボット候補の配列
+
+		// Selection of the pivot values (Binary insertion sort ish processing).
+		// ピボット（複数）の選出
+		final int pivotsLength = pivots.length;
+		for (int i = 0; i < pivotsLength; i++) {
+			pivots[i] = array[(int)(from + (long)range * i / pivots.length + range / 2 / pivots.length)];
+		}
+		// sort of pivot candidates / ピボット値のみをソート
+		//BinInsertionSort.sortImpl(pivots, 0, pivots.length, comparator);
+		QuickSortM5.sortImpl(pivots, 0, pivots.length, comparator);
+		return pivots;
+	}
+
 	/**
 	 * Many pivot sort
 	 *
@@ -92,18 +124,7 @@ public class ManyPivotSort implements ISortAlgorithm {
 		pivotsSize--;
 
 
-		@SuppressWarnings("unchecked")
-		final T[] pivots = (T[])new Object[pivotsSize];		//	pivot candidates / ピボット候補の配列
-
-		// Selection of the pivot values (Binary insertion sort ish processing).
-		// ピボット（複数）の選出
-		final int pivotsLength = pivots.length;
-		for (int i = 0; i < pivotsLength; i++) {
-			pivots[i] = array[(int)(from + (long)range * i / pivots.length + range / 2 / pivots.length)];
-		}
-		// sort of pivot candidates / ピボット値のみをソート
-		//BinInsertionSort.sortImpl(pivots, 0, pivots.length, comparator);
-		QuickSortM5.sortImpl(pivots, 0, pivots.length, comparator);
+		final T[] pivots = createPivots(array, from, to, pivotsSize, comparator);	//	pivot candidates / ピボット候補の配列
 		// sort of array / ソート対象本体のソート
 		sortImpl(array, from, to, pivots, 0, pivots.length, comparator);
 	}
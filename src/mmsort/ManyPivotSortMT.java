@@ -0,0 +1,256 @@
+/*
+ * Many Pivot Sort (Multi thread)
+ *
+ * メニー・ピボット・ソート（マルチスレッド版）
+ * 事前に確定したたくさんのピボット値をそのままサンプルソートの分割値として使い、
+ * 要素のバケットへの分類・配置・バケットごとのソートを並列に行う。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2015 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class ManyPivotSortMT implements ISortAlgorithm {
+	private static final int PIVOTS_SIZE = 1023;						//	ピボットリストの最大サイズ。バケット数は（重複を除いたピボット数 * 2 + 1）となる。
+	private static final int ALGORITHM_THRESHOLD = 100000;				//	シングルスレッドの Many pivot sort に切り替えるサイズ
+	private static final int CHUNK_MIN = 65536;							//	分類・配置を並列に行う際の１区画あたりの最小要素数
+
+	/**
+	 * Classify elements of a chunk into buckets (phase 1)
+	 *
+	 * 第１段階
+	 * 区画内の各要素がどのバケットに属するかを buckets に記録し、バケットごとの要素数を数える。
+	 */
+	private static class ClassifyThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = 1470092417329648575L;
+		final T[] array;
+		final int from;
+		final int to;
+		final int arrayFrom;
+		final short[] buckets;
+		final int[] counts;
+		final T[] pivots;
+		final int pivotCount;
+		final Comparator<? super T> comparator;
+
+		public ClassifyThread(final T[] array, final int from, final int to, final int arrayFrom, final short[] buckets, final int bucketCount, final T[] pivots, final int pivotCount, final Comparator<? super T> comparator) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.arrayFrom = arrayFrom;
+			this.buckets = buckets;
+			this.counts = new int[bucketCount];
+			this.pivots = pivots;
+			this.pivotCount = pivotCount;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			for (int idx = from; idx < to; idx++) {
+				final int bucket = ManyPivotSortMT.classify(array[idx], pivots, pivotCount, comparator);
+				buckets[idx - arrayFrom] = (short)bucket;
+				counts[bucket]++;
+			}
+		}
+	}
+
+	/**
+	 * Scatter elements of a chunk to work array (phase 2)
+	 *
+	 * 第２段階
+	 * 第１段階の分類結果と、プレフィックスサムで求めたバケットごとの書き込み開始位置にしたがって、区画内の要素を workArray に配置する。
+	 */
+	private static class ScatterThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = -3069312253780170118L;
+		final T[] array;
+		final int from;
+		final int to;
+		final int arrayFrom;
+		final short[] buckets;
+		final int[] offsets;
+		final T[] workArray;
+
+		public ScatterThread(final T[] array, final int from, final int to, final int arrayFrom, final short[] buckets, final int[] offsets, final T[] workArray) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.arrayFrom = arrayFrom;
+			this.buckets = buckets;
+			this.offsets = offsets;
+			this.workArray = workArray;
+		}
+		@Override
+		protected void compute() {
+			for (int idx = from; idx < to; idx++) {
+				workArray[offsets[buckets[idx - arrayFrom]]++] = array[idx];
+			}
+		}
+	}
+
+	/**
+	 * Copy back and sort a bucket (phase 3)
+	 *
+	 * 第３段階
+	 * バケットを array に書き戻してソートする。ピボット値と等しい要素だけのバケットはソート不要。
+	 */
+	private static class BucketSortThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = 7728010587531329244L;
+		final T[] array;
+		final int arrayFrom;
+		final T[] workArray;
+		final int bucketFrom;
+		final int bucketTo;
+		final boolean equalBucket;
+		final Comparator<? super T> comparator;
+
+		public BucketSortThread(final T[] array, final int arrayFrom, final T[] workArray, final int bucketFrom, final int bucketTo, final boolean equalBucket, final Comparator<? super T> comparator) {
+			this.array = array;
+			this.arrayFrom = arrayFrom;
+			this.workArray = workArray;
+			this.bucketFrom = bucketFrom;
+			this.bucketTo = bucketTo;
+			this.equalBucket = equalBucket;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			System.arraycopy(workArray, bucketFrom, array, arrayFrom + bucketFrom, bucketTo - bucketFrom);
+			if (!equalBucket)
+				ManyPivotSort.sortImpl(array, arrayFrom + bucketFrom, arrayFrom + bucketTo, comparator);
+		}
+	}
+
+	/**
+	 * Classify element into bucket
+	 *
+	 * 要素がどのバケットに属するかを２分検索で求める
+	 * バケット 2i は pivots[i - 1] < value < pivots[i]、バケット 2i + 1 は value == pivots[i] の要素
+	 *
+	 * @param value element / 要素
+	 * @param pivots sorted unique pivots / ソート済み（重複なし）のピボットの配列
+	 * @param pivotCount number of pivots / ピボットの数
+	 * @param comparator comparator of array element / 比較器
+	 * @return bucket index / バケットの番号
+	 */
+	public static final <T> int classify(final T value, final T[] pivots, final int pivotCount, final Comparator<? super T> comparator)
+	{
+		int fromIdx = 0;
+		int toIdx = pivotCount;
+		while (fromIdx < toIdx) {
+			final int curIdx = fromIdx + ((toIdx - fromIdx) >> 1);
+			if (comparator.compare(pivots[curIdx], value) < 0)
+				fromIdx = curIdx + 1;
+			else
+				toIdx = curIdx;
+		}
+		if (fromIdx < pivotCount && comparator.compare(value, pivots[fromIdx]) == 0)
+			return (fromIdx << 1) + 1;
+		return fromIdx << 1;
+	}
+
+	/**
+	 * Many pivot sort (Multi thread)
+	 *
+	 * メニー・ピボット・ソート（マルチスレッド版）
+	 * ピボット候補の配列をサンプルソートの分割値として使う。
+	 * 区画ごとに並列に要素をバケットへ分類し、バケットごとの領域に並列に配置し、バケットごとに並列にソートする。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;		//	sort range / ソート範囲サイズ
+
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		if (range < ALGORITHM_THRESHOLD || parallelism <= 1) {
+			ManyPivotSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
+		int pivotsSize = 16;
+		while (pivotsSize < range / 5000 && pivotsSize < PIVOTS_SIZE + 1)
+			pivotsSize *= 2;
+		pivotsSize--;
+
+		// ピボット候補の選出（ソート済み）と重複の除去
+		final T[] pivots = ManyPivotSort.createPivots(array, from, to, pivotsSize, comparator);
+		int pivotCount = 1;
+		for (int i = 1; i < pivots.length; i++) {
+			if (comparator.compare(pivots[pivotCount - 1], pivots[i]) != 0)
+				pivots[pivotCount++] = pivots[i];
+		}
+		final int bucketCount = (pivotCount << 1) + 1;
+
+		// 第１段階 : 区画ごとに分類とバケットごとの要素数のカウント
+		final int chunkCount = Math.max(1, Math.min(parallelism * 4, range / CHUNK_MIN));
+		final short[] buckets = new short[range];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final ClassifyThread<T>[] classifyThreads = new ClassifyThread[chunkCount];
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			final int chunkFrom = from + (int)((long)range * chunk / chunkCount);
+			final int chunkTo = from + (int)((long)range * (chunk + 1) / chunkCount);
+			classifyThreads[chunk] = new ClassifyThread<T>(array, chunkFrom, chunkTo, from, buckets, bucketCount, pivots, pivotCount, comparator);
+		}
+		ForkJoinTask.invokeAll(classifyThreads);
+
+		// プレフィックスサムで区画ごと・バケットごとの書き込み開始位置を決定
+		final int[] bucketFrom = new int[bucketCount + 1];
+		final int[][] offsets = new int[chunkCount][bucketCount];
+		int pos = 0;
+		for (int bucket = 0; bucket < bucketCount; bucket++) {
+			bucketFrom[bucket] = pos;
+			for (int chunk = 0; chunk < chunkCount; chunk++) {
+				offsets[chunk][bucket] = pos;
+				pos += classifyThreads[chunk].counts[bucket];
+			}
+		}
+		bucketFrom[bucketCount] = pos;
+
+		// 第２段階 : 区画ごとに workArray へ配置
+		@SuppressWarnings("unchecked")
+		final T[] workArray = (T[])new Object[range];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final ScatterThread<T>[] scatterThreads = new ScatterThread[chunkCount];
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			scatterThreads[chunk] = new ScatterThread<T>(array, classifyThreads[chunk].from, classifyThreads[chunk].to, from, buckets, offsets[chunk], workArray);
+		}
+		ForkJoinTask.invokeAll(scatterThreads);
+
+		// 第３段階 : バケットごとに書き戻してソート
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final BucketSortThread<T>[] bucketSortThreads = new BucketSortThread[bucketCount];
+		for (int bucket = 0; bucket < bucketCount; bucket++) {
+			bucketSortThreads[bucket] = new BucketSortThread<T>(array, from, workArray, bucketFrom[bucket], bucketFrom[bucket + 1], (bucket & 1) != 0, comparator);
+		}
+		ForkJoinTask.invokeAll(bucketSortThreads);
+	}
+
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return false;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "Many Pivot Sort (Multi thread)";
+	}
+}
@@ -1040,10 +1040,11 @@ public class Mas4Sort implements ISortAlgorithm {
 	public static final <T> void sortImpl(T[] array, int from, int to, Comparator<? super T> comparator)
 	{
 		final int range = to - from;
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[range / 4 * 3];
+		final T[] workArray = WorkBufferPool.acquireBuffer(range / 4 * 3);
 
 		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
 	}
 
 	@Override
@@ -14,9 +14,15 @@
  */
 package mmsort;
 
+import java.util.Arrays;
 import java.util.Comparator;
 
 public class MasSort implements ISortAlgorithm {
+	// 自然な昇順列（ラン）として扱う最小の長さ（これより短い昇順列は、ひとまとまりの未整列の区間としてソートする）
+	private static final int MIN_RUN_LENGTH = 32;
+	// 昇順列の走査を行う最小の要素数
+	private static final int RUN_SCAN_THRESHOLD = MIN_RUN_LENGTH * 2;
+
 	/**
 	 * 最大サイズ５のソート
 	 *
@@ -261,6 +267,21 @@ public class MasSort implements ISortAlgorithm {
 	 * @param comparator comparator of array element / 比較器
 	 */
 	public static final <T> void merge3(final T[] array, int pos1, int pos2, int pos3, final int to, final T[] workArray, final Comparator<? super T> comparator) {
+		merge3(array, pos1, pos2, pos3, to, workArray, 0, comparator);
+	}
+
+	/**
+	 * ３つのレーンのマージ処理（作業用一時領域の使用開始位置指定）
+	 * @param array マージ先
+	 * @param pos1 array配列のレーン1の開始位置
+	 * @param pos2 array配列のレーン2の開始位置
+	 * @param pos3 array配列のレーン3の開始位置
+	 * @param to ソート対象の終了位置（含まない位置）
+	 * @param workArray work area / 作業用一時領域
+	 * @param workFrom index of first element of work area / 作業用一時領域の使用開始位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void merge3(final T[] array, int pos1, int pos2, int pos3, final int to, final T[] workArray, final int workFrom, final Comparator<? super T> comparator) {
 		int state;
 		if (comparator.compare(array[pos1], array[pos2]) <= 0) {
 			// array[p1] <= array[p2]
@@ -288,13 +309,13 @@ public class MasSort implements ISortAlgorithm {
 			}
 		}
 
-		System.arraycopy(array, pos1, workArray, 0, pos3 - pos1);
+		System.arraycopy(array, pos1, workArray, workFrom, pos3 - pos1);
 		int idx = pos1;
-		final int p1to = pos2 - idx;
-		final int p2to = pos3 - idx;
+		final int p1to = pos2 - idx + workFrom;
+		final int p2to = pos3 - idx + workFrom;
 		final int p3to = to;
-		pos1 = 0;
-		pos2 -= idx;
+		pos1 = workFrom;
+		pos2 = pos2 - idx + workFrom;
 
 		ThreeLane:
 		for (; idx < to; idx++) {
@@ -377,6 +398,192 @@ public class MasSort implements ISortAlgorithm {
 	}
 
 
+	/**
+	 * 配列の範囲を逆順に並べ替える
+	 * @param array 対象配列
+	 * @param from 開始位置
+	 * @param to 終了位置 + 1
+	 */
+	public static final <T> void reverse(final T[] array, int from, int to)
+	{
+		to--;
+		while (from < to) {
+			final T temp = array[from];
+			array[from++] = array[to];
+			array[to--] = temp;
+		}
+	}
+
+	/**
+	 * 隣り合う２つのレーンのマージ処理
+	 * 小さい方のレーンを作業用一時領域に退避し、前のレーンが小さければ先頭から、後ろのレーンが小さければ末尾からマージする。
+	 * 作業用一時領域は小さい方のレーンのサイズ（マージ範囲の1/2以下）が必要
+	 * @param array マージ先
+	 * @param pos1 array配列のレーン1の開始位置
+	 * @param pos2 array配列のレーン2の開始位置
+	 * @param to マージ対象の終了位置（含まない位置）
+	 * @param workArray work area / 作業用一時領域
+	 * @param workFrom index of first element of work area / 作業用一時領域の使用開始位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void mergeLanes(final T[] array, final int pos1, final int pos2, final int to, final T[] workArray, final int workFrom, final Comparator<? super T> comparator)
+	{
+		// 既に整列済み
+		if (comparator.compare(array[pos2 - 1], array[pos2]) <= 0)
+			return;
+
+		final int length1 = pos2 - pos1;
+		final int length2 = to - pos2;
+		if (length1 <= length2) {
+			// レーン1を退避し、レーン1とレーン3（array配列上のレーン2）として merge2 で先頭からマージ
+			System.arraycopy(array, pos1, workArray, workFrom, length1);
+			final int state = (comparator.compare(workArray[workFrom], array[pos2]) <= 0) ? 0x13 : 0x31;
+			merge2(array, workFrom, workFrom, pos2, to, workArray, comparator, state, pos1, workFrom + length1, workFrom, to);
+		} else {
+			// レーン2を退避し、末尾からマージ（値が等しい場合はレーン2の要素を後ろに置く）
+			System.arraycopy(array, pos2, workArray, workFrom, length2);
+			int idx1 = pos2 - 1;
+			int idx2 = workFrom + length2 - 1;
+			int idx = to - 1;
+			while (idx1 >= pos1 && idx2 >= workFrom) {
+				if (comparator.compare(workArray[idx2], array[idx1]) >= 0)
+					array[idx--] = workArray[idx2--];
+				else
+					array[idx--] = array[idx1--];
+			}
+			System.arraycopy(workArray, workFrom, array, pos1, idx2 - workFrom + 1);
+		}
+	}
+
+	/**
+	 * 自然な昇順列（ラン）を単位としたマージ処理
+	 * runs[lo] ～ runs[hi] を境界とする昇順列群を、３つのレーンにまとめて merge3 でマージする。
+	 * 前の２つのレーンが作業用一時領域に収まらない場合は、２つのレーンのマージを２回行う。
+	 * @param array sort target / ソート対象
+	 * @param runs 昇順列の境界
+	 * @param lo 最初の昇順列の番号
+	 * @param hi 最後の昇順列の番号 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param workFrom index of first element of work area / 作業用一時領域の使用開始位置
+	 * @param workSize work area size / 作業用一時領域のサイズ
+	 * @param comparator comparator of array element / 比較器
+	 */
+	private static final <T> void mergeRuns(final T[] array, final int[] runs, final int lo, final int hi, final T[] workArray, final int workFrom, final int workSize, final Comparator<? super T> comparator)
+	{
+		final int runCount = hi - lo;
+		if (runCount <= 1)
+			return;
+		if (runCount == 2) {
+			mergeLanes(array, runs[lo], runs[lo + 1], runs[hi], workArray, workFrom, comparator);
+			return;
+		}
+
+		// 要素数がなるべく３等分になるように、昇順列の境界でレーンを分ける
+		final int from = runs[lo];
+		final int to = runs[hi];
+		final int range = to - from;
+		int mid1 = lo + 1;
+		while (mid1 < hi - 2 && runs[mid1] - from < range / 3)
+			mid1++;
+		int mid2 = mid1 + 1;
+		while (mid2 < hi - 1 && runs[mid2] - from < range / 3 * 2)
+			mid2++;
+		mergeRuns(array, runs, mid2, hi,   workArray, workFrom, workSize, comparator);
+		mergeRuns(array, runs, mid1, mid2, workArray, workFrom, workSize, comparator);
+		mergeRuns(array, runs, lo,   mid1, workArray, workFrom, workSize, comparator);
+
+		final int pos1 = from;
+		final int pos2 = runs[mid1];
+		final int pos3 = runs[mid2];
+
+		// ソート済み配列の場合の高速化
+		if (comparator.compare(array[pos2 - 1], array[pos2]) <= 0 && comparator.compare(array[pos3 - 1], array[pos3]) <= 0)
+			return;
+
+		if (pos3 - pos1 <= workSize)
+			merge3(array, pos1, pos2, pos3, to, workArray, workFrom, comparator);
+		else {
+			mergeLanes(array, pos1, pos2, pos3, workArray, workFrom, comparator);
+			mergeLanes(array, pos1, pos3, to,   workArray, workFrom, comparator);
+		}
+	}
+
+	/**
+	 * MasSort (自然な昇順列を利用するソート)
+	 *
+	 * 先頭から昇順列（狭義の降順列は逆順に並べ替えて昇順列とする）を走査し、MIN_RUN_LENGTH 以上の昇順列はそのまま、
+	 * それより短い昇順列が続く区間はまとめて splitSortImpl でソートしてから、それらを merge3 でマージする。
+	 * ほぼ整列済みの配列（末尾に少し追加された配列など）は、ほぼ O(n) でソートできる。
+	 * 短い昇順列が続く区間が範囲サイズの1/8を超えた場合は走査を打ち切り、残りをまとめてソートする。（先頭から長い昇順列が見つからない場合は、配列を変更せずに false を返す）
+	 *
+	 * workArray[workFrom] から、ソート対象の範囲サイズの2/3(切り捨て)程度を作業用一時領域として使用する。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param workFrom index of first element of work area / 作業用一時領域の使用開始位置
+	 * @param comparator comparator of array element / 比較器
+	 * @return ソートを行った場合 true
+	 */
+	public static final <T> boolean runSortImpl(final T[] array, final int from, final int to, final T[] workArray, final int workFrom, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+
+		int[] runs = new int[16];	//	昇順列の境界
+		int runCount = 0;
+		runs[0] = from;
+		int unsortedFrom = from;	//	短い昇順列が続く区間の開始位置
+		int idx = from;
+		while (idx < to) {
+			// idx から始まる昇順列、または狭義の降順列を探す
+			int runTo = idx + 1;
+			boolean descending = false;
+			if (runTo < to) {
+				if (comparator.compare(array[idx], array[runTo]) <= 0) {
+					runTo++;
+					while (runTo < to && comparator.compare(array[runTo - 1], array[runTo]) <= 0)
+						runTo++;
+				} else {
+					runTo++;
+					while (runTo < to && comparator.compare(array[runTo - 1], array[runTo]) > 0)
+						runTo++;
+					descending = true;
+				}
+			}
+
+			if (runTo - idx >= MIN_RUN_LENGTH) {
+				// 長い昇順列が見つかった
+				if (descending)
+					reverse(array, idx, runTo);		//	狭義の降順列なので、逆順にしても安定性は保たれる
+				if (runCount + 4 > runs.length)
+					runs = Arrays.copyOf(runs, runs.length * 2);
+				if (unsortedFrom < idx) {
+					// 直前の短い昇順列が続く区間をソート
+					splitSortImpl(array, unsortedFrom, idx, workArray, workFrom, comparator);
+					runs[++runCount] = idx;
+				}
+				runs[++runCount] = runTo;
+				unsortedFrom = runTo;
+			} else if (runTo - unsortedFrom > (range >> 3)) {
+				// 短い昇順列が続く区間が長い場合は走査を打ち切り、残りはまとめてソートする
+				if (runCount == 0)
+					return false;	//	長い昇順列が見つからない（配列はまだ変更していない）
+				break;
+			}
+			idx = runTo;
+		}
+		if (runCount == 0)
+			return false;
+		if (unsortedFrom < to) {
+			splitSortImpl(array, unsortedFrom, to, workArray, workFrom, comparator);
+			runs[++runCount] = to;
+		}
+
+		mergeRuns(array, runs, 0, runCount, workArray, workFrom, range / 3 * 2, comparator);
+		return true;
+	}
+
+
 	/**
 	 * MasSort
 	 *
@@ -388,6 +595,43 @@ public class MasSort implements ISortAlgorithm {
 	 * @param comparator comparator of array element / 比較器
 	 */
 	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final Comparator<? super T> comparator)
+	{
+		sortImpl(array, from, to, workArray, 0, comparator);
+	}
+
+	/**
+	 * MasSort (作業用一時領域の使用開始位置指定)
+	 *
+	 * workArray[workFrom] から、ソート対象の範囲サイズの2/3(切り捨て)程度を作業用一時領域として使用する。
+	 * １つの作業用一時領域を複数のスレッドで分け合う場合に使用する。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param workFrom index of first element of work area / 作業用一時領域の使用開始位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final int workFrom, final Comparator<? super T> comparator)
+	{
+		// 自然な昇順列が見つかった場合は、昇順列単位でマージする
+		if (to - from >= RUN_SCAN_THRESHOLD && runSortImpl(array, from, to, workArray, workFrom, comparator))
+			return;
+
+		splitSortImpl(array, from, to, workArray, workFrom, comparator);
+	}
+
+	/**
+	 * MasSort (区間を３等分してソート・マージする本体)
+	 *
+	 * workArray[workFrom] から、ソート対象の範囲サイズの2/3(切り捨て)程度を作業用一時領域として使用する。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param workFrom index of first element of work area / 作業用一時領域の使用開始位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void splitSortImpl(final T[] array, final int from, final int to, final T[] workArray, final int workFrom, final Comparator<? super T> comparator)
 	{
 		final int range = to - from;
 
@@ -411,16 +655,16 @@ public class MasSort implements ISortAlgorithm {
 		final int pos1 = from;
 		final int pos2 = pos1 + gap;
 		final int pos3 = pos2 + gap;
-		sortImpl(array, pos3, to,   workArray, comparator);
-		sortImpl(array, pos2, pos3, workArray, comparator);
-		sortImpl(array, from, pos2, workArray, comparator);
+		splitSortImpl(array, pos3, to,   workArray, workFrom, comparator);
+		splitSortImpl(array, pos2, pos3, workArray, workFrom, comparator);
+		splitSortImpl(array, from, pos2, workArray, workFrom, comparator);
 
 		// ソート済み配列の場合の高速化
 		if (comparator.compare(array[pos2 - 1], array[pos2]) <= 0 && comparator.compare(array[pos3 - 1], array[pos3]) <= 0)
 			return;
 
 		// マージ処理は外出しにしたほうが初回実行時に速い(再起で小さい範囲を処理している間にJITコンパイラに処理されて、結果的に高速化できる)
-		merge3(array, pos1, pos2, pos3, to, workArray, comparator);
+		merge3(array, pos1, pos2, pos3, to, workArray, workFrom, comparator);
 	}
 
 
@@ -435,10 +679,11 @@ public class MasSort implements ISortAlgorithm {
 	public static final <T> void sortImpl(T[] array, int from, int to, Comparator<? super T> comparator)
 	{
 		final int range = to - from;
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[range / 3 * 2];
+		final T[] workArray = WorkBufferPool.acquireBuffer(range / 3 * 2);
 
 		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
 	}
 
 	@Override
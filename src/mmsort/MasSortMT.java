@@ -0,0 +1,359 @@
+/*
+ * MasSort (Multi thread)
+ *
+ * ３つの区画のソートを並列に行い、大きな区画のマージ処理も出力範囲を分割して並列に行う MasSort
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class MasSortMT implements ISortAlgorithm {
+	// スレッドを分ける要素数境界値
+	private static final int FORK_THRESHOLD = 50000;
+	// マージ処理を並列化する要素数境界値
+	private static final int PARALLEL_MERGE_THRESHOLD = 1000000;
+	// 並列マージ処理の１区画あたりの最小要素数
+	private static final int PARALLEL_MERGE_SEGMENT_MIN = 65536;
+
+	private static class SortThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = -2590426817431580964L;
+		final T[] array;
+		final int from;
+		final int to;
+		final T[] workArray;
+		final Comparator<? super T> comparator;
+
+		public SortThread(final T[] array, final int from, final int to, final T[] workArray, final Comparator<? super T> comparator) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.workArray = workArray;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			MasSortMT.sortImpl(array, from, to, workArray, comparator);
+		}
+	}
+
+	/**
+	 * Copy lanes to work array (parallel merge, phase 1)
+	 *
+	 * 並列マージ処理の第１段階
+	 * マージ対象の３つのレーンを workArray へコピーする。
+	 */
+	private static class CopyThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = 5338406172910874413L;
+		final T[] array;
+		final int from;
+		final int to;
+		final T[] workArray;
+
+		public CopyThread(final T[] array, final int from, final int to, final T[] workArray) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.workArray = workArray;
+		}
+		@Override
+		protected void compute() {
+			System.arraycopy(array, from, workArray, from, to - from);
+		}
+	}
+
+	/**
+	 * Merge one output segment (parallel merge, phase 2)
+	 *
+	 * 並列マージ処理の第２段階
+	 * co-ranking で求めた各レーンの範囲を、出力範囲の担当区画へマージする。
+	 */
+	private static class MergeThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = -7719520937008431196L;
+		final T[] workArray;
+		final int[] laneFrom;
+		final int[] laneTo;
+		final T[] array;
+		final int idx;
+		final Comparator<? super T> comparator;
+
+		public MergeThread(final T[] workArray, final int[] laneFrom, final int[] laneTo, final T[] array, final int idx, final Comparator<? super T> comparator) {
+			this.workArray = workArray;
+			this.laneFrom = laneFrom;
+			this.laneTo = laneTo;
+			this.array = array;
+			this.idx = idx;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			MasSortMT.mergeSegment(workArray, laneFrom[0], laneTo[0], laneFrom[1], laneTo[1], laneFrom[2], laneTo[2], array, idx, comparator);
+		}
+	}
+
+	/**
+	 * ２つのレーンの co-ranking
+	 *
+	 * レーン1(先)とレーン2(後)を安定にマージした結果の先頭 k 個のうち、レーン1から採用される要素数を求める。
+	 * @param k rank / 先頭からの要素数
+	 * @param array 検索対象
+	 * @param p1from レーン1の開始位置
+	 * @param p1to レーン1の終了位置 (+1)
+	 * @param p2from レーン2の開始位置
+	 * @param p2to レーン2の終了位置 (+1)
+	 * @param comparator comparator of array element / 比較器
+	 * @return レーン1から採用される要素数
+	 */
+	public static final <T> int coRank2(final int k, final T[] array, final int p1from, final int p1to, final int p2from, final int p2to, final Comparator<? super T> comparator)
+	{
+		int lo = Math.max(0, k - (p2to - p2from));
+		int hi = Math.min(k, p1to - p1from);
+		while (lo < hi) {
+			final int i1 = lo + ((hi - lo) >> 1);
+			final int i2 = k - i1;
+			// レーン1の i1 番目がレーン2の (i2 - 1) 番目より先に出力されるなら、レーン1からもっと採用する
+			if (i2 > 0 && comparator.compare(array[p1from + i1], array[p2from + i2 - 1]) <= 0)
+				lo = i1 + 1;
+			else
+				hi = i1;
+		}
+		return lo;
+	}
+
+	/**
+	 * ３つのレーンの co-ranking
+	 *
+	 * レーン1, 2, 3 を安定にマージした結果の先頭 k 個が、それぞれのレーンから何個ずつ採用されるかを求める。
+	 * レーン3の採用数を２分検索し、残りをレーン1, 2 の co-ranking で分ける。
+	 * @param k rank / 先頭からの要素数
+	 * @param array 検索対象
+	 * @param p1from レーン1の開始位置
+	 * @param p2from レーン2の開始位置（レーン1の終了位置）
+	 * @param p3from レーン3の開始位置（レーン2の終了位置）
+	 * @param to レーン3の終了位置 (+1)
+	 * @param comparator comparator of array element / 比較器
+	 * @return 各レーンの採用数
+	 */
+	public static final <T> int[] coRank3(final int k, final T[] array, final int p1from, final int p2from, final int p3from, final int to, final Comparator<? super T> comparator)
+	{
+		int lo = Math.max(0, k - (p3from - p1from));
+		int hi = Math.min(k, to - p3from);
+		while (lo < hi) {
+			final int i3 = lo + ((hi - lo) >> 1);
+			final int i1 = coRank2(k - i3, array, p1from, p2from, p2from, p3from, comparator);
+			final int i2 = k - i3 - i1;
+			// レーン3の i3 番目が、レーン1, 2 から採用された要素のいずれかより前に出力されるなら、レーン3からもっと採用する
+			final T value3 = array[p3from + i3];
+			if ((i1 > 0 && comparator.compare(value3, array[p1from + i1 - 1]) < 0) || (i2 > 0 && comparator.compare(value3, array[p2from + i2 - 1]) < 0))
+				lo = i3 + 1;
+			else
+				hi = i3;
+		}
+		final int i1 = coRank2(k - lo, array, p1from, p2from, p2from, p3from, comparator);
+		return new int[] { i1, k - lo - i1, lo };
+	}
+
+	/**
+	 * ３つのレーンのマージ処理（並列マージ処理の１区画分）
+	 *
+	 * レーンは連続していなくてもよい。同じ値の場合はレーン1, 2, 3 の順に出力する（安定）。
+	 * @param workArray マージ元
+	 * @param p1 レーン1の開始位置
+	 * @param p1to レーン1の終了位置 (+1)
+	 * @param p2 レーン2の開始位置
+	 * @param p2to レーン2の終了位置 (+1)
+	 * @param p3 レーン3の開始位置
+	 * @param p3to レーン3の終了位置 (+1)
+	 * @param array マージ先
+	 * @param idx マージ先の開始位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void mergeSegment(final T[] workArray, int p1, final int p1to, int p2, final int p2to, int p3, final int p3to, final T[] array, int idx, final Comparator<? super T> comparator)
+	{
+		// ３つのレーンが残っている間
+		while (p1 < p1to && p2 < p2to && p3 < p3to) {
+			final T value1 = workArray[p1];
+			final T value2 = workArray[p2];
+			final T value3 = workArray[p3];
+			if (comparator.compare(value1, value2) <= 0) {
+				if (comparator.compare(value1, value3) <= 0) {
+					array[idx++] = value1;
+					p1++;
+				} else {
+					array[idx++] = value3;
+					p3++;
+				}
+			} else {
+				if (comparator.compare(value2, value3) <= 0) {
+					array[idx++] = value2;
+					p2++;
+				} else {
+					array[idx++] = value3;
+					p3++;
+				}
+			}
+		}
+
+		// ２つのレーンが残っている間（残ったレーンを前のレーン・後のレーンとしてマージ）
+		int pa;
+		int paTo;
+		int pb;
+		int pbTo;
+		if (p1 >= p1to) {
+			pa = p2; paTo = p2to; pb = p3; pbTo = p3to;
+		} else if (p2 >= p2to) {
+			pa = p1; paTo = p1to; pb = p3; pbTo = p3to;
+		} else {
+			pa = p1; paTo = p1to; pb = p2; pbTo = p2to;
+		}
+		while (pa < paTo && pb < pbTo) {
+			if (comparator.compare(workArray[pa], workArray[pb]) <= 0)
+				array[idx++] = workArray[pa++];
+			else
+				array[idx++] = workArray[pb++];
+		}
+
+		// 残りをコピー
+		System.arraycopy(workArray, pa, array, idx, paTo - pa);
+		idx += paTo - pa;
+		System.arraycopy(workArray, pb, array, idx, pbTo - pb);
+	}
+
+	/**
+	 * ３つのレーンの並列マージ処理
+	 *
+	 * ３つのレーンを workArray へコピーしたのち、出力範囲を等分し、各区画の境界で co-ranking を行って
+	 * 各レーンの担当範囲を求め、区画ごとに独立してマージする。
+	 * @param array マージ先
+	 * @param pos1 array配列のレーン1の開始位置
+	 * @param pos2 array配列のレーン2の開始位置
+	 * @param pos3 array配列のレーン3の開始位置
+	 * @param to ソート対象の終了位置（含まない位置）
+	 * @param workArray work area (same index as array) / 作業用一時領域（arrayと同じ添え字で使用）
+	 * @param segmentCount number of output segments / 出力範囲の分割数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void parallelMerge3(final T[] array, final int pos1, final int pos2, final int pos3, final int to, final T[] workArray, final int segmentCount, final Comparator<? super T> comparator)
+	{
+		final int range = to - pos1;
+
+		// 第１段階 : レーンを workArray へコピー
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final CopyThread<T>[] copyThreads = new CopyThread[segmentCount];
+		for (int segment = 0; segment < segmentCount; segment++) {
+			final int segmentFrom = pos1 + (int)((long)range * segment / segmentCount);
+			final int segmentTo = pos1 + (int)((long)range * (segment + 1) / segmentCount);
+			copyThreads[segment] = new CopyThread<T>(array, segmentFrom, segmentTo, workArray);
+		}
+		ForkJoinTask.invokeAll(copyThreads);
+
+		// 各区画の境界での各レーンの位置を co-ranking で求める
+		final int[][] bounds = new int[segmentCount + 1][];
+		bounds[0] = new int[] { pos1, pos2, pos3 };
+		bounds[segmentCount] = new int[] { pos2, pos3, to };
+		for (int segment = 1; segment < segmentCount; segment++) {
+			final int k = (int)((long)range * segment / segmentCount);
+			final int[] rank = coRank3(k, workArray, pos1, pos2, pos3, to, comparator);
+			bounds[segment] = new int[] { pos1 + rank[0], pos2 + rank[1], pos3 + rank[2] };
+		}
+
+		// 第２段階 : 区画ごとにマージ
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final MergeThread<T>[] mergeThreads = new MergeThread[segmentCount];
+		for (int segment = 0; segment < segmentCount; segment++) {
+			final int idx = pos1 + (int)((long)range * segment / segmentCount);
+			mergeThreads[segment] = new MergeThread<T>(workArray, bounds[segment], bounds[segment + 1], array, idx, comparator);
+		}
+		ForkJoinTask.invokeAll(mergeThreads);
+	}
+
+	/**
+	 * MasSort (Multi thread)
+	 *
+	 * 作業用一時領域は array と同じ添え字で使用する（区画ごとに重ならない範囲を使うため、スレッド間で共有できる）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area (same index as array) / 作業用一時領域（arrayと同じ添え字で使用）
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+
+		// 一定数以下はシングルスレッドの MasSort で処理（作業領域は workArray[from] から使用）
+		if (range < FORK_THRESHOLD) {
+			MasSort.sortImpl(array, from, to, workArray, from, comparator);
+			return;
+		}
+
+		final int gap = range / 3;
+		final int pos1 = from;
+		final int pos2 = pos1 + gap;
+		final int pos3 = pos2 + gap;
+
+		// ３つの区画を並列にソート
+		final SortThread<T> area3 = new SortThread<T>(array, pos3, to, workArray, comparator);
+		area3.fork();
+		final SortThread<T> area2 = new SortThread<T>(array, pos2, pos3, workArray, comparator);
+		area2.fork();
+		sortImpl(array, from, pos2, workArray, comparator);
+		area2.join();
+		area3.join();
+
+		// ソート済み配列の場合の高速化
+		if (comparator.compare(array[pos2 - 1], array[pos2]) <= 0 && comparator.compare(array[pos3 - 1], array[pos3]) <= 0)
+			return;
+
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		if (range >= PARALLEL_MERGE_THRESHOLD && parallelism > 1) {
+			final int segmentCount = Math.min(parallelism * 4, range / PARALLEL_MERGE_SEGMENT_MIN);
+			parallelMerge3(array, pos1, pos2, pos3, to, workArray, segmentCount, comparator);
+		} else
+			MasSort.merge3(array, pos1, pos2, pos3, to, workArray, from, comparator);
+	}
+
+	/**
+	 * MasSort (Multi thread)
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		// 作業用配列（array と同じ添え字で使用するため、array と同じサイズが必要）
+		final T[] workArray = WorkBufferPool.acquireBuffer(array.length);
+
+		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "MasSort (Multi thread)";
+	}
+}
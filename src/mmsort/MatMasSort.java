@@ -212,10 +212,11 @@ public class MatMasSort implements ISortAlgorithm {
 			workSize = (range + 1) / 2;			//	作業領域サイズがソート範囲の半分より大きい場合、ソート範囲の半分にする。
 		else if (workSize < 1)
 			workSize = 1;
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[workSize];
+		final T[] workArray = WorkBufferPool.acquireBuffer(workSize);
 
 		sortImpl(array, from, to, comparator, workArray, workSize);
+
+		WorkBufferPool.releaseBuffer(workArray);
 	}
 
 	@Override
@@ -60,9 +60,108 @@ public class MatSort implements ISortAlgorithm {
 		return curIdx;
 	}
 
+	/**
+	 * 末尾から昇順列（自然なラン）を探す
+	 * array[to - 1] で終わる昇順列の開始位置を返す。狭義の降順列の場合は、逆順に並べ替えて昇順列にする。（狭義の降順列なので安定性は保たれる）
+	 * @param array 対象配列
+	 * @param from 走査範囲の開始位置
+	 * @param to 走査範囲の終了位置 + 1
+	 * @param comparator 比較器
+	 * @return 昇順列の開始位置
+	 */
+	public static final <T> int naturalRunFrom(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		int idx = to - 1;
+		if (idx > from && comparator.compare(array[idx - 1], array[idx]) > 0) {
+			idx--;
+			while (idx > from && comparator.compare(array[idx - 1], array[idx]) > 0)
+				idx--;
+			MasSort.reverse(array, idx, to);
+		} else {
+			while (idx > from && comparator.compare(array[idx - 1], array[idx]) <= 0)
+				idx--;
+		}
+		return idx;
+	}
+
+	/**
+	 * Merge the block into the sorted tail / ブロックとソート済み領域のマージ
+	 *
+	 * ソート済みの前方ブロック (fromIdx ～ midIdx) を作業領域に退避し、ソート済み領域 (midIdx ～ to) とマージする。
+	 * 後方の方が大きい場合が多いので、前方優先バイナリサーチで後方から複数の値をまとめて取り出す。
+	 * @param array sort target / ソート対象
+	 * @param fromIdx 前方ブロックの開始位置
+	 * @param midIdx ソート済み領域の開始位置（前方ブロックの終了位置）
+	 * @param to ソート済み領域の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @param workArray work area (midIdx - fromIdx or more) / 作業領域（前方ブロックのサイズ以上）
+	 */
+	public static <T> void mergeBlock(final T[] array, final int fromIdx, final int midIdx, final int to, final Comparator<? super T> comparator, final T[] workArray) {
+		// ソート済み配列に対する高速化
+		if (comparator.compare(array[midIdx - 1], array[midIdx]) <= 0) {
+			// 範囲１の値はすべて範囲２の値以下だった
+			return;
+		}
+		System.arraycopy(array, fromIdx, workArray, 0, midIdx - fromIdx);
+
+		int idx1 = fromIdx;	// 前方ブロックの添え字（現在処理位置）
+		int idx2 = midIdx;	// 後方ブロックの添え字（現在処理位置）
+
+		// ２つのマージするブロックの大きさに偏りがある場合、小さなブロックの値１個に対し、大きなブロックから複数個の値が取り出される可能性が高い。
+		// これを見越して、前方から優先の２分検索をする時に、検索開始位置を調整する。
+		final int ratio = (to - midIdx) / (midIdx - fromIdx);	// 前側のブロックサイズと後ろ側ブロックサイズの比率
+		int initSkipSize = 1;
+		while ((ratio >> 1) >= initSkipSize)
+			initSkipSize <<= 1;
+
+		// Merging the last block and that front of the block to create a new big block. This repeated until the block is one.
+		// 最後のブロックとその１つ手前のブロックをマージして新しい（大きな）ブロックを作る。これをブロックが１つになるまで繰り返す。
+		// temp
+		// +---------+
+		// | sorted  |
+		// +---------+
+		//      |
+		//      +----------------- merge ---------------------+
+		//                                                    |
+		// array                                              v
+		// +-----------------------------------------------------------------+
+		// | Block   | Block   | Block   | ... | Block   | merging <- sorted |
+		// +-----------------------------------------------------------------+
+		//                                              ← expansion of sorted area
+		int idx = idx1;	//	Position currently being processed / 現在処理中の位置を設定
+		while (idx1 < midIdx && idx2 < to)  {
+			final T value = workArray[idx1 - fromIdx];
+
+			final int toIdx = fowardingBinSearch(value, array, idx2, to, comparator, initSkipSize);
+			if (toIdx != idx2) {
+				// getting multi values from back block, stored to sorted area (Because back block is large)
+				// 後方のブロックから値をいくつか取り出して、ソート済み領域に格納（後ろのブロックが大きいため、後ろのブロックから連続して値が採用される可能性が高い）
+				System.arraycopy(array, idx2, array, idx, toIdx - idx2);
+				idx += (toIdx - idx2);
+				idx2 = toIdx;
+			}
+			if (toIdx < to) {
+				// getting single value from forward block, stored to sorted area
+				// 前方のブロックから値を１つ取り出して、ソート済み領域に格納
+				array[idx] = value;
+				idx1++;
+				idx++;
+			}
+		}
+
+		// remaining temporary data to array
+		// 残った一時領域のデータをソート対象へ詰める
+		while (idx1 < midIdx)  {
+			array[idx++] = workArray[idx1++ - fromIdx];
+		}
+	}
+
 	/**
 	 * Sort body / ソート本体
 	 *
+	 * Blocks lying inside a natural ascending run (or a reversed strictly descending run) are not sorted again.
+	 * 自然な昇順列（または逆順にした狭義の降順列）の内側にあるブロックはソートを省略する。
+	 *
 	 * @param array sort target / ソート対象
 	 * @param from index of first element / ソート対象の開始位置
 	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
@@ -81,10 +180,16 @@ public class MatSort implements ISortAlgorithm {
 		// ^                                                       ^          ^
 		// |                                                       |          |
 		// from                                                fromIdx        to
-		int fromIdx = to - workSize;	// 最終ブロックの開始位置
-		MmsSort.sortImpl(array, fromIdx, to, workArray, 40, comparator);
+		int runFrom = naturalRunFrom(array, from, to, comparator);	// 末尾の昇順列の開始位置
+		int fromIdx;	// 最終ブロックの開始位置
+		if (to - runFrom >= workSize) {
+			// 末尾の昇順列はそのままソート済み領域とする
+			fromIdx = runFrom;
+		} else {
+			fromIdx = to - workSize;
+			MmsSort.sortImpl(array, fromIdx, to, workArray, 40, comparator);
+		}
 
-		int counter = 1;	// ループのカウンター(前側のブロックサイズと後ろ側ブロックサイズの比率でもある)
 		// It is repeated until the merge all the blocks merge ... by sorting the immediately preceding block of the last block.
 		// 最終ブロックの一つ手前のブロックをソートしてマージ…をすべてのブロックをマージするまで繰り返す。
 		while (fromIdx > from) {
@@ -105,69 +210,22 @@ public class MatSort implements ISortAlgorithm {
 			// | sorted  |
 			// +---------+
 			final int midIdx = fromIdx;		// 後方ブロックの開始位置
-			fromIdx = fromIdx - workSize;	// 前方ブロックの開始位置
-			if (fromIdx < from)
-				fromIdx = from;
-			MmsSort.sortImpl(array, fromIdx, midIdx, workArray, 40, comparator);
-			System.arraycopy(array, fromIdx, workArray, 0, midIdx - fromIdx);
-
-			int idx1 = fromIdx;	// 前方ブロックの添え字（現在処理位置）
-			int idx2 = midIdx;	// 後方ブロックの添え字（現在処理位置）
-
-			// ソート済み配列に対する高速化
-			if (comparator.compare(workArray[midIdx - fromIdx - 1], array[midIdx]) < 0) {
-				// 範囲１の値はすべて範囲２の値より小さかった
-				System.arraycopy(workArray, 0, array, fromIdx, midIdx - fromIdx);
-				continue;
-			}
-
-			// ２つのマージするブロックの大きさに偏りがある場合、小さなブロックの値１個に対し、大きなブロックから複数個の値が取り出される可能性が高い。
-			// これを見越して、前方から優先の２分検索をする時に、検索開始位置を調整する。
-			int initSkipSize = 1;
-			while ((counter >> 1) >= initSkipSize)
-				initSkipSize <<= 1;
-
-			// Merging the last block and that front of the block to create a new big block. This repeated until the block is one.
-			// 最後のブロックとその１つ手前のブロックをマージして新しい（大きな）ブロックを作る。これをブロックが１つになるまで繰り返す。
-			// temp
-			// +---------+
-			// | sorted  |
-			// +---------+
-			//      |
-			//      +----------------- merge ---------------------+
-			//                                                    |
-			// array                                              v
-			// +-----------------------------------------------------------------+
-			// | Block   | Block   | Block   | ... | Block   | merging <- sorted |
-			// +-----------------------------------------------------------------+
-			//                                              ← expansion of sorted area
-			int idx = idx1;	//	Position currently being processed / 現在処理中の位置を設定
-			while (idx1 < midIdx && idx2 < to)  {
-				final T value = workArray[idx1 - fromIdx];
-
-				final int toIdx = fowardingBinSearch(value, array, idx2, to, comparator, initSkipSize);
-				if (toIdx != idx2) {
-					// getting multi values from back block, stored to sorted area (Because back block is large)
-					// 後方のブロックから値をいくつか取り出して、ソート済み領域に格納（後ろのブロックが大きいため、後ろのブロックから連続して値が採用される可能性が高い）
-					System.arraycopy(array, idx2, array, idx, toIdx - idx2);
-					idx += (toIdx - idx2);
-					idx2 = toIdx;
-				}
-				if (toIdx < to) {
-					// getting single value from forward block, stored to sorted area
-					// 前方のブロックから値を１つ取り出して、ソート済み領域に格納
-					array[idx] = value;
-					idx1++;
-					idx++;
-				}
+			if (runFrom >= midIdx)
+				runFrom = naturalRunFrom(array, from, midIdx, comparator);	// 後方ブロックの直前で終わる昇順列を探す
+			if (midIdx - runFrom >= workSize) {
+				// 前方ブロックは昇順列の内側にあるのでソート不要
+				fromIdx = midIdx - workSize;
+			} else if (midIdx - runFrom >= (workSize >> 1)) {
+				// 残りの昇順列を前方ブロックとする（ソート不要）
+				fromIdx = runFrom;
+			} else {
+				fromIdx = midIdx - workSize;	// 前方ブロックの開始位置
+				if (fromIdx < from)
+					fromIdx = from;
+				MmsSort.sortImpl(array, fromIdx, midIdx, workArray, 40, comparator);
 			}
 
-			// remaining temporary data to array
-			// 残った一時領域のデータをソート対象へ詰める
-			while (idx1 < midIdx)  {
-				array[idx++] = workArray[idx1++ - fromIdx];
-			}
-			counter++;
+			mergeBlock(array, fromIdx, midIdx, to, comparator, workArray);
 		}
 	}
 
@@ -212,10 +270,11 @@ public class MatSort implements ISortAlgorithm {
 			workSize = (range + 1) / 2;			//	作業領域サイズがソート範囲の半分より大きい場合、ソート範囲の半分にする。
 		else if (workSize < 1)
 			workSize = 1;
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[workSize];
+		final T[] workArray = WorkBufferPool.acquireBuffer(workSize);
 
 		sortImpl(array, from, to, comparator, workArray, workSize);
+
+		WorkBufferPool.releaseBuffer(workArray);
 	}
 
 	@Override
@@ -0,0 +1,167 @@
+/*
+ * MatSort (Multi thread)
+ *
+ * ブロックのソートを並列に行い、ソート済み領域へのマージ処理をそれと並行して（パイプライン的に）行う MatSort
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class MatSortMT implements ISortAlgorithm {
+	// マルチスレッドで処理する要素数境界値
+	private static final int FORK_THRESHOLD = 50000;
+
+	private static class SortThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = 6418301527795207184L;
+		final T[] array;
+		final int from;
+		final int to;
+		final T[] workArray;
+		final Comparator<? super T> comparator;
+
+		public SortThread(final T[] array, final int from, final int to, final T[] workArray, final Comparator<? super T> comparator) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.workArray = workArray;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			// 既に昇順に整列済みのブロックはソート不要（ランダムな配列なら先頭の数要素で打ち切られる）
+			int idx = from + 1;
+			while (idx < to && comparator.compare(array[idx - 1], array[idx]) <= 0)
+				idx++;
+			if (idx < to)
+				MmsSort.sortImpl(array, from, to, workArray, comparator);
+		}
+	}
+
+	/**
+	 * Sort body / ソート本体
+	 *
+	 * MatSort と同じく末尾から workSize ごとにブロックに分け、ブロックをソートしてソート済み領域（末尾側）へマージする。
+	 * ブロックのソートは互いに独立しているので、先行して最大 sortThreadCount 個のブロックを並列にソートし、
+	 * 呼び出しスレッドはソートが終わったブロックから順にソート済み領域へマージする。
+	 * ブロックのソートが終わると、その作業領域を使ってさらに前のブロックのソートを開始する。
+	 * 作業領域はブロックのソート用に sortThreadCount 個、マージ用に１個（それぞれ workSize）が必要
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @param workArrays work areas for sorting blocks / ブロックのソート用の作業領域（並列にソートするブロック数）
+	 * @param mergeWorkArray work area for merging / マージ用の作業領域
+	 * @param workSize work area size / 作業領域サイズ
+	 */
+	public static <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator, final T[][] workArrays, final T[] mergeWorkArray, final int workSize)
+	{
+		final int sortThreadCount = workArrays.length;
+
+		// ブロックの境界（末尾から workSize ごと。先頭のブロックは workSize 以下）
+		final int blockCount = (to - from + workSize - 1) / workSize;
+		final int[] blockFrom = new int[blockCount + 1];
+		blockFrom[blockCount] = to;
+		for (int block = blockCount - 1; block >= 0; block--)
+			blockFrom[block] = Math.max(blockFrom[block + 1] - workSize, from);
+
+		// 末尾から sortThreadCount 個のブロックのソートを開始
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final SortThread<T>[] sortThreads = new SortThread[blockCount];
+		int nextBlock = blockCount - 1;		// 次にソートを開始するブロック
+		for (int slot = 0; slot < sortThreadCount && nextBlock >= 0; slot++, nextBlock--) {
+			sortThreads[nextBlock] = new SortThread<T>(array, blockFrom[nextBlock], blockFrom[nextBlock + 1], workArrays[slot], comparator);
+			sortThreads[nextBlock].fork();
+		}
+
+		// ソートが終わったブロックから順にマージ
+		for (int block = blockCount - 1; block >= 0; block--) {
+			final SortThread<T> sortThread = sortThreads[block];
+			sortThread.join();
+			sortThreads[block] = null;
+
+			// このブロックの作業領域を使って、次のブロックのソートを開始
+			if (nextBlock >= 0) {
+				sortThreads[nextBlock] = new SortThread<T>(array, blockFrom[nextBlock], blockFrom[nextBlock + 1], sortThread.workArray, comparator);
+				sortThreads[nextBlock].fork();
+				nextBlock--;
+			}
+
+			// 最終ブロックはそのままソート済み領域とする
+			if (block < blockCount - 1)
+				MatSort.mergeBlock(array, blockFrom[block], blockFrom[block + 1], to, comparator, mergeWorkArray);
+		}
+	}
+
+	/**
+	 * Sort body / ソート本体
+	 *
+	 * 作業領域は、ソート範囲の 1/MatSort.WORK_SIZE_RATIO のサイズの配列を（共通プールの並列数 + 1）個使用する。
+	 * （並列にブロックをソートするスレッドと、マージを行う呼び出しスレッドにそれぞれ１個）
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @param workSize work area size (0 : 1/MatSort.WORK_SIZE_RATIO of range) / 作業領域サイズ（0 ならソート範囲の 1/MatSort.WORK_SIZE_RATIO）
+	 */
+	public static <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator, int workSize)
+	{
+		final int range = to - from;
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+
+		// 一定数以下はシングルスレッドの MatSort で処理
+		if (range < FORK_THRESHOLD) {
+			MatSort.sortImpl(array, from, to, comparator, workSize);
+			return;
+		}
+
+		//	作業領域サイズの決定
+		if (workSize == 0)
+			workSize = (range + MatSort.WORK_SIZE_RATIO - 1) / MatSort.WORK_SIZE_RATIO;		// round up / 切り上げ
+		if (workSize > (range + 1) / 2)
+			workSize = (range + 1) / 2;			//	作業領域サイズがソート範囲の半分より大きい場合、ソート範囲の半分にする。
+		else if (workSize < 1)
+			workSize = 1;
+
+		// ブロックのソート用の作業領域（並列数分。ブロック数より多くは使わない）
+		final int sortThreadCount = Math.max(1, Math.min(parallelism, (range + workSize - 1) / workSize));
+		@SuppressWarnings("unchecked")
+		final T[][] workArrays = (T[][])new Object[sortThreadCount][];
+		for (int slot = 0; slot < sortThreadCount; slot++)
+			workArrays[slot] = WorkBufferPool.acquireBuffer(workSize);
+		final T[] mergeWorkArray = WorkBufferPool.acquireBuffer(workSize);
+
+		sortImpl(array, from, to, comparator, workArrays, mergeWorkArray, workSize);
+
+		for (int slot = 0; slot < sortThreadCount; slot++)
+			WorkBufferPool.releaseBuffer(workArrays[slot]);
+		WorkBufferPool.releaseBuffer(mergeWorkArray);
+	}
+
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		sortImpl(array, from, to, comparator, 0);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "MatSort(1/" + String.valueOf(MatSort.WORK_SIZE_RATIO) + ") (Multi thread)";
+	}
+}
@@ -107,10 +107,11 @@ public class MergeSort implements ISortAlgorithm {
 	 */
 	public static final <T> void mergeSort(T[] array, int from, int to, Comparator<? super T> comparator)
 	{
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[(to - from) / 2];
+		final T[] workArray = WorkBufferPool.acquireBuffer((to - from) / 2);
 
 		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
 	}
 
 	@Override
@@ -11,7 +11,7 @@ package mmsort;
 
 import java.util.Comparator;
 
-public class MmSort implements ISortAlgorithm {
+public class MmSort implements ISortAlgorithm, IPrimitiveSortAlgorithm {
 	// Insersion Sortなどに切り替える要素数
 	private static final int ALGORITHM_THRESHOLD = 20;
 
@@ -20,6 +20,7 @@ public class MmSort implements ISortAlgorithm {
 	 *
 	 * 基本的には「 ５つのメディアン」だが、５つの中央値を選択したときに、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に
 	 * 退避し、パーティション操作から除外することで高速化を図ったアルゴリズム
+	 * 呼び出し深さの許容値（2 * log2(要素数)）を超えた場合はヒープソートに切り替える。（イントロソート）
 	 *
 	 * @param array sort target / ソート対象
 	 * @param from index of first element / ソート対象の開始位置
@@ -27,6 +28,24 @@ public class MmSort implements ISortAlgorithm {
 	 * @param comparator comparator of array element / 比較器
 	 */
 	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+		sortImpl(array, from, to, (int)(Math.log(Math.max(range, 1)) / Math.log(2.0) * 2), comparator);
+	}
+
+	/**
+	 * mmSort
+	 *
+	 * 基本的には「 ５つのメディアン」だが、５つの中央値を選択したときに、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に
+	 * 退避し、パーティション操作から除外することで高速化を図ったアルゴリズム
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final int depthRemainder, final Comparator<? super T> comparator)
 	{
 		final int range = to - from;		//	ソート範囲サイズ
 
@@ -37,6 +56,97 @@ public class MmSort implements ISortAlgorithm {
 			return;
 		}
 
+		// 呼び出し深さが限度を超えたら（最悪ケースの入力）ヒープソートに切り替え
+		if (depthRemainder < 0) {
+			HeapSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
+		//	パーティション操作（ピボット値はパーティションの間に置かれる）
+		final int pivotIdx = partition(array, from, to, comparator);
+
+		//	小さいパーティション・大きいパーティションそれぞれで再起
+		sortImpl(array, from, pivotIdx, depthRemainder - 1, comparator);
+		sortImpl(array, pivotIdx + 1, to, depthRemainder - 1, comparator);
+	}
+
+	/**
+	 * mmSort (partial sort)
+	 *
+	 * 部分ソート（非安定ソート）
+	 * ソート範囲の小さい方から k 個の要素を array[from] ～ array[from + k - 1] に昇順に並べる。残りの要素の並びは不定。
+	 * k がソート範囲サイズに比べて十分小さい場合、平均の比較回数は O(n + k log k) 程度になる。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param k number of elements to be sorted / 並べる要素数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void partialSortImpl(final T[] array, final int from, final int to, final int k, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+		if (k <= 0 || range <= 1)
+			return;
+		partialSortImpl(array, from, to, from + Math.min(k, range), (int)(Math.log(range) / Math.log(2.0) * 2), comparator);
+	}
+
+	/**
+	 * mmSort (partial sort)
+	 *
+	 * mmSort と同じパーティション操作を行い、[from, kTo) と重なるパーティションだけを再帰的にソートする。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param kTo index of last element to be sorted (exclusive) / 部分ソートの終了位置 + 1
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void partialSortImpl(final T[] array, final int from, final int to, final int kTo, final int depthRemainder, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		//	ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range < ALGORITHM_THRESHOLD) {
+			InsertionSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
+		// 呼び出し深さが限度を超えたら（最悪ケースの入力）ヒープソートに切り替え
+		if (depthRemainder < 0) {
+			HeapSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
+		final int pivotIdx = partition(array, from, to, comparator);
+
+		if (kTo <= pivotIdx) {
+			//	小さいパーティションのみ部分ソート
+			partialSortImpl(array, from, pivotIdx, kTo, depthRemainder - 1, comparator);
+		} else {
+			//	小さいパーティションは全体をソートし、大きいパーティションを部分ソート
+			sortImpl(array, from, pivotIdx, depthRemainder - 1, comparator);
+			if (kTo > pivotIdx + 1)
+				partialSortImpl(array, pivotIdx + 1, to, kTo, depthRemainder - 1, comparator);
+		}
+	}
+
+	/**
+	 * mmSort のパーティション操作
+	 *
+	 * ５つの候補の中央値をピボットとし、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に退避してパーティション操作を行う。
+	 * 操作後は array[from] ～ array[戻り値 - 1] がピボット値以下、array[戻り値] がピボット値、array[戻り値 + 1] ～ array[to - 1] がピボット値以上になる。
+	 * ソート範囲サイズは５以上であること。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @return index of pivot / ピボット値の位置
+	 */
+	public static final <T> int partition(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
 		final int p1 = from;
 		final int p5 = to - 1;
 		final int p3 = p1 + ((p5 - p1) >>> 1);
@@ -209,15 +319,727 @@ public class MmSort implements ISortAlgorithm {
 		array[from + 2] = array[curTo];
 		array[curTo] = pivot;
 
+		return curTo;
+	}
+
+	/**
+	 * mmSort (argsort)
+	 *
+	 * 行番号などの int 値の配列を、比較器（行番号の比較）でソートする。（非安定ソート）
+	 * 列指向のデータのように、オブジェクトを並べ替える代わりに並び順（行番号の順列）を求める場合に使用する。
+	 * 呼び出し深さの許容値（2 * log2(要素数)）を超えた場合はヒープソートに切り替える。（イントロソート）
+	 *
+	 * @param array sort target (row ids) / ソート対象（行番号）
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to, final IIntComparator comparator)
+	{
+		final int range = to - from;
+		sortImpl(array, from, to, (int)(Math.log(Math.max(range, 1)) / Math.log(2.0) * 2), comparator);
+	}
+
+	/**
+	 * mmSort (argsort)
+	 *
+	 * @param array sort target (row ids) / ソート対象（行番号）
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to, final int depthRemainder, final IIntComparator comparator)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		//	ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range < ALGORITHM_THRESHOLD) {
+			InsertionSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
+		// 呼び出し深さが限度を超えたら（最悪ケースの入力）ヒープソートに切り替え
+		if (depthRemainder < 0) {
+			HeapSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
+		//	パーティション操作（ピボット値はパーティションの間に置かれる）
+		final int pivotIdx = partition(array, from, to, comparator);
+
 		//	小さいパーティション・大きいパーティションそれぞれで再起
-		sortImpl(array, from, curTo, comparator);
-		sortImpl(array, curFrom, to, comparator);
+		sortImpl(array, from, pivotIdx, depthRemainder - 1, comparator);
+		sortImpl(array, pivotIdx + 1, to, depthRemainder - 1, comparator);
 	}
 
-	@Override
-	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	/**
+	 * mmSort (argsort)
+	 *
+	 * 0 ～ size - 1 の行番号を比較器の順に並べた順列を返す。（非安定ソート）
+	 * 作業用一時領域は使用しない。
+	 *
+	 * @param size number of rows / 行数
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 * @return sorted row ids / ソートした行番号の配列
+	 */
+	public static final int[] argsort(final int size, final IIntComparator comparator)
 	{
-		sortImpl(array, from, to, comparator);
+		final int[] rows = new int[size];
+		for (int idx = 0; idx < size; idx++)
+			rows[idx] = idx;
+		sortImpl(rows, 0, size, comparator);
+		return rows;
+	}
+
+	/**
+	 * mmSort のパーティション操作 (argsort)
+	 *
+	 * @param array sort target (row ids) / ソート対象（行番号）
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 * @return index of pivot / ピボット値の位置
+	 */
+	public static final int partition(final int[] array, final int from, final int to, final IIntComparator comparator)
+	{
+		final int p1 = from;
+		final int p5 = to - 1;
+		final int p3 = p1 + ((p5 - p1) >>> 1);
+		final int p2 = p1 + ((p3 - p1) >>> 1);
+		final int p4 = p3 + ((p5 - p3) >>> 1);
+
+		//sort5 メソッドの呼び出しを手動でインライン展開
+		//sort5(array, p1, p2, p3, p4, p5, comparator);
+		{
+			final int v1 = array[p1];
+			final int v2 = array[p2];
+			final int v3 = array[p3];
+			final int v4 = array[p4];
+			final int v5 = array[p5];
+			//	まず、先頭３つのソート
+			if (comparator.compare(v1, v2) <= 0) {
+				if (comparator.compare(v2, v3) <= 0) {
+					// v1 <= v2 <= v3
+					//array[p1] = v1;
+					//array[p2] = v2;
+					//array[p3] = v3;
+				} else if (comparator.compare(v1, v3) <= 0) {
+					// v1 <= v3 <= v2
+					//array[p1] = v1;
+					array[p2] = v3;
+					array[p3] = v2;
+				} else {
+					// v3 <= v1 <= v2
+					array[p1] = v3;
+					array[p2] = v1;
+					array[p3] = v2;
+				}
+			} else {
+				if (comparator.compare(v1, v3) <= 0) {
+					// v2 <= v1 <= v3
+					array[p1] = v2;
+					array[p2] = v1;
+					//array[p3] = v3;
+				} else if (comparator.compare(v2, v3) <= 0) {
+					// v2 <= v3 <= v1
+					array[p1] = v2;
+					array[p2] = v3;
+					array[p3] = v1;
+				} else {
+					// v3 <= v2 <= v1
+					array[p1] = v3;
+					//array[p2] = v2;
+					array[p3] = v1;
+				}
+			}
+
+			// v4 ( = array[p4]) を挿入ソートっぽく指定位置に挿入
+			if (comparator.compare(array[p2], v4) <= 0) {
+				if (comparator.compare(array[p3], v4) <= 0) {
+					// array[p3] <= v4
+				} else {
+					// array[p2] <= v4 < array[p3];
+					array[p4] = array[p3];
+					array[p3] = v4;
+				}
+			} else {
+				if (comparator.compare(array[p1], v4) <= 0) {
+					// array[p1] <= v4 < array[p2];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = v4;
+				} else {
+					// v4 < array[p1] <= array[p2];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = array[p1];
+					array[p1] = v4;
+				}
+			}
+
+			// v5 ( = array[p5]) を挿入ソートっぽく指定位置に挿入
+			if (comparator.compare(array[p3], v5) <= 0) {
+				// array[p3] <= v5
+/* 4番目 と 5番目の位置関係は重要ではない(v3が中央に来さえすればよい)
+				if (comparator.compare(array[p4], v5) <= 0) {
+					// array[p3] <= array[4] <= v5
+				} else {
+					// array[p3] <= v5 < array[p4]
+					array[p5] = array[p4];
+					array[p4] = v5;
+				}
+*/
+			} else {
+				// v5 < array[p3]
+				if (comparator.compare(array[p2], v5) <= 0) {
+					// array[p2] <= v5 < array[p3]
+					array[p5] = array[p4];
+					array[p4] = array[p3];
+					array[p3] = v5;
+				} else {
+					// v5 < array[p2] <= array[p3]
+/* 1番目 と 2番目の位置関係は重要ではない(v3が中央に来さえすればよい)
+					if (comparator.compare(array[p1], v5) <= 0) {
+						// array[p1] <= v5 < array[p2] <= array[p3]
+						array[p5] = array[p4];
+						array[p4] = array[p3];
+						array[p3] = array[p2];
+						array[p2] = v5;
+					} else {
+						// v5 < array[p1] <= array[p2] <= array[p3]
+						array[p5] = array[p4];
+						array[p4] = array[p3];
+						array[p3] = array[p2];
+						array[p2] = array[p1];
+						array[p1] = v5;
+					}
+*/
+					array[p5] = array[p4];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = v5;
+				}
+			}
+		}
+
+
+		/*
+		 * この時点で、
+		 *   array[from](array[p1])には、5つの候補のうち、中央値以下の値が入っている。
+		 *   array[p3]には、中央値が入っている。
+		 *   array[to - 1](array[p5])には、5つの候補のうち、中央値以上の値が入っている。
+		 * そこで、
+		 *   array[from + 1]とarray[p2]の値を入れ替え
+		 *   array[from + 2]とarray[p3]の値を入れ替え
+		 *   array[to - 2]とarray[p4]の値を入れ替え
+		 * とすることで、パーティション操作のの範囲を狭くすることができる。
+		 **/
+
+		final int pivot = array[p3];	//	ピボット値
+
+		{
+			final int work = array[from + 1];
+			array[from + 1] = array[p2];
+			array[p2] = work;
+		}
+
+		//work = array[from + 2];
+		//array[from + 2] = array[p3];
+		//array[p3] = work;
+		array[p3] = array[from + 2];
+		array[from + 2] = pivot;
+
+		{
+			final int work = array[to - 2];
+			array[to - 2] = array[p4];
+			array[p4] = work;
+		}
+
+		//	パーティション操作
+		int curFrom = from + 3;			//	min index / 現在処理中位置の小さい方の位置
+		int curTo = to - 1 - 2;			//	max index / 現在処理中位置の大きい方の位置
+		while (true) {
+			if (comparator.compare(array[curFrom], pivot) < 0)
+				while (comparator.compare(array[++curFrom], pivot) < 0);
+			if (comparator.compare(pivot, array[curTo]) < 0)
+				while (comparator.compare(pivot, array[--curTo]) < 0);
+			if (curFrom >= curTo)
+				break;
+			final int work = array[curFrom];
+			array[curFrom++] = array[curTo];
+			array[curTo--] = work;
+		};
+
+		//	ピボット値をパーティションの間に入れ替える（再起の処理の対象外にできる）
+		array[from + 2] = array[curTo];
+		array[curTo] = pivot;
+
+		return curTo;
+	}
+
+	/**
+	 * mmSort (int array)
+	 *
+	 * int配列版。比較器を使わずにプリミティブ値を直接比較する。（ボクシングも比較器の呼び出しも発生しない）
+	 *
+	 * 基本的には「 ５つのメディアン」だが、５つの中央値を選択したときに、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に
+	 * 退避し、パーティション操作から除外することで高速化を図ったアルゴリズム
+	 * 呼び出し深さの許容値（2 * log2(要素数)）を超えた場合はヒープソートに切り替える。（イントロソート）
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to)
+	{
+		final int range = to - from;
+		sortImpl(array, from, to, (int)(Math.log(Math.max(range, 1)) / Math.log(2.0) * 2));
+	}
+
+	/**
+	 * mmSort (int array)
+	 *
+	 * int配列版。比較器を使わずにプリミティブ値を直接比較する。（ボクシングも比較器の呼び出しも発生しない）
+	 *
+	 * 基本的には「 ５つのメディアン」だが、５つの中央値を選択したときに、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に
+	 * 退避し、パーティション操作から除外することで高速化を図ったアルゴリズム
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to, final int depthRemainder)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		//	ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range < ALGORITHM_THRESHOLD) {
+			InsertionSort.sortImpl(array, from, to);
+			return;
+		}
+
+		// 呼び出し深さが限度を超えたら（最悪ケースの入力）ヒープソートに切り替え
+		if (depthRemainder < 0) {
+			HeapSort.sortImpl(array, from, to);
+			return;
+		}
+
+		final int p1 = from;
+		final int p5 = to - 1;
+		final int p3 = p1 + ((p5 - p1) >>> 1);
+		final int p2 = p1 + ((p3 - p1) >>> 1);
+		final int p4 = p3 + ((p5 - p3) >>> 1);
+
+		{
+			final int v1 = array[p1];
+			final int v2 = array[p2];
+			final int v3 = array[p3];
+			final int v4 = array[p4];
+			final int v5 = array[p5];
+			//	まず、先頭３つのソート
+			if (v1 <= v2) {
+				if (v2 <= v3) {
+					// v1 <= v2 <= v3
+					//array[p1] = v1;
+					//array[p2] = v2;
+					//array[p3] = v3;
+				} else if (v1 <= v3) {
+					// v1 <= v3 <= v2
+					//array[p1] = v1;
+					array[p2] = v3;
+					array[p3] = v2;
+				} else {
+					// v3 <= v1 <= v2
+					array[p1] = v3;
+					array[p2] = v1;
+					array[p3] = v2;
+				}
+			} else {
+				if (v1 <= v3) {
+					// v2 <= v1 <= v3
+					array[p1] = v2;
+					array[p2] = v1;
+					//array[p3] = v3;
+				} else if (v2 <= v3) {
+					// v2 <= v3 <= v1
+					array[p1] = v2;
+					array[p2] = v3;
+					array[p3] = v1;
+				} else {
+					// v3 <= v2 <= v1
+					array[p1] = v3;
+					//array[p2] = v2;
+					array[p3] = v1;
+				}
+			}
+
+			// v4 ( = array[p4]) を挿入ソートっぽく指定位置に挿入
+			if (array[p2] <= v4) {
+				if (array[p3] <= v4) {
+					// array[p3] <= v4
+				} else {
+					// array[p2] <= v4 < array[p3];
+					array[p4] = array[p3];
+					array[p3] = v4;
+				}
+			} else {
+				if (array[p1] <= v4) {
+					// array[p1] <= v4 < array[p2];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = v4;
+				} else {
+					// v4 < array[p1] <= array[p2];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = array[p1];
+					array[p1] = v4;
+				}
+			}
+
+			// v5 ( = array[p5]) を挿入ソートっぽく指定位置に挿入
+			if (array[p3] <= v5) {
+				// array[p3] <= v5
+/* 4番目 と 5番目の位置関係は重要ではない(v3が中央に来さえすればよい)
+				if (array[p4] <= v5) {
+					// array[p3] <= array[4] <= v5
+				} else {
+					// array[p3] <= v5 < array[p4]
+					array[p5] = array[p4];
+					array[p4] = v5;
+				}
+*/
+			} else {
+				// v5 < array[p3]
+				if (array[p2] <= v5) {
+					// array[p2] <= v5 < array[p3]
+					array[p5] = array[p4];
+					array[p4] = array[p3];
+					array[p3] = v5;
+				} else {
+					// v5 < array[p2] <= array[p3]
+/* 1番目 と 2番目の位置関係は重要ではない(v3が中央に来さえすればよい)
+					if (array[p1] <= v5) {
+						// array[p1] <= v5 < array[p2] <= array[p3]
+						array[p5] = array[p4];
+						array[p4] = array[p3];
+						array[p3] = array[p2];
+						array[p2] = v5;
+					} else {
+						// v5 < array[p1] <= array[p2] <= array[p3]
+						array[p5] = array[p4];
+						array[p4] = array[p3];
+						array[p3] = array[p2];
+						array[p2] = array[p1];
+						array[p1] = v5;
+					}
+*/
+					array[p5] = array[p4];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = v5;
+				}
+			}
+		}
+
+
+		/*
+		 * この時点で、
+		 *   array[from](array[p1])には、5つの候補のうち、中央値以下の値が入っている。
+		 *   array[p3]には、中央値が入っている。
+		 *   array[to - 1](array[p5])には、5つの候補のうち、中央値以上の値が入っている。
+		 * そこで、
+		 *   array[from + 1]とarray[p2]の値を入れ替え
+		 *   array[from + 2]とarray[p3]の値を入れ替え
+		 *   array[to - 2]とarray[p4]の値を入れ替え
+		 * とすることで、パーティション操作のの範囲を狭くすることができる。
+		 **/
+
+		final int pivot = array[p3];	//	ピボット値
+
+		{
+			final int work = array[from + 1];
+			array[from + 1] = array[p2];
+			array[p2] = work;
+		}
+
+		//work = array[from + 2];
+		//array[from + 2] = array[p3];
+		//array[p3] = work;
+		array[p3] = array[from + 2];
+		array[from + 2] = pivot;
+
+		{
+			final int work = array[to - 2];
+			array[to - 2] = array[p4];
+			array[p4] = work;
+		}
+
+		//	パーティション操作
+		int curFrom = from + 3;			//	min index / 現在処理中位置の小さい方の位置
+		int curTo = to - 1 - 2;			//	max index / 現在処理中位置の大きい方の位置
+		while (true) {
+			if (array[curFrom] < pivot)
+				while (array[++curFrom] < pivot);
+			if (pivot < array[curTo])
+				while (pivot < array[--curTo]);
+			if (curFrom >= curTo)
+				break;
+			final int work = array[curFrom];
+			array[curFrom++] = array[curTo];
+			array[curTo--] = work;
+		};
+
+		//	ピボット値をパーティションの間に入れ替える（再起の処理の対象外にできる）
+		array[from + 2] = array[curTo];
+		array[curTo] = pivot;
+
+		//	小さいパーティション・大きいパーティションそれぞれで再起
+		sortImpl(array, from, curTo, depthRemainder - 1);
+		sortImpl(array, curFrom, to, depthRemainder - 1);
+	}
+
+	/**
+	 * mmSort (long array)
+	 *
+	 * long配列版。比較器を使わずにプリミティブ値を直接比較する。（ボクシングも比較器の呼び出しも発生しない）
+	 *
+	 * 基本的には「 ５つのメディアン」だが、５つの中央値を選択したときに、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に
+	 * 退避し、パーティション操作から除外することで高速化を図ったアルゴリズム
+	 * 呼び出し深さの許容値（2 * log2(要素数)）を超えた場合はヒープソートに切り替える。（イントロソート）
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 */
+	public static final void sortImpl(final long[] array, final int from, final int to)
+	{
+		final int range = to - from;
+		sortImpl(array, from, to, (int)(Math.log(Math.max(range, 1)) / Math.log(2.0) * 2));
+	}
+
+	/**
+	 * mmSort (long array)
+	 *
+	 * long配列版。比較器を使わずにプリミティブ値を直接比較する。（ボクシングも比較器の呼び出しも発生しない）
+	 *
+	 * 基本的には「 ５つのメディアン」だが、５つの中央値を選択したときに、小さい値２つを配列の先頭側に、大きい２つを配列の最後側に
+	 * 退避し、パーティション操作から除外することで高速化を図ったアルゴリズム
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 */
+	public static final void sortImpl(final long[] array, final int from, final int to, final int depthRemainder)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		//	ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range < ALGORITHM_THRESHOLD) {
+			InsertionSort.sortImpl(array, from, to);
+			return;
+		}
+
+		// 呼び出し深さが限度を超えたら（最悪ケースの入力）ヒープソートに切り替え
+		if (depthRemainder < 0) {
+			HeapSort.sortImpl(array, from, to);
+			return;
+		}
+
+		final int p1 = from;
+		final int p5 = to - 1;
+		final int p3 = p1 + ((p5 - p1) >>> 1);
+		final int p2 = p1 + ((p3 - p1) >>> 1);
+		final int p4 = p3 + ((p5 - p3) >>> 1);
+
+		{
+			final long v1 = array[p1];
+			final long v2 = array[p2];
+			final long v3 = array[p3];
+			final long v4 = array[p4];
+			final long v5 = array[p5];
+			//	まず、先頭３つのソート
+			if (v1 <= v2) {
+				if (v2 <= v3) {
+					// v1 <= v2 <= v3
+					//array[p1] = v1;
+					//array[p2] = v2;
+					//array[p3] = v3;
+				} else if (v1 <= v3) {
+					// v1 <= v3 <= v2
+					//array[p1] = v1;
+					array[p2] = v3;
+					array[p3] = v2;
+				} else {
+					// v3 <= v1 <= v2
+					array[p1] = v3;
+					array[p2] = v1;
+					array[p3] = v2;
+				}
+			} else {
+				if (v1 <= v3) {
+					// v2 <= v1 <= v3
+					array[p1] = v2;
+					array[p2] = v1;
+					//array[p3] = v3;
+				} else if (v2 <= v3) {
+					// v2 <= v3 <= v1
+					array[p1] = v2;
+					array[p2] = v3;
+					array[p3] = v1;
+				} else {
+					// v3 <= v2 <= v1
+					array[p1] = v3;
+					//array[p2] = v2;
+					array[p3] = v1;
+				}
+			}
+
+			// v4 ( = array[p4]) を挿入ソートっぽく指定位置に挿入
+			if (array[p2] <= v4) {
+				if (array[p3] <= v4) {
+					// array[p3] <= v4
+				} else {
+					// array[p2] <= v4 < array[p3];
+					array[p4] = array[p3];
+					array[p3] = v4;
+				}
+			} else {
+				if (array[p1] <= v4) {
+					// array[p1] <= v4 < array[p2];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = v4;
+				} else {
+					// v4 < array[p1] <= array[p2];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = array[p1];
+					array[p1] = v4;
+				}
+			}
+
+			// v5 ( = array[p5]) を挿入ソートっぽく指定位置に挿入
+			if (array[p3] <= v5) {
+				// array[p3] <= v5
+/* 4番目 と 5番目の位置関係は重要ではない(v3が中央に来さえすればよい)
+				if (array[p4] <= v5) {
+					// array[p3] <= array[4] <= v5
+				} else {
+					// array[p3] <= v5 < array[p4]
+					array[p5] = array[p4];
+					array[p4] = v5;
+				}
+*/
+			} else {
+				// v5 < array[p3]
+				if (array[p2] <= v5) {
+					// array[p2] <= v5 < array[p3]
+					array[p5] = array[p4];
+					array[p4] = array[p3];
+					array[p3] = v5;
+				} else {
+					// v5 < array[p2] <= array[p3]
+/* 1番目 と 2番目の位置関係は重要ではない(v3が中央に来さえすればよい)
+					if (array[p1] <= v5) {
+						// array[p1] <= v5 < array[p2] <= array[p3]
+						array[p5] = array[p4];
+						array[p4] = array[p3];
+						array[p3] = array[p2];
+						array[p2] = v5;
+					} else {
+						// v5 < array[p1] <= array[p2] <= array[p3]
+						array[p5] = array[p4];
+						array[p4] = array[p3];
+						array[p3] = array[p2];
+						array[p2] = array[p1];
+						array[p1] = v5;
+					}
+*/
+					array[p5] = array[p4];
+					array[p4] = array[p3];
+					array[p3] = array[p2];
+					array[p2] = v5;
+				}
+			}
+		}
+
+
+		/*
+		 * この時点で、
+		 *   array[from](array[p1])には、5つの候補のうち、中央値以下の値が入っている。
+		 *   array[p3]には、中央値が入っている。
+		 *   array[to - 1](array[p5])には、5つの候補のうち、中央値以上の値が入っている。
+		 * そこで、
+		 *   array[from + 1]とarray[p2]の値を入れ替え
+		 *   array[from + 2]とarray[p3]の値を入れ替え
+		 *   array[to - 2]とarray[p4]の値を入れ替え
+		 * とすることで、パーティション操作のの範囲を狭くすることができる。
+		 **/
+
+		final long pivot = array[p3];	//	ピボット値
+
+		{
+			final long work = array[from + 1];
+			array[from + 1] = array[p2];
+			array[p2] = work;
+		}
+
+		//work = array[from + 2];
+		//array[from + 2] = array[p3];
+		//array[p3] = work;
+		array[p3] = array[from + 2];
+		array[from + 2] = pivot;
+
+		{
+			final long work = array[to - 2];
+			array[to - 2] = array[p4];
+			array[p4] = work;
+		}
+
+		//	パーティション操作
+		int curFrom = from + 3;			//	min index / 現在処理中位置の小さい方の位置
+		int curTo = to - 1 - 2;			//	max index / 現在処理中位置の大きい方の位置
+		while (true) {
+			if (array[curFrom] < pivot)
+				while (array[++curFrom] < pivot);
+			if (pivot < array[curTo])
+				while (pivot < array[--curTo]);
+			if (curFrom >= curTo)
+				break;
+			final long work = array[curFrom];
+			array[curFrom++] = array[curTo];
+			array[curTo--] = work;
+		};
+
+		//	ピボット値をパーティションの間に入れ替える（再起の処理の対象外にできる）
+		array[from + 2] = array[curTo];
+		array[curTo] = pivot;
+
+		//	小さいパーティション・大きいパーティションそれぞれで再起
+		sortImpl(array, from, curTo, depthRemainder - 1);
+		sortImpl(array, curFrom, to, depthRemainder - 1);
+	}
+
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public void sort(final int[] array, final int from, final int to)
+	{
+		sortImpl(array, from, to);
+	}
+
+	@Override
+	public void sort(final long[] array, final int from, final int to)
+	{
+		sortImpl(array, from, to);
 	}
 
 	@Override
@@ -12,6 +12,8 @@
 package mmsort;
 
 import java.util.Comparator;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 public class MmsSort implements ISortAlgorithm {
 	// Insersion Sortなどに切り替える要素数
@@ -162,6 +164,27 @@ public class MmsSort implements ISortAlgorithm {
 	 * @param comparator comparator of array element / 比較器
 	 */
 	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator)
+	{
+		partialSortImpl(array, from, to, to, workArray, depthRemainder, comparator);
+	}
+
+	/**
+	 * mmsSort (partial sort)
+	 *
+	 * 部分ソート（安定ソート）
+	 * ソート範囲の小さい方から (kTo - from) 個の要素を array[from] ～ array[kTo - 1] に昇順に並べる。残りの要素の並びは不定。
+	 * mmsSort と同じ安定なパーティション操作を行い、[from, kTo) と重なるパーティションだけを再帰的にソートする。
+	 * kTo = to なら通常の mmsSort となる。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param kTo index of last element to be sorted (exclusive) / 部分ソートの終了位置 + 1
+	 * @param workArray work array / 作業用配列
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void partialSortImpl(final T[] array, final int from, final int to, final int kTo, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator)
 	{
 		final int range = to - from;		//	ソート範囲サイズ
 
@@ -274,17 +297,19 @@ public class MmsSort implements ISortAlgorithm {
 			System.arraycopy(workArray, 0, array, idxTo, idx2W);
 			idxTo += idx2W;
 			// ピボット１より大きく、ピボット２より小さいオブジェクト(pivot1 < value < pivot2)をソート
-			sortImpl(array, idx1A, idx1A + idx2W, workArray, depthRemainder - 1, comparator);
+			if (idx1A < kTo)
+				partialSortImpl(array, idx1A, idx1A + idx2W, kTo, workArray, depthRemainder - 1, comparator);
 
 			// ピボット２以上のオブジェクト(pivot2 ≦ value)を workArray から array へ書き戻し
 			for (int idx = range - 1; idx > idx3W; idx--) {
 				array[idxTo++] = workArray[idx];
 			}
 			// ピボット２以上のオブジェクト(pivot2 ≦ value)をソート
-			sortImpl(array, idx1A + idx2W, to, workArray, depthRemainder - 1, comparator);
+			if (idx1A + idx2W < kTo)
+				partialSortImpl(array, idx1A + idx2W, to, kTo, workArray, depthRemainder - 1, comparator);
 
 			// ピボット１以下のオブジェクト(value ≦ pivot2)は最後にソート（CPUキャッシュに残っている可能性が低いので…。）
-			sortImpl(array, from, idx1A, workArray, depthRemainder - 1, comparator);
+			partialSortImpl(array, from, idx1A, kTo, workArray, depthRemainder - 1, comparator);
 		} else {
 			// pivot1 ＝ pivot2 のケース
 			// 3 way partition ベースの処理
@@ -319,21 +344,47 @@ public class MmsSort implements ISortAlgorithm {
 			}
 
 			// ピボット値より大きいオブジェクト(pivot1 < value)を先にソート（直前に配列コピーを行っており、CPUキャッシュにヒットしやすいため）
-			sortImpl(array, idx1A + idx2W, to,    workArray, depthRemainder - 1, comparator);
+			if (idx1A + idx2W < kTo)
+				partialSortImpl(array, idx1A + idx2W, to, kTo, workArray, depthRemainder - 1, comparator);
 			// ピボット値より小さいオブジェクト(value < pivot1)をあとにソート（CPUキャッシュヒット率がたぶん低い）
-			sortImpl(array, from,          idx1A, workArray, depthRemainder - 1, comparator);
+			partialSortImpl(array, from, idx1A, kTo, workArray, depthRemainder - 1, comparator);
 		}
 	}
 
+	/**
+	 * mmsSort
+	 *
+	 * 作業用一時領域は WorkBufferPool から取得する。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 */
 	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		// 作業用配列
+		final T[] workArray = WorkBufferPool.acquireBuffer(to - from);
+
+		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+	/**
+	 * mmsSort (呼び出し元が作業用一時領域を指定)
+	 *
+	 * 作業用一時領域はソート対象の範囲サイズ以上が必要
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final Comparator<? super T> comparator)
 	{
 		// 要素数
 		final int range = to - from;
 
-		// 作業用配列
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[range];
-
 		// 呼び出し深さの許容値
 		// 経験的にDual-pivot quicksortで最大呼び出し深さは、「log3(配列サイズ/他のアルゴリズムに切り替えるサイズ) * 2.2 」程度に近似できると考えられる。（乱数データの場合）
 		// さらに1.2倍して、2を足すことで、余裕を持たせている。
@@ -344,6 +395,767 @@ public class MmsSort implements ISortAlgorithm {
 		sortImpl(array, from, to, workArray, depthRemainder, comparator);
 	}
 
+	/**
+	 * mmsSort (partial sort)
+	 *
+	 * 部分ソート（安定ソート）
+	 * ソート範囲の小さい方から k 個の要素を array[from] ～ array[from + k - 1] に昇順に並べる。残りの要素の並びは不定。
+	 * k がソート範囲サイズに比べて十分小さい場合、平均の比較回数は O(n + k log k) 程度になる。
+	 * 作業用一時領域は WorkBufferPool から取得する。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param k number of elements to be sorted / 並べる要素数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void partialSortImpl(final T[] array, final int from, final int to, final int k, final Comparator<? super T> comparator)
+	{
+		// 要素数
+		final int range = to - from;
+		if (k <= 0 || range <= 1)
+			return;
+
+		// 作業用配列
+		final T[] workArray = WorkBufferPool.acquireBuffer(range);
+
+		// 呼び出し深さの許容値（sortImpl と同じ）
+		final int depthRemainder = (int)(Math.log(range / ALGORITHM_THRESHOLD) / Math.log(3.0) * 2.2 * 1.2 + 2);
+
+		// ソート本体呼び出し
+		partialSortImpl(array, from, to, from + Math.min(k, range), workArray, depthRemainder, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+	/**
+	 * mmsSort (argsort)
+	 *
+	 * 行番号などの int 値の配列を、比較器（行番号の比較）でソートする。（安定ソート）
+	 * 列指向のデータのように、オブジェクトを並べ替える代わりに並び順（行番号の順列）を求める場合に使用する。
+	 * 作業用一時領域も int 配列なので、１要素あたり４バイトで済む。
+	 *
+	 * @param array sort target (row ids) / ソート対象（行番号）
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work array / 作業用配列
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to, final int[] workArray, final int depthRemainder, final IIntComparator comparator)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		// ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range <= 10) {
+			//sort5(array, from, to, comparator);
+			InsertionSort.sortImpl(array, from, to, comparator);
+			//BinInsertionSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+/*
+		if (range < ALGORITHM_THRESHOLD) {
+			InsertionSort.sortImpl(array, from, to, comparator);
+			//BinInsertionSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+*/
+		// 呼び出し深さが限度を超えたら別（MergeSortベース）のアルゴリズムに切り替え
+		if (depthRemainder < 0) {
+			mergeSortImpl(array, from, to, workArray, comparator);
+			return;
+		}
+
+		int pivot1;	//	ピボット１
+		int pivot2;	//	ピボット２
+		if (range >= 300) {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 12;
+			// ピボット候補値の添え字
+			final int center = from + (range >> 1);
+			workArray[0]  = array[center - gap * 5];
+			workArray[1]  = array[center - (gap << 2)];
+			workArray[2]  = array[center - gap * 3];
+			workArray[3]  = array[center - (gap << 1)];
+			workArray[4]  = array[center - gap];
+			workArray[5]  = array[center];
+			workArray[6]  = array[center + gap];
+			workArray[7]  = array[center + (gap << 1)];
+			workArray[8]  = array[center + gap * 3];
+			workArray[9]  = array[center + (gap << 2)];
+			workArray[10] = array[center + gap * 5];
+			InsertionSort.sortImpl(workArray, 0, 11, comparator);
+
+			// 3等分ではなく、2:1:1位で分割されるようにpivot1, pivot2を選択する。（そのほうが比較回数が少なくなり、速度も速くなる）
+			pivot1 = workArray[5];
+			pivot2 = workArray[8];
+		} else if (range >= 150) {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 12;
+			// ピボット候補値の添え字
+			final int center = from + (range >> 1);
+			workArray[0] = array[center - gap * 3];
+			workArray[1] = array[center - (gap << 1)];
+			workArray[2] = array[center - gap];
+			workArray[3] = array[center];
+			workArray[4] = array[center + gap];
+			workArray[5] = array[center + (gap << 1)];
+			workArray[6] = array[center + gap * 3];
+			InsertionSort.sortImpl(workArray, 0, 7, comparator);
+
+			// 3等分ではなく、2:1:1位で分割されるようにpivot1, pivot2を選択する。（そのほうが比較回数が少なくなり、速度も速くなる）
+			pivot1 = workArray[3];
+			pivot2 = workArray[5];
+		} else {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 6;
+			// ピボット候補値の添え字
+			final int p2 = from + (range >> 1);
+			final int p3 = p2 + gap;
+			final int p4 = p3 + gap;
+			final int p1 = p2 - gap;
+			final int p0 = p1 - gap;
+			workArray[0] = array[p0];
+			workArray[1] = array[p1];
+			workArray[2] = array[p2];
+			workArray[3] = array[p3];
+			workArray[4] = array[p4];
+			InsertionSort.sortImpl(workArray, 0, 5, comparator);
+
+			// 3等分ではなく、2:1:1位で分割されるようにpivot1, pivot2を選択する。（そのほうが比較回数が少なくなり、速度も速くなる）
+			pivot1 = workArray[2];
+			pivot2 = workArray[3];
+		}
+
+		if (comparator.compare(pivot1, pivot2) != 0) {
+			// pivot1 ≠ pivot2 のケース
+			// dual pivot quick sort ベースの処理
+			int idx1A = from;		//	value <= pivot1 の要素へのインデックス(arrayへの配置用)
+			int idx2W = 0;			//	pivot1 < value < pivot2の要素へのインデックス(workArrayへの配置用)
+			int idx3W = range - 1;	//	pivot2 <= value へのインデックス(workArrayへの配置用)
+
+			// 先頭から後方に向かってパーティション操作を行う。（一般的なクイックソートのように前後からではない）
+			//   ピボット１以下の値は配列の前方に詰めていく
+			//   ピボット２以上の値は作業領域の後方に詰めていく
+			//   ピボット１より大きくピボット２より小さい値は、作業領域の前方に詰めていく
+			for (int idx = from; idx < to; idx++) {
+				final int value = array[idx];
+				if (comparator.compare(value, pivot1) <= 0) {
+					array[idx1A++] = value;		// TODO ここで余計な代入が発生するケースがあるが、下手に最適化すると逆に遅くなってしまう…。
+				} else if (comparator.compare(value, pivot2) >= 0) {
+					workArray[idx3W--] = value;
+				} else {
+					workArray[idx2W++] = value;
+				}
+			}
+
+			int idxTo = idx1A;
+			// ピボット１より大きく、ピボット２より小さいオブジェクト (pivot1 < value < pivot2) を workArray から array へ書き戻し
+			System.arraycopy(workArray, 0, array, idxTo, idx2W);
+			idxTo += idx2W;
+			// ピボット１より大きく、ピボット２より小さいオブジェクト(pivot1 < value < pivot2)をソート
+			sortImpl(array, idx1A, idx1A + idx2W, workArray, depthRemainder - 1, comparator);
+
+			// ピボット２以上のオブジェクト(pivot2 ≦ value)を workArray から array へ書き戻し
+			for (int idx = range - 1; idx > idx3W; idx--) {
+				array[idxTo++] = workArray[idx];
+			}
+			// ピボット２以上のオブジェクト(pivot2 ≦ value)をソート
+			sortImpl(array, idx1A + idx2W, to, workArray, depthRemainder - 1, comparator);
+
+			// ピボット１以下のオブジェクト(value ≦ pivot2)は最後にソート（CPUキャッシュに残っている可能性が低いので…。）
+			sortImpl(array, from, idx1A, workArray, depthRemainder - 1, comparator);
+		} else {
+			// pivot1 ＝ pivot2 のケース
+			// 3 way partition ベースの処理
+			int idx1A = from;		// value < pivot の要素へのインデックス(arrayへの配置用)
+			int idx2W = 0;			// value == pivot の要素へのインデックス(workArrayへの配置用)
+			int idx3W = range - 1;	// pivot < value へのインデックス(workArrayへの配置用)
+
+			// 先頭から後方に向かってパーティション操作を行う。（一般的なクイックソートのように前後からではない）
+			//   ピボット値より大きい値は配列の前方に詰めていく
+			//   ピボット値より小さい値は作業領域の後方に詰めていく
+			//   ピボット値と同じキー値の値は、作業領域の前方に詰めていく
+			for (int idx = from; idx < to; idx++) {
+				final int value = array[idx];
+				final int compareVal = comparator.compare(value, pivot1);
+				if (compareVal < 0) {
+					array[idx1A++] = value;
+				} else if (compareVal > 0) {
+					workArray[idx3W--] = value;
+				} else {
+					workArray[idx2W++] = value;
+				}
+			}
+
+			int idxTo = idx1A;
+			// ピボット値と同じキーのオブジェクト(value = pivot1)を workArray から array へ書き戻し
+			System.arraycopy(workArray, 0, array, idxTo, idx2W);
+			idxTo += idx2W;
+
+			// ピボット値よりも大きいオブジェクト(pivot1 < value)を workArray から array へ書き戻し
+			for (int idx = range - 1; idx > idx3W; idx--) {
+				array[idxTo++] = workArray[idx];
+			}
+
+			// ピボット値より大きいオブジェクト(pivot1 < value)を先にソート（直前に配列コピーを行っており、CPUキャッシュにヒットしやすいため）
+			sortImpl(array, idx1A + idx2W, to, workArray, depthRemainder - 1, comparator);
+			// ピボット値より小さいオブジェクト(value < pivot1)をあとにソート（CPUキャッシュヒット率がたぶん低い）
+			sortImpl(array, from, idx1A, workArray, depthRemainder - 1, comparator);
+		}
+	}
+
+	/**
+	 * Merge sort (argsort)
+	 *
+	 * 行番号の配列に対するマージソート（呼び出し深さが限度を超えたときの切り替え先）
+	 *
+	 * @param array sort target (row ids) / ソート対象（行番号）
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work array / 作業用配列
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 */
+	public static final void mergeSortImpl(final int[] array, final int from, final int to, final int[] workArray, final IIntComparator comparator)
+	{
+		final int range = to - from;
+		if (range <= 10) {
+			InsertionSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+		final int mid = from + (range >> 1);
+		mergeSortImpl(array, from, mid, workArray, comparator);
+		mergeSortImpl(array, mid, to, workArray, comparator);
+
+		// ソート済み配列の場合の高速化
+		if (comparator.compare(array[mid - 1], array[mid]) <= 0)
+			return;
+
+		// 前半を作業領域に退避してからマージ
+		System.arraycopy(array, from, workArray, 0, mid - from);
+		int idx = from;
+		int idx1 = 0;
+		final int idx1To = mid - from;
+		int idx2 = mid;
+		while (idx1 < idx1To && idx2 < to) {
+			if (comparator.compare(workArray[idx1], array[idx2]) <= 0)
+				array[idx++] = workArray[idx1++];
+			else
+				array[idx++] = array[idx2++];
+		}
+		System.arraycopy(workArray, idx1, array, idx, idx1To - idx1);
+	}
+
+	/**
+	 * mmsSort (argsort)
+	 *
+	 * 行番号の配列を比較器でソートする。（安定ソート）
+	 * 作業用一時領域（int 配列）はソート対象の範囲サイズ以上が必要
+	 * @param array sort target (row ids) / ソート対象（行番号）
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 */
+	public static final void sortImpl(final int[] array, final int from, final int to, final int[] workArray, final IIntComparator comparator)
+	{
+		// 呼び出し深さの許容値（sortImpl と同じ）
+		final int depthRemainder = (int)(Math.log((to - from) / ALGORITHM_THRESHOLD) / Math.log(3.0) * 2.2 * 1.2 + 2);
+
+		// ソート本体呼び出し
+		sortImpl(array, from, to, workArray, depthRemainder, comparator);
+	}
+
+	/**
+	 * mmsSort (argsort)
+	 *
+	 * 0 ～ size - 1 の行番号を比較器の順に並べた順列を返す。（安定ソート。比較器で等しい行は行番号の昇順になる）
+	 *
+	 * @param size number of rows / 行数
+	 * @param comparator comparator of row ids / 行番号の比較器
+	 * @return sorted row ids / ソートした行番号の配列
+	 */
+	public static final int[] argsort(final int size, final IIntComparator comparator)
+	{
+		final int[] rows = new int[size];
+		for (int idx = 0; idx < size; idx++)
+			rows[idx] = idx;
+		sortImpl(rows, 0, size, new int[size], comparator);
+		return rows;
+	}
+
+
+	/**
+	 * Merge sort (int key array and value array)
+	 *
+	 * キー配列と値配列の組に対するマージソート（呼び出し深さが限度を超えたときの切り替え先）
+	 *
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workKeys work array of keys / キーの作業用配列
+	 * @param workValues work array of values / 値の作業用配列
+	 */
+	public static final <T> void mergeSortImpl(final int[] keys, final T[] values, final int from, final int to, final int[] workKeys, final T[] workValues)
+	{
+		final int range = to - from;
+		if (range <= 10) {
+			InsertionSort.sortImpl(keys, values, from, to);
+			return;
+		}
+		final int mid = from + (range >> 1);
+		mergeSortImpl(keys, values, from, mid, workKeys, workValues);
+		mergeSortImpl(keys, values, mid, to, workKeys, workValues);
+
+		// ソート済み配列の場合の高速化
+		if (keys[mid - 1] <= keys[mid])
+			return;
+
+		// 前半を作業領域に退避してからマージ
+		System.arraycopy(keys, from, workKeys, 0, mid - from);
+		System.arraycopy(values, from, workValues, 0, mid - from);
+		int idx = from;
+		int idx1 = 0;
+		final int idx1To = mid - from;
+		int idx2 = mid;
+		while (idx1 < idx1To && idx2 < to) {
+			if (workKeys[idx1] <= keys[idx2]) {
+				keys[idx] = workKeys[idx1];
+				values[idx++] = workValues[idx1++];
+			} else {
+				keys[idx] = keys[idx2];
+				values[idx++] = values[idx2++];
+			}
+		}
+		System.arraycopy(workKeys, idx1, keys, idx, idx1To - idx1);
+		System.arraycopy(workValues, idx1, values, idx, idx1To - idx1);
+	}
+
+	/**
+	 * mmsSort (int key array and value array)
+	 *
+	 * Stable Dual-pivot Quicksort
+	 *
+	 * キー配列(int)の値で比較し、値配列の要素をキーと同じように移動する mmsSort
+	 * 比較器の呼び出しを行わず、パーティション操作ではプリミティブ値の比較のみを行う。
+	 *
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workKeys work array of keys / キーの作業用配列
+	 * @param workValues work array of values / 値の作業用配列
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 */
+	public static final <T> void sortImpl(final int[] keys, final T[] values, final int from, final int to, final int[] workKeys, final T[] workValues, final int depthRemainder)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		// ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range <= 10) {
+			InsertionSort.sortImpl(keys, values, from, to);
+			return;
+		}
+
+		// 呼び出し深さが限度を超えたら別（MergeSortベース）のアルゴリズムに切り替え
+		if (depthRemainder < 0) {
+			mergeSortImpl(keys, values, from, to, workKeys, workValues);
+			return;
+		}
+
+		final int pivot1;	//	ピボット１
+		final int pivot2;	//	ピボット２
+		if (range >= 150) {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 12;
+			// ピボット候補値の添え字
+			final int center = from + (range >> 1);
+			workKeys[0] = keys[center - gap * 5];
+			workKeys[1] = keys[center - (gap << 2)];
+			workKeys[2] = keys[center - gap * 3];
+			workKeys[3] = keys[center - (gap << 1)];
+			workKeys[4] = keys[center - gap];
+			workKeys[5] = keys[center];
+			workKeys[6] = keys[center + gap];
+			workKeys[7] = keys[center + (gap << 1)];
+			workKeys[8] = keys[center + gap * 3];
+			workKeys[9] = keys[center + (gap << 2)];
+			workKeys[10] = keys[center + gap * 5];
+			InsertionSort.sortImpl(workKeys, 0, 11);
+
+			// 3等分ではなく、2:1:1位で分割されるようにpivot1, pivot2を選択する。（そのほうが比較回数が少なくなり、速度も速くなる）
+			pivot1 = workKeys[5];
+			pivot2 = workKeys[8];
+		} else {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 6;
+			// ピボット候補値の添え字
+			final int p2 = from + (range >> 1);
+			workKeys[0] = keys[p2 - (gap << 1)];
+			workKeys[1] = keys[p2 - gap];
+			workKeys[2] = keys[p2];
+			workKeys[3] = keys[p2 + gap];
+			workKeys[4] = keys[p2 + (gap << 1)];
+			InsertionSort.sortImpl(workKeys, 0, 5);
+
+			pivot1 = workKeys[2];
+			pivot2 = workKeys[3];
+		}
+
+		if (pivot1 != pivot2) {
+			// pivot1 ≠ pivot2 のケース
+			// dual pivot quick sort ベースの処理
+			int idx1A = from;		//	key <= pivot1 の要素へのインデックス(keys, valuesへの配置用)
+			int idx2W = 0;			//	pivot1 < key < pivot2の要素へのインデックス(workKeys, workValuesへの配置用)
+			int idx3W = range - 1;	//	pivot2 <= key へのインデックス(workKeys, workValuesへの配置用)
+
+			for (int idx = from; idx < to; idx++) {
+				final int key = keys[idx];
+				if (key <= pivot1) {
+					keys[idx1A] = key;
+					values[idx1A++] = values[idx];
+				} else if (key >= pivot2) {
+					workKeys[idx3W] = key;
+					workValues[idx3W--] = values[idx];
+				} else {
+					workKeys[idx2W] = key;
+					workValues[idx2W++] = values[idx];
+				}
+			}
+
+			int idxTo = idx1A;
+			// ピボット１より大きく、ピボット２より小さい要素を書き戻し
+			System.arraycopy(workKeys, 0, keys, idxTo, idx2W);
+			System.arraycopy(workValues, 0, values, idxTo, idx2W);
+			idxTo += idx2W;
+			sortImpl(keys, values, idx1A, idx1A + idx2W, workKeys, workValues, depthRemainder - 1);
+
+			// ピボット２以上の要素を書き戻し（逆順に格納されているので、逆順に読み出すことで安定性を保つ）
+			for (int idx = range - 1; idx > idx3W; idx--) {
+				keys[idxTo] = workKeys[idx];
+				values[idxTo++] = workValues[idx];
+			}
+			sortImpl(keys, values, idx1A + idx2W, to, workKeys, workValues, depthRemainder - 1);
+
+			// ピボット１以下の要素は最後にソート
+			sortImpl(keys, values, from, idx1A, workKeys, workValues, depthRemainder - 1);
+		} else {
+			// pivot1 ＝ pivot2 のケース
+			// 3 way partition ベースの処理
+			int idx1A = from;		// key < pivot の要素へのインデックス(keys, valuesへの配置用)
+			int idx2W = 0;			// key == pivot の要素へのインデックス(workKeys, workValuesへの配置用)
+			int idx3W = range - 1;	// pivot < key へのインデックス(workKeys, workValuesへの配置用)
+
+			for (int idx = from; idx < to; idx++) {
+				final int key = keys[idx];
+				if (key < pivot1) {
+					keys[idx1A] = key;
+					values[idx1A++] = values[idx];
+				} else if (key > pivot1) {
+					workKeys[idx3W] = key;
+					workValues[idx3W--] = values[idx];
+				} else {
+					workKeys[idx2W] = key;
+					workValues[idx2W++] = values[idx];
+				}
+			}
+
+			int idxTo = idx1A;
+			// ピボット値と同じキーの要素を書き戻し
+			System.arraycopy(workKeys, 0, keys, idxTo, idx2W);
+			System.arraycopy(workValues, 0, values, idxTo, idx2W);
+			idxTo += idx2W;
+
+			// ピボット値よりも大きい要素を書き戻し
+			for (int idx = range - 1; idx > idx3W; idx--) {
+				keys[idxTo] = workKeys[idx];
+				values[idxTo++] = workValues[idx];
+			}
+
+			sortImpl(keys, values, idx1A + idx2W, to,    workKeys, workValues, depthRemainder - 1);
+			sortImpl(keys, values, from,          idx1A, workKeys, workValues, depthRemainder - 1);
+		}
+	}
+
+	/**
+	 * mmsSort (int key extractor)
+	 *
+	 * キー抽出関数(int)を用いる mmsSort（安定ソート）
+	 * 比較器版の sortImpl とラムダ式の型推論で曖昧にならないよう、別名のメソッドとしている。
+	 * 各要素のキーを一度だけ取り出してプリミティブ配列に格納し、キー配列と参照の配列の組をソートしてから、元の配列に書き戻す。
+	 * 比較器の呼び出し（メガモーフィックな仮想呼び出し）やキー値を得るためのポインタ参照をパーティション操作から取り除く。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param keyExtractor key extractor of array element / キー抽出関数
+	 */
+	public static final <T> void sortByIntKey(final T[] array, final int from, final int to, final ToIntFunction<? super T> keyExtractor)
+	{
+		// 要素数
+		final int range = to - from;
+
+		// キー配列と値配列（参照）
+		final int[] keys = new int[range];
+		final T[] values = WorkBufferPool.acquireBuffer(range);
+		for (int idx = 0; idx < range; idx++) {
+			final T value = array[from + idx];
+			keys[idx] = keyExtractor.applyAsInt(value);
+			values[idx] = value;
+		}
+
+		// 作業用配列
+		final int[] workKeys = new int[range];
+		final T[] workValues = WorkBufferPool.acquireBuffer(range);
+
+		// 呼び出し深さの許容値
+		final int depthRemainder = (int)(Math.log(range / ALGORITHM_THRESHOLD) / Math.log(3.0) * 2.2 * 1.2 + 2);
+
+		// ソート本体呼び出し
+		sortImpl(keys, values, 0, range, workKeys, workValues, depthRemainder);
+
+		// ソート結果を書き戻し
+		System.arraycopy(values, 0, array, from, range);
+
+		WorkBufferPool.releaseBuffer(values);
+		WorkBufferPool.releaseBuffer(workValues);
+	}
+
+	/**
+	 * Merge sort (long key array and value array)
+	 *
+	 * キー配列と値配列の組に対するマージソート（呼び出し深さが限度を超えたときの切り替え先）
+	 *
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workKeys work array of keys / キーの作業用配列
+	 * @param workValues work array of values / 値の作業用配列
+	 */
+	public static final <T> void mergeSortImpl(final long[] keys, final T[] values, final int from, final int to, final long[] workKeys, final T[] workValues)
+	{
+		final int range = to - from;
+		if (range <= 10) {
+			InsertionSort.sortImpl(keys, values, from, to);
+			return;
+		}
+		final int mid = from + (range >> 1);
+		mergeSortImpl(keys, values, from, mid, workKeys, workValues);
+		mergeSortImpl(keys, values, mid, to, workKeys, workValues);
+
+		// ソート済み配列の場合の高速化
+		if (keys[mid - 1] <= keys[mid])
+			return;
+
+		// 前半を作業領域に退避してからマージ
+		System.arraycopy(keys, from, workKeys, 0, mid - from);
+		System.arraycopy(values, from, workValues, 0, mid - from);
+		int idx = from;
+		int idx1 = 0;
+		final int idx1To = mid - from;
+		int idx2 = mid;
+		while (idx1 < idx1To && idx2 < to) {
+			if (workKeys[idx1] <= keys[idx2]) {
+				keys[idx] = workKeys[idx1];
+				values[idx++] = workValues[idx1++];
+			} else {
+				keys[idx] = keys[idx2];
+				values[idx++] = values[idx2++];
+			}
+		}
+		System.arraycopy(workKeys, idx1, keys, idx, idx1To - idx1);
+		System.arraycopy(workValues, idx1, values, idx, idx1To - idx1);
+	}
+
+	/**
+	 * mmsSort (long key array and value array)
+	 *
+	 * Stable Dual-pivot Quicksort
+	 *
+	 * キー配列(long)の値で比較し、値配列の要素をキーと同じように移動する mmsSort
+	 * 比較器の呼び出しを行わず、パーティション操作ではプリミティブ値の比較のみを行う。
+	 *
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workKeys work array of keys / キーの作業用配列
+	 * @param workValues work array of values / 値の作業用配列
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 */
+	public static final <T> void sortImpl(final long[] keys, final T[] values, final int from, final int to, final long[] workKeys, final T[] workValues, final int depthRemainder)
+	{
+		final int range = to - from;		//	ソート範囲サイズ
+
+		// ソート対象配列サイズが一定数以下のときは特別扱い
+		if (range <= 10) {
+			InsertionSort.sortImpl(keys, values, from, to);
+			return;
+		}
+
+		// 呼び出し深さが限度を超えたら別（MergeSortベース）のアルゴリズムに切り替え
+		if (depthRemainder < 0) {
+			mergeSortImpl(keys, values, from, to, workKeys, workValues);
+			return;
+		}
+
+		final long pivot1;	//	ピボット１
+		final long pivot2;	//	ピボット２
+		if (range >= 150) {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 12;
+			// ピボット候補値の添え字
+			final int center = from + (range >> 1);
+			workKeys[0] = keys[center - gap * 5];
+			workKeys[1] = keys[center - (gap << 2)];
+			workKeys[2] = keys[center - gap * 3];
+			workKeys[3] = keys[center - (gap << 1)];
+			workKeys[4] = keys[center - gap];
+			workKeys[5] = keys[center];
+			workKeys[6] = keys[center + gap];
+			workKeys[7] = keys[center + (gap << 1)];
+			workKeys[8] = keys[center + gap * 3];
+			workKeys[9] = keys[center + (gap << 2)];
+			workKeys[10] = keys[center + gap * 5];
+			InsertionSort.sortImpl(workKeys, 0, 11);
+
+			// 3等分ではなく、2:1:1位で分割されるようにpivot1, pivot2を選択する。（そのほうが比較回数が少なくなり、速度も速くなる）
+			pivot1 = workKeys[5];
+			pivot2 = workKeys[8];
+		} else {
+			// ピボット候補値の添え字の差分
+			final int gap = range / 6;
+			// ピボット候補値の添え字
+			final int p2 = from + (range >> 1);
+			workKeys[0] = keys[p2 - (gap << 1)];
+			workKeys[1] = keys[p2 - gap];
+			workKeys[2] = keys[p2];
+			workKeys[3] = keys[p2 + gap];
+			workKeys[4] = keys[p2 + (gap << 1)];
+			InsertionSort.sortImpl(workKeys, 0, 5);
+
+			pivot1 = workKeys[2];
+			pivot2 = workKeys[3];
+		}
+
+		if (pivot1 != pivot2) {
+			// pivot1 ≠ pivot2 のケース
+			// dual pivot quick sort ベースの処理
+			int idx1A = from;		//	key <= pivot1 の要素へのインデックス(keys, valuesへの配置用)
+			int idx2W = 0;			//	pivot1 < key < pivot2の要素へのインデックス(workKeys, workValuesへの配置用)
+			int idx3W = range - 1;	//	pivot2 <= key へのインデックス(workKeys, workValuesへの配置用)
+
+			for (int idx = from; idx < to; idx++) {
+				final long key = keys[idx];
+				if (key <= pivot1) {
+					keys[idx1A] = key;
+					values[idx1A++] = values[idx];
+				} else if (key >= pivot2) {
+					workKeys[idx3W] = key;
+					workValues[idx3W--] = values[idx];
+				} else {
+					workKeys[idx2W] = key;
+					workValues[idx2W++] = values[idx];
+				}
+			}
+
+			int idxTo = idx1A;
+			// ピボット１より大きく、ピボット２より小さい要素を書き戻し
+			System.arraycopy(workKeys, 0, keys, idxTo, idx2W);
+			System.arraycopy(workValues, 0, values, idxTo, idx2W);
+			idxTo += idx2W;
+			sortImpl(keys, values, idx1A, idx1A + idx2W, workKeys, workValues, depthRemainder - 1);
+
+			// ピボット２以上の要素を書き戻し（逆順に格納されているので、逆順に読み出すことで安定性を保つ）
+			for (int idx = range - 1; idx > idx3W; idx--) {
+				keys[idxTo] = workKeys[idx];
+				values[idxTo++] = workValues[idx];
+			}
+			sortImpl(keys, values, idx1A + idx2W, to, workKeys, workValues, depthRemainder - 1);
+
+			// ピボット１以下の要素は最後にソート
+			sortImpl(keys, values, from, idx1A, workKeys, workValues, depthRemainder - 1);
+		} else {
+			// pivot1 ＝ pivot2 のケース
+			// 3 way partition ベースの処理
+			int idx1A = from;		// key < pivot の要素へのインデックス(keys, valuesへの配置用)
+			int idx2W = 0;			// key == pivot の要素へのインデックス(workKeys, workValuesへの配置用)
+			int idx3W = range - 1;	// pivot < key へのインデックス(workKeys, workValuesへの配置用)
+
+			for (int idx = from; idx < to; idx++) {
+				final long key = keys[idx];
+				if (key < pivot1) {
+					keys[idx1A] = key;
+					values[idx1A++] = values[idx];
+				} else if (key > pivot1) {
+					workKeys[idx3W] = key;
+					workValues[idx3W--] = values[idx];
+				} else {
+					workKeys[idx2W] = key;
+					workValues[idx2W++] = values[idx];
+				}
+			}
+
+			int idxTo = idx1A;
+			// ピボット値と同じキーの要素を書き戻し
+			System.arraycopy(workKeys, 0, keys, idxTo, idx2W);
+			System.arraycopy(workValues, 0, values, idxTo, idx2W);
+			idxTo += idx2W;
+
+			// ピボット値よりも大きい要素を書き戻し
+			for (int idx = range - 1; idx > idx3W; idx--) {
+				keys[idxTo] = workKeys[idx];
+				values[idxTo++] = workValues[idx];
+			}
+
+			sortImpl(keys, values, idx1A + idx2W, to,    workKeys, workValues, depthRemainder - 1);
+			sortImpl(keys, values, from,          idx1A, workKeys, workValues, depthRemainder - 1);
+		}
+	}
+
+	/**
+	 * mmsSort (long key extractor)
+	 *
+	 * キー抽出関数(long)を用いる mmsSort（安定ソート）
+	 * 各要素のキーを一度だけ取り出してプリミティブ配列に格納し、キー配列と参照の配列の組をソートしてから、元の配列に書き戻す。
+	 * 比較器の呼び出し（メガモーフィックな仮想呼び出し）やキー値を得るためのポインタ参照をパーティション操作から取り除く。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param keyExtractor key extractor of array element / キー抽出関数
+	 */
+	public static final <T> void sortByLongKey(final T[] array, final int from, final int to, final ToLongFunction<? super T> keyExtractor)
+	{
+		// 要素数
+		final int range = to - from;
+
+		// キー配列と値配列（参照）
+		final long[] keys = new long[range];
+		final T[] values = WorkBufferPool.acquireBuffer(range);
+		for (int idx = 0; idx < range; idx++) {
+			final T value = array[from + idx];
+			keys[idx] = keyExtractor.applyAsLong(value);
+			values[idx] = value;
+		}
+
+		// 作業用配列
+		final long[] workKeys = new long[range];
+		final T[] workValues = WorkBufferPool.acquireBuffer(range);
+
+		// 呼び出し深さの許容値
+		final int depthRemainder = (int)(Math.log(range / ALGORITHM_THRESHOLD) / Math.log(3.0) * 2.2 * 1.2 + 2);
+
+		// ソート本体呼び出し
+		sortImpl(keys, values, 0, range, workKeys, workValues, depthRemainder);
+
+		// ソート結果を書き戻し
+		System.arraycopy(values, 0, array, from, range);
+
+		WorkBufferPool.releaseBuffer(values);
+		WorkBufferPool.releaseBuffer(workValues);
+	}
 
 	@Override
 	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
@@ -212,11 +212,12 @@ public class MmsSortH implements ISortAlgorithm {
 	 */
 	public static final <T> void sortImpl(T[] array, int from, int to, Comparator<? super T> comparator)
 	{
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[(to - from + 1) / 2];
+		final T[] workArray = WorkBufferPool.acquireBuffer((to - from + 1) / 2);
 		//final T[] workArray = (T[])new Object[(to - from)];
 
 		sortImpl(array, from, to, workArray, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
 	}
 
 	@Override
@@ -12,13 +12,64 @@
 package mmsort;
 
 import java.util.Comparator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Phaser;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MmsSortMT implements ISortAlgorithm {
 	// Insersion Sortなどに切り替える要素数境界値
 	private static final int ALGORITHM_THRESHOLD = 20;
-	// スレッドを分ける要素数境界値
-	private static final int FORK_THRESHOLD = 50000;
+	// スレッドを分ける要素数境界値の最小値
+	private static final int MIN_FORK_THRESHOLD = 10000;
+	// スレッドを分ける要素数境界値を決めるための、１スレッドあたりのタスク数（境界値 = ソート範囲サイズ / (並列数 * TASKS_PER_THREAD)）
+	private static final int TASKS_PER_THREAD = 8;
+	// パーティション操作自体を並列化する要素数境界値
+	private static final int PARALLEL_PARTITION_THRESHOLD = 1000000;
+	// 並列パーティション操作のブロックの最小要素数
+	private static final int PARALLEL_PARTITION_BLOCK_MIN = 65536;
+
+	/**
+	 * Sort context
+	 *
+	 * １回のソートで共有する実行条件（並列数の上限、スレッドを分ける要素数境界値、キャンセル要求）と実行状況
+	 */
+	private static final class Context {
+		// 同時に実行するタスク数の上限
+		final int parallelism;
+		// スレッドを分ける要素数境界値
+		final int forkThreshold;
+		// 並列パーティション操作のブロック数の上限
+		final int maxBlockCount;
+		// 実行中（フォーク済みで未完了）のタスク数（呼び出し元の分を含む）
+		final AtomicInteger activeCount = new AtomicInteger(1);
+		// 未完了のタスクの終了待ち（最初のタスクの分を含む。フォーク前に登録し、タスクの終了時に登録を解除する）
+		final Phaser pendingTasks = new Phaser(1);
+		// キャンセル要求（null ならキャンセルしない）
+		final AtomicBoolean cancelled;
+		// 内部からのキャンセル要求（割り込み、比較器の例外など）
+		volatile boolean aborted = false;
+		// キャンセルによりソートを行わずに終了した範囲があった
+		volatile boolean skipped = false;
+
+		Context(final int range, final int parallelism, final int maxBlockCount, final AtomicBoolean cancelled) {
+			this.parallelism = parallelism;
+			this.forkThreshold = Math.max(MIN_FORK_THRESHOLD, range / (parallelism * TASKS_PER_THREAD));
+			this.maxBlockCount = maxBlockCount;
+			this.cancelled = cancelled;
+		}
+
+		boolean isCancelled() {
+			return aborted || (cancelled != null && cancelled.get());
+		}
+	}
 
 	private static class SortThread<T> extends RecursiveAction {
 		private static final long serialVersionUID = 3012284006581398833L;
@@ -28,20 +79,259 @@ public class MmsSortMT implements ISortAlgorithm {
 		T[] workArray;
 		int depthRemainder;
 		Comparator<? super T> comparator;
+		Context context;
 
-		public SortThread(final T[] array, final int from, final int to, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator) {
+		public SortThread(final T[] array, final int from, final int to, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator, final Context context) {
 			this.array = array;
 			this.from = from;
 			this.to = to;
 			this.workArray = workArray;
 			this.depthRemainder = depthRemainder;
 			this.comparator = comparator;
+			this.context = context;
+		}
+		@Override
+		protected void compute() {
+			try {
+				MmsSortMT.mmsSort(array, from, to, workArray, depthRemainder, comparator, context);
+			} finally {
+				context.activeCount.decrementAndGet();
+				context.pendingTasks.arriveAndDeregister();
+			}
+		}
+
+	}
+
+	/**
+	 * Classify elements of a block (parallel partition, phase 1)
+	 *
+	 * 並列パーティション操作の第１段階
+	 * ブロック内の各要素がどの区画に属するか（0, 1, 2）を classes に記録し、区画ごとの要素数を数える。
+	 */
+	private static class ClassifyThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = -4378211796542186013L;
+		final T[] array;
+		final int from;
+		final int to;
+		final int partitionFrom;
+		final byte[] classes;
+		final int[] counts = new int[3];
+		final T pivot1;
+		final T pivot2;
+		final boolean threeWay;
+		final Comparator<? super T> comparator;
+
+		public ClassifyThread(final T[] array, final int from, final int to, final int partitionFrom, final byte[] classes, final T pivot1, final T pivot2, final boolean threeWay, final Comparator<? super T> comparator) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.partitionFrom = partitionFrom;
+			this.classes = classes;
+			this.pivot1 = pivot1;
+			this.pivot2 = pivot2;
+			this.threeWay = threeWay;
+			this.comparator = comparator;
+		}
+		@Override
+		protected void compute() {
+			int count0 = 0;
+			int count1 = 0;
+			int count2 = 0;
+			if (threeWay) {
+				// value < pivot : 0, value == pivot : 1, pivot < value : 2
+				for (int idx = from; idx < to; idx++) {
+					final int compareVal = comparator.compare(array[idx], pivot1);
+					if (compareVal < 0) {
+						classes[idx - partitionFrom] = 0;
+						count0++;
+					} else if (compareVal > 0) {
+						classes[idx - partitionFrom] = 2;
+						count2++;
+					} else {
+						classes[idx - partitionFrom] = 1;
+						count1++;
+					}
+				}
+			} else {
+				// value <= pivot1 : 0, pivot1 < value < pivot2 : 1, pivot2 <= value : 2
+				for (int idx = from; idx < to; idx++) {
+					final T value = array[idx];
+					if (comparator.compare(value, pivot1) <= 0) {
+						classes[idx - partitionFrom] = 0;
+						count0++;
+					} else if (comparator.compare(value, pivot2) >= 0) {
+						classes[idx - partitionFrom] = 2;
+						count2++;
+					} else {
+						classes[idx - partitionFrom] = 1;
+						count1++;
+					}
+				}
+			}
+			counts[0] = count0;
+			counts[1] = count1;
+			counts[2] = count2;
+		}
+	}
+
+	/**
+	 * Scatter elements of a block to work array (parallel partition, phase 2)
+	 *
+	 * 並列パーティション操作の第２段階
+	 * 第１段階の分類結果と、プレフィックスサムで求めた各区画の書き込み開始位置にしたがって、ブロック内の要素を workArray に配置する。
+	 * ブロックごとの書き込み位置は重ならず、ブロック内の順序も保たれるので安定である。
+	 */
+	private static class ScatterThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = 6204937722398755190L;
+		final T[] array;
+		final int from;
+		final int to;
+		final int partitionFrom;
+		final byte[] classes;
+		final T[] workArray;
+		final int pos0;
+		final int pos1;
+		final int pos2;
+
+		public ScatterThread(final T[] array, final int from, final int to, final int partitionFrom, final byte[] classes, final T[] workArray, final int pos0, final int pos1, final int pos2) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.partitionFrom = partitionFrom;
+			this.classes = classes;
+			this.workArray = workArray;
+			this.pos0 = pos0;
+			this.pos1 = pos1;
+			this.pos2 = pos2;
 		}
 		@Override
 		protected void compute() {
-			MmsSortMT.mmsSort(array, from, to, workArray, depthRemainder, comparator);
+			int idx0 = pos0;
+			int idx1 = pos1;
+			int idx2 = pos2;
+			for (int idx = from; idx < to; idx++) {
+				final byte cls = classes[idx - partitionFrom];
+				if (cls == 0)
+					workArray[idx0++] = array[idx];
+				else if (cls == 1)
+					workArray[idx1++] = array[idx];
+				else
+					workArray[idx2++] = array[idx];
+			}
 		}
+	}
+
+	/**
+	 * Copy back from work array (parallel partition, phase 3)
+	 *
+	 * 並列パーティション操作の第３段階
+	 * workArray に配置した要素を array に書き戻す。
+	 */
+	private static class CopyBackThread<T> extends RecursiveAction {
+		private static final long serialVersionUID = -1583320947411525728L;
+		final T[] array;
+		final int from;
+		final int to;
+		final T[] workArray;
 
+		public CopyBackThread(final T[] array, final int from, final int to, final T[] workArray) {
+			this.array = array;
+			this.from = from;
+			this.to = to;
+			this.workArray = workArray;
+		}
+		@Override
+		protected void compute() {
+			System.arraycopy(workArray, from, array, from, to - from);
+		}
+	}
+
+	/**
+	 * Parallel stable partition
+	 *
+	 * 並列安定パーティション操作
+	 * 範囲をブロックに分割し、ブロックごとに各区画の要素数を並列に数え(第１段階)、そのプレフィックスサムから
+	 * 各ブロックの書き込み位置を求めて workArray へ並列に配置し(第２段階)、array へ並列に書き戻す(第３段階)。
+	 * 区画は、pivot1 ≠ pivot2 の場合 value ≦ pivot1, pivot1 < value < pivot2, pivot2 ≦ value の３つ、
+	 * pivot1 ＝ pivot2 の場合 value < pivot1, value = pivot1, pivot1 < value の３つとなる。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work array / 作業用配列
+	 * @param pivot1 pivot 1 / ピボット１
+	 * @param pivot2 pivot 2 / ピボット２
+	 * @param threeWay pivot1 == pivot2 (3 way partition) / 3 way partition か？
+	 * @param blockCount number of blocks / ブロック数
+	 * @param comparator comparator of array element / 比較器
+	 * @return end index of partition 1 and partition 2 / 区画１と区画２の終了位置 + 1
+	 */
+	public static final <T> int[] parallelPartition(final T[] array, final int from, final int to, final T[] workArray, final T pivot1, final T pivot2, final boolean threeWay, final int blockCount, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+		final byte[] classes = new byte[range];
+
+		// 第１段階 : ブロックごとに分類と要素数のカウント
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final ClassifyThread<T>[] classifyThreads = new ClassifyThread[blockCount];
+		for (int block = 0; block < blockCount; block++) {
+			final int blockFrom = from + (int)((long)range * block / blockCount);
+			final int blockTo = from + (int)((long)range * (block + 1) / blockCount);
+			classifyThreads[block] = new ClassifyThread<T>(array, blockFrom, blockTo, from, classes, pivot1, pivot2, threeWay, comparator);
+		}
+		ForkJoinTask.invokeAll(classifyThreads);
+
+		// プレフィックスサムで各ブロックの書き込み開始位置を決定
+		int total0 = 0;
+		int total1 = 0;
+		for (int block = 0; block < blockCount; block++) {
+			total0 += classifyThreads[block].counts[0];
+			total1 += classifyThreads[block].counts[1];
+		}
+		int pos0 = from;
+		int pos1 = from + total0;
+		int pos2 = from + total0 + total1;
+
+		// 第２段階 : ブロックごとに workArray へ配置
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final ScatterThread<T>[] scatterThreads = new ScatterThread[blockCount];
+		for (int block = 0; block < blockCount; block++) {
+			final ClassifyThread<T> classifyThread = classifyThreads[block];
+			scatterThreads[block] = new ScatterThread<T>(array, classifyThread.from, classifyThread.to, from, classes, workArray, pos0, pos1, pos2);
+			pos0 += classifyThread.counts[0];
+			pos1 += classifyThread.counts[1];
+			pos2 += classifyThread.counts[2];
+		}
+		ForkJoinTask.invokeAll(scatterThreads);
+
+		// 第３段階 : array へ書き戻し
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final CopyBackThread<T>[] copyBackThreads = new CopyBackThread[blockCount];
+		for (int block = 0; block < blockCount; block++) {
+			copyBackThreads[block] = new CopyBackThread<T>(array, classifyThreads[block].from, classifyThreads[block].to, workArray);
+		}
+		ForkJoinTask.invokeAll(copyBackThreads);
+
+		return new int[] { from + total0, from + total0 + total1 };
+	}
+
+	/**
+	 * 範囲が境界値以上で、実行中のタスク数が並列数の上限に達していなければ別スレッドでソートを開始し、そうでなければこのスレッドでソートする。
+	 * @return 開始したタスク（このスレッドでソートした場合は null）
+	 */
+	private static final <T> SortThread<T> forkOrSort(final T[] array, final int from, final int to, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator, final Context context)
+	{
+		if (to - from >= context.forkThreshold) {
+			if (context.activeCount.incrementAndGet() <= context.parallelism) {
+				context.pendingTasks.register();
+				final SortThread<T> sortThread = new SortThread<T>(array, from, to, workArray, depthRemainder, comparator, context);
+				sortThread.fork();
+				return sortThread;
+			}
+			context.activeCount.decrementAndGet();
+		}
+		mmsSort(array, from, to, workArray, depthRemainder, comparator, context);
+		return null;
 	}
 
 	/**
@@ -61,9 +351,30 @@ public class MmsSortMT implements ISortAlgorithm {
 	 * @param comparator comparator of array element / 比較器
 	 */
 	public static final <T> void mmsSort(final T[] array, final int from, final int to, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator)
+	{
+		// 共通プールのスレッドに加えて、呼び出し元のスレッドもソートを行う
+		final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		mmsSort(array, from, to, workArray, depthRemainder, comparator, new Context(to - from, parallelism + 1, parallelism * 4, null));
+	}
+
+	/**
+	 * mmsSort (internal)
+	 *
+	 * キャンセルが要求されていたら、この範囲のソートを行わずに戻る。
+	 * パーティション操作の途中では戻らないので、キャンセルされても配列は元の要素の並べ替えになっている（要素が失われることはない）。
+	 *
+	 * @param context sort context / ソートの実行条件
+	 */
+	private static final <T> void mmsSort(final T[] array, final int from, final int to, final T[] workArray, final int depthRemainder, final Comparator<? super T> comparator, final Context context)
 	{
 		final int range = to - from;		//	ソート範囲サイズ
 
+		// キャンセル要求（ソートの必要がない範囲は対象外）
+		if (range > 1 && context.isCancelled()) {
+			context.skipped = true;
+			return;
+		}
+
 		// ソート対象配列サイズが一定数以下のときは特別扱い
 		if (range < ALGORITHM_THRESHOLD) {
 			InsertionSort.sortImpl(array, from, to, comparator);
@@ -125,6 +436,28 @@ public class MmsSortMT implements ISortAlgorithm {
 			pivot2 = workArray[from + 3];
 		}
 
+		// 範囲が大きいときはパーティション操作自体を並列化する（最初の数階層が１スレッドで処理されるのを避ける）
+		if (range >= PARALLEL_PARTITION_THRESHOLD && context.parallelism > 1) {
+			final boolean threeWay = comparator.compare(pivot1, pivot2) == 0;
+			final int blockCount = Math.min(context.maxBlockCount, range / PARALLEL_PARTITION_BLOCK_MIN);
+			final int[] bounds = parallelPartition(array, from, to, workArray, pivot1, pivot2, threeWay, blockCount, comparator);
+			final int mid1 = bounds[0];
+			final int mid2 = bounds[1];
+
+			SortThread<T> area2 = null;
+			if (!threeWay) {
+				// pivot1 < value < pivot2 の区画（3 way partition の場合は value == pivot1 なのでソート不要）
+				area2 = forkOrSort(array, mid1, mid2, workArray, depthRemainder - 1, comparator, context);
+			}
+			final SortThread<T> area3 = forkOrSort(array, mid2, to, workArray, depthRemainder - 1, comparator, context);
+			mmsSort(array, from, mid1, workArray, depthRemainder - 1, comparator, context);
+			if (area2 != null)
+				area2.join();
+			if (area3 != null)
+				area3.join();
+			return;
+		}
+
 		if (comparator.compare(pivot1, pivot2) != 0) {
 			// pivot1 ≠ pivot2 のケース
 			// dual pivot quick sort ベースの処理
@@ -155,27 +488,17 @@ public class MmsSortMT implements ISortAlgorithm {
 			System.arraycopy(workArray, from, array, idxTo, idx2W - from);
 			idxTo += (idx2W - from);
 			// ピボット１より大きく、ピボット２より小さいオブジェクト(pivot1 < value < pivot2)をソート
-			SortThread<T> area2 = null;
-			if (idx2W - from >= FORK_THRESHOLD) {
-				area2 = new SortThread<T>(array, idx1A, idx1A + idx2W - from, workArray, depthRemainder - 1, comparator);
-				area2.fork();
-			} else
-				mmsSort(array, idx1A, idx1A + idx2W - from, workArray, depthRemainder - 1, comparator);
+			final SortThread<T> area2 = forkOrSort(array, idx1A, idx1A + idx2W - from, workArray, depthRemainder - 1, comparator, context);
 
 			// ピボット２以上のオブジェクト(pivot2 ≦ value)を works から array へ書き戻し
 			for (int idx = from + range - 1; idx > idx3W; idx--) {
 				array[idxTo++] = workArray[idx];
 			}
 			// ピボット２以上のオブジェクト(pivot2 ≦ value)をソート
-			SortThread<T> area3 = null;
-			if (to - (idx1A + idx2W - from) >= FORK_THRESHOLD) {
-				area3 = new SortThread<T>(array, idx1A + idx2W - from, to, workArray, depthRemainder - 1, comparator);
-				area3.fork();
-			} else
-				mmsSort(array, idx1A + idx2W - from, to, workArray, depthRemainder - 1, comparator);
+			final SortThread<T> area3 = forkOrSort(array, idx1A + idx2W - from, to, workArray, depthRemainder - 1, comparator, context);
 
 			// ピボット１以下のオブジェクト(value ≦ pivot2)は最後にソート（CPUキャッシュに残っている可能性が低いので…。）
-			mmsSort(array, from, idx1A, workArray, depthRemainder - 1, comparator);
+			mmsSort(array, from, idx1A, workArray, depthRemainder - 1, comparator, context);
 			if (area2 != null)
 				area2.join();
 			if (area3 != null)
@@ -217,9 +540,9 @@ public class MmsSortMT implements ISortAlgorithm {
 			}
 
 			// ピボット値より大きいオブジェクト(pivot1 < value)を先にソート（直前に配列コピーを行っており、CPUキャッシュにヒットしやすいため）
-			mmsSort(array, idx1A + idx2W - from, to,    workArray, depthRemainder - 1, comparator);
+			mmsSort(array, idx1A + idx2W - from, to,    workArray, depthRemainder - 1, comparator, context);
 			// ピボット値より小さいオブジェクト(value < pivot1)をあとにソート（CPUキャッシュヒット率がたぶん低い）
-			mmsSort(array, from,          idx1A, workArray, depthRemainder - 1, comparator);
+			mmsSort(array, from,          idx1A, workArray, depthRemainder - 1, comparator, context);
 		}
 	}
 
@@ -228,9 +551,8 @@ public class MmsSortMT implements ISortAlgorithm {
 		// 要素数
 		final int range = to - from;
 
-		// 作業用配列
-		@SuppressWarnings("unchecked")
-		final T[] workArray = (T[])new Object[range];
+		// 作業用配列（array と同じ添え字で使用するため、array と同じサイズが必要）
+		final T[] workArray = WorkBufferPool.acquireBuffer(array.length);
 
 		// 呼び出し深さの許容値 (log2(range))
 		// 経験的にDual-pivot quicksortで最大呼び出し深さは、「log3(配列サイズ/他のアルゴリズムに切り替えるサイズ) * 2.2 」程度に近似できると考えられる。（乱数データの場合）
@@ -240,8 +562,112 @@ public class MmsSortMT implements ISortAlgorithm {
 
 		// ソート本体呼び出し
 		mmsSort(array, from, to, workArray, depthRemainder, comparator);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+
+	/**
+	 * mmsSort (Multi thread, explicit pool)
+	 *
+	 * 指定したスレッドプールでソートする。共通プールを他の処理（並列ストリームなど）と共有しない場合に使用する。
+	 * 同時に実行するタスク数は parallelism 以下に制限し、スレッドを分ける要素数境界値はソート範囲サイズ / (並列数 * 8) とする。（最小 10000）
+	 * cancelled が true になるか、呼び出し元のスレッドが割り込まれると、以降のタスクはソートを行わずに終了する。
+	 * 実行中のパーティション操作が終わるのを待ってから例外を送出するので、配列は元の要素の並べ替えになっている。（ソートは未完了）
+	 * キャンセルが要求されても、ソートを行わずに終了したタスクがなければ（ソートが完了していれば）例外は送出しない。
+	 * スレッドプールが shutdownNow された場合は、実行されずに取り消されたタスクを待たずにプールの終了を待って、例外を送出する。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @param pool thread pool / スレッドプール
+	 * @param parallelism maximum number of concurrent tasks (0 : parallelism of pool) / 同時に実行するタスク数の上限（0 ならスレッドプールの並列数）
+	 * @param cancelled cancel request (nullable) / キャンセル要求（null 可）
+	 * @throws InterruptedException 呼び出し元のスレッドが割り込まれた
+	 * @throws CancellationException キャンセルによりソートが完了しなかった
+	 */
+	public static final <T> void mmsSort(final T[] array, final int from, final int to, final Comparator<? super T> comparator, final ForkJoinPool pool, final int parallelism, final AtomicBoolean cancelled) throws InterruptedException
+	{
+		// 要素数
+		final int range = to - from;
+
+		// 並列数の上限（スレッドプールの並列数以下）
+		final int maxParallelism = (parallelism <= 0) ? pool.getParallelism() : Math.min(parallelism, pool.getParallelism());
+		// 並列パーティション操作のブロック数（並列数を制限している場合は、同時に実行されるブロックの数も並列数以下にする）
+		final int maxBlockCount = (maxParallelism < pool.getParallelism()) ? maxParallelism : maxParallelism * 4;
+		final Context context = new Context(range, maxParallelism, maxBlockCount, cancelled);
+
+		// 作業用配列（array と同じ添え字で使用するため、array と同じサイズが必要）
+		final T[] workArray = WorkBufferPool.acquireBuffer(array.length);
+
+		// 呼び出し深さの許容値（mmsSort と同じ）
+		final int depthRemainder = (int)(Math.log(range / ALGORITHM_THRESHOLD) / Math.log(3.0) * 2.2 * 1.2 + 2);
+
+		// ソート本体をスレッドプールで実行
+		final SortThread<T> root = new SortThread<T>(array, from, to, workArray, depthRemainder, comparator, context);
+		try {
+			pool.execute(root);
+		} catch (RejectedExecutionException e) {
+			WorkBufferPool.releaseBuffer(workArray);
+			throw e;
+		}
+		try {
+			root.get();
+		} catch (InterruptedException e) {
+			// 割り込まれたらキャンセルを要求する（作業用配列を返却する前に、タスクが使い終わっている必要があるので finally で終了を待つ）
+			context.aborted = true;
+			throw e;
+		} catch (ExecutionException e) {
+			// 比較器の例外などはそのまま送出する（join されずに残ったタスクにもキャンセルを要求する）
+			context.aborted = true;
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error)
+				throw (Error)cause;
+			throw new RuntimeException(cause);
+		} finally {
+			// すべてのタスクの終了を待ってから作業用配列を返却（正常終了時は root の完了ですべてのタスクが join 済み）
+			awaitTasks(context, pool);
+			WorkBufferPool.releaseBuffer(workArray);
+		}
+
+		if (context.skipped)
+			throw new CancellationException("mmsSort was cancelled");
 	}
 
+	/**
+	 * フォークしたすべてのタスクの終了を待つ
+	 *
+	 * スレッドプールが shutdownNow された場合、取り消されたタスクは実行されないので終了の通知が来ない。
+	 * その場合はプールが終了した（実行中のタスクがなくなった）時点で待機をやめ、ソートを行わなかった範囲があったものとする。
+	 * 待機中に割り込まれても待機は続け、終了後に割り込み状態を設定しなおす。
+	 *
+	 * @param context sort context / ソートの実行条件
+	 * @param pool thread pool / スレッドプール
+	 */
+	private static final void awaitTasks(final Context context, final ForkJoinPool pool)
+	{
+		boolean interrupted = false;
+		while (true) {
+			try {
+				context.pendingTasks.awaitAdvanceInterruptibly(0, 10, TimeUnit.MILLISECONDS);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+				context.aborted = true;
+			} catch (TimeoutException e) {
+				if (pool.isTerminated()) {
+					if (!context.pendingTasks.isTerminated())
+						context.skipped = true;
+					break;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
 
 	@Override
 	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
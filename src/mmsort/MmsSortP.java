@@ -0,0 +1,178 @@
+/*
+ * mmsSort (String prefix cache edition)
+ *
+ * Stable Dual-pivot Quicksort with cached 8 byte key prefix
+ *
+ * 文字列キーの先頭 8 バイトを long 値にまとめた配列を参照の配列と並べて保持し、
+ * 大部分の比較をプリミティブ値の比較で済ませる mmsSort。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+
+public class MmsSortP implements ISortAlgorithm {
+	/**
+	 * 文字列の offset 文字目からの８文字を１文字１バイトで long 値にまとめる（８文字に満たない部分は 0）
+	 * その８文字がすべて文字コード 256 未満の場合のみ使用できる。
+	 * 符号付きの long として比較できるよう、最上位ビットを反転する。
+	 * @param key キー文字列
+	 * @param offset 開始位置
+	 * @return 接頭辞
+	 */
+	public static final long bytePrefix(final String key, final int offset)
+	{
+		final int length = Math.min(key.length() - offset, 8);
+		long prefix = 0;
+		for (int idx = 0; idx < length; idx++)
+			prefix |= (long)key.charAt(offset + idx) << (56 - (idx << 3));
+		return prefix ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * 文字列の offset 文字目からの４文字を１文字２バイトで long 値にまとめる（４文字に満たない部分は 0）
+	 * 符号付きの long として比較できるよう、最上位ビットを反転する。
+	 * @param key キー文字列
+	 * @param offset 開始位置
+	 * @return 接頭辞
+	 */
+	public static final long charPrefix(final String key, final int offset)
+	{
+		final int length = Math.min(key.length() - offset, 4);
+		long prefix = 0;
+		for (int idx = 0; idx < length; idx++)
+			prefix |= (long)key.charAt(offset + idx) << (48 - (idx << 4));
+		return prefix ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * mmsSort (String prefix cache)
+	 *
+	 * 全要素に共通する先頭部分を除いた、各要素のキー文字列の接頭辞（８文字が文字コード 256 未満なら８バイト、そうでなければ４文字）を long 配列に格納し、
+	 * 接頭辞の配列と参照の配列の組を mmsSort（long キー版）でソートする。
+	 * パーティション操作では接頭辞の比較のみを行い、接頭辞が等しい要素の範囲だけを比較器でソートする。
+	 * 接頭辞の順序は文字列の辞書順と矛盾しないので、比較器はキー文字列の辞書順と一致していなければならない。（安定ソート）
+	 * （IStringKeyComparator の約束事として比較器の実装側が保証する）
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator with String sort key (compare is used when prefixes are equal) / 文字列のソートキーを持つ比較器（接頭辞が等しい場合は compare を使用）
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final IStringKeyComparator<? super T> comparator)
+	{
+		// 要素数
+		final int range = to - from;
+
+		// キー文字列を取り出し、全要素に共通する先頭部分の長さを求める（"%010d" のようなゼロ埋めの文字列では接頭辞の大部分が共通になるため）
+		final String[] keys = new String[range];
+		int offset = Integer.MAX_VALUE;
+		for (int idx = 0; idx < range; idx++) {
+			final String key = comparator.key(array[from + idx]);
+			keys[idx] = key;
+			if (offset > key.length())
+				offset = key.length();
+			int pos = 0;
+			while (pos < offset && key.charAt(pos) == keys[0].charAt(pos))
+				pos++;
+			offset = pos;
+		}
+
+		// ８バイトの接頭辞を使えるか判定
+		boolean byteMode = true;
+		for (int idx = 0; idx < range && byteMode; idx++) {
+			final String key = keys[idx];
+			final int length = Math.min(key.length(), offset + 8);
+			for (int pos = offset; pos < length; pos++) {
+				if (key.charAt(pos) >= 256) {
+					byteMode = false;
+					break;
+				}
+			}
+		}
+
+		// 接頭辞がキー文字列全体を表しているか判定（文字コード 0 の文字は接頭辞の埋め草と区別できないので除く）
+		// キー文字列全体を表しているなら、接頭辞が等しい要素はキー文字列も等しいので比較器でソートしなおす必要はない
+		final int width = byteMode ? 8 : 4;
+		boolean exact = true;
+		for (int idx = 0; idx < range && exact; idx++) {
+			final String key = keys[idx];
+			if (key.length() > offset + width) {
+				exact = false;
+				break;
+			}
+			for (int pos = offset; pos < key.length(); pos++) {
+				if (key.charAt(pos) == 0) {
+					exact = false;
+					break;
+				}
+			}
+		}
+
+		// 接頭辞の配列と値配列（参照）
+		final long[] prefixes = new long[range];
+		final T[] values = WorkBufferPool.acquireBuffer(range);
+		for (int idx = 0; idx < range; idx++) {
+			prefixes[idx] = byteMode ? bytePrefix(keys[idx], offset) : charPrefix(keys[idx], offset);
+			values[idx] = array[from + idx];
+		}
+
+		// 作業用配列
+		final long[] workPrefixes = new long[range];
+		final T[] workValues = WorkBufferPool.acquireBuffer(range);
+
+		// 接頭辞でソート（安定）
+		final int depthRemainder = (int)(Math.log(range / 20) / Math.log(3.0) * 2.2 * 1.2 + 2);
+		MmsSort.sortImpl(prefixes, values, 0, range, workPrefixes, workValues, depthRemainder);
+
+		// 接頭辞が等しい要素の範囲を比較器でソート（安定）
+		if (!exact) {
+			int runFrom = 0;
+			for (int idx = 1; idx <= range; idx++) {
+				if (idx == range || prefixes[idx] != prefixes[runFrom]) {
+					if (idx - runFrom > 1)
+						MmsSort.sortImpl(values, runFrom, idx, workValues, comparator);
+					runFrom = idx;
+				}
+			}
+		}
+
+		// ソート結果を書き戻し
+		System.arraycopy(values, 0, array, from, range);
+
+		WorkBufferPool.releaseBuffer(values);
+		WorkBufferPool.releaseBuffer(workValues);
+	}
+
+	/**
+	 * 比較器が IStringKeyComparator を実装している（比較器の順序がキー文字列の辞書順と一致することが約束されている）場合は
+	 * 接頭辞を用いた mmsSort を行い、そうでない場合は通常の mmsSort を行う。
+	 */
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		if (comparator instanceof IStringKeyComparator) {
+			@SuppressWarnings("unchecked")
+			final IStringKeyComparator<? super T> keyComparator = (IStringKeyComparator<? super T>)comparator;
+			sortImpl(array, from, to, keyComparator);
+		} else
+			MmsSort.sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "mmsSort (String prefix cache)";
+	}
+}
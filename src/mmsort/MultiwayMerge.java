@@ -0,0 +1,149 @@
+/*
+ * Multiway Merge
+ *
+ * k-way merge of pre-sorted runs
+ *
+ * ソート済みの複数の配列（ラン）を１つの配列にマージする。（安定）
+ * MasSort.merge3 / Mas4Sort.merge4 と同じく、レーン先頭要素の並びを１つの int 値（状態）で表すマージ処理を使用し、
+ * ヒープなどのデータ構造を使わない。５つ以上のランは４つずつのグループに分けて木構造にマージする。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.List;
+
+public class MultiwayMerge {
+	/**
+	 * Merge sorted runs
+	 *
+	 * ソート済みの配列（ラン）群を output[outputFrom] 以降にマージする。（安定。値が等しい要素は runs の前のランの要素が前に来る）
+	 * ランを output に連結してから、ランの数が３つなら merge3、４つなら merge4、５つ以上なら４つずつのグループに分けた木構造でマージする。
+	 * 作業用一時領域は WorkBufferPool から取得する。（要素の合計数のサイズ）
+	 *
+	 * @param runs sorted runs / ソート済みの配列群（空の配列を含んでもよい）
+	 * @param output merge destination / マージ先
+	 * @param outputFrom index of first element of output / マージ先の開始位置
+	 * @param comparator comparator of array element / 比較器
+	 * @return number of merged elements / マージした要素数
+	 */
+	public static final <T> int mergeSorted(final T[][] runs, final T[] output, final int outputFrom, final Comparator<? super T> comparator)
+	{
+		// ランを output に連結し、空でないランの境界を記録する
+		int total = 0;
+		for (final T[] run : runs)
+			total += run.length;
+		if (outputFrom < 0 || total > output.length - outputFrom)
+			throw new IllegalArgumentException("Output array is too small : " + output.length + " (required " + outputFrom + " + " + total + ")");
+
+		final int[] bounds = new int[runs.length + 1];
+		int laneCount = 0;
+		int pos = outputFrom;
+		bounds[0] = pos;
+		for (final T[] run : runs) {
+			if (run.length == 0)
+				continue;
+			System.arraycopy(run, 0, output, pos, run.length);
+			pos += run.length;
+			bounds[++laneCount] = pos;
+		}
+
+		if (laneCount >= 2) {
+			final T[] workArray = WorkBufferPool.acquireBuffer(total);
+			mergeLanes(output, bounds, 0, laneCount, workArray, comparator);
+			WorkBufferPool.releaseBuffer(workArray);
+		}
+		return total;
+	}
+
+	/**
+	 * Merge sorted runs
+	 *
+	 * ソート済みの配列（ラン）群を output[0] 以降にマージする。（安定）
+	 *
+	 * @param runs sorted runs / ソート済みの配列群
+	 * @param output merge destination / マージ先
+	 * @param comparator comparator of array element / 比較器
+	 * @return number of merged elements / マージした要素数
+	 */
+	public static final <T> int mergeSorted(final T[][] runs, final T[] output, final Comparator<? super T> comparator)
+	{
+		return mergeSorted(runs, output, 0, comparator);
+	}
+
+	/**
+	 * Merge sorted runs
+	 *
+	 * ソート済みの配列（ラン）のリストを output[outputFrom] 以降にマージする。（安定。値が等しい要素はリストの前のランの要素が前に来る）
+	 *
+	 * @param runs sorted runs / ソート済みの配列のリスト
+	 * @param output merge destination / マージ先
+	 * @param outputFrom index of first element of output / マージ先の開始位置
+	 * @param comparator comparator of array element / 比較器
+	 * @return number of merged elements / マージした要素数
+	 */
+	public static final <T> int mergeSorted(final List<T[]> runs, final T[] output, final int outputFrom, final Comparator<? super T> comparator)
+	{
+		@SuppressWarnings("unchecked")
+		final T[][] runArray = runs.toArray((T[][])new Object[runs.size()][]);
+		return mergeSorted(runArray, output, outputFrom, comparator);
+	}
+
+	/**
+	 * Merge sorted runs
+	 *
+	 * ソート済みの配列（ラン）のリストを output[0] 以降にマージする。（安定）
+	 *
+	 * @param runs sorted runs / ソート済みの配列のリスト
+	 * @param output merge destination / マージ先
+	 * @param comparator comparator of array element / 比較器
+	 * @return number of merged elements / マージした要素数
+	 */
+	public static final <T> int mergeSorted(final List<T[]> runs, final T[] output, final Comparator<? super T> comparator)
+	{
+		return mergeSorted(runs, output, 0, comparator);
+	}
+
+	/**
+	 * 連結したレーン群のマージ処理
+	 * bounds[lo] ～ bounds[hi] を境界とするレーン（空でないソート済みの範囲）群をマージする。
+	 * ５つ以上のレーンは４つのグループに分けてそれぞれをマージしてから、４つのグループを merge4 でマージする。
+	 * 作業用一時領域はマージ範囲のサイズが必要
+	 * @param array マージ対象
+	 * @param bounds レーンの境界（bounds[i] がレーン i の開始位置、bounds[i + 1] が終了位置）
+	 * @param lo 先頭のレーン
+	 * @param hi 最後のレーン + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param comparator comparator of array element / 比較器
+	 */
+	private static final <T> void mergeLanes(final T[] array, final int[] bounds, final int lo, final int hi, final T[] workArray, final Comparator<? super T> comparator)
+	{
+		final int laneCount = hi - lo;
+		if (laneCount <= 1)
+			return;
+		if (laneCount == 2) {
+			MasSort.mergeLanes(array, bounds[lo], bounds[lo + 1], bounds[hi], workArray, 0, comparator);
+			return;
+		}
+		if (laneCount == 3) {
+			MasSort.merge3(array, bounds[lo], bounds[lo + 1], bounds[lo + 2], bounds[hi], workArray, comparator);
+			return;
+		}
+
+		// ４つのグループに分けてそれぞれをマージ（レーンが４つなら各グループは１レーン）
+		final int lane2 = lo + laneCount / 4;
+		final int lane3 = lo + laneCount / 2;
+		final int lane4 = lo + laneCount * 3 / 4;
+		mergeLanes(array, bounds, lo, lane2, workArray, comparator);
+		mergeLanes(array, bounds, lane2, lane3, workArray, comparator);
+		mergeLanes(array, bounds, lane3, lane4, workArray, comparator);
+		mergeLanes(array, bounds, lane4, hi, workArray, comparator);
+
+		Mas4Sort.merge4(array, bounds[lo], bounds[lane2], bounds[lane3], bounds[lane4], bounds[hi], workArray, comparator);
+	}
+}
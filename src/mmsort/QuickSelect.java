@@ -0,0 +1,191 @@
+/*
+ * QuickSelect
+ *
+ * 選択アルゴリズム（nth_element）
+ * ソート範囲の n 番目の要素を確定し、その前後にパーティション分割する。
+ * ManyPivotSort と同じくソート済みのピボット候補（標本）を作成し、目的の順位をはさむ２つのピボットを選ぶことで、
+ * １回のパーティション操作で範囲を大きく絞り込む。（Floyd-Rivest の選択アルゴリズム）
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class QuickSelect {
+	// Insersion Sortに切り替える要素数
+	private static final int ALGORITHM_THRESHOLD = 20;
+	// 標本を作らずに mmSort のパーティション操作で絞り込む要素数
+	private static final int SAMPLING_THRESHOLD = 600;
+	// 標本の最小数・最大数（ManyPivotSort のピボットリストと同じく、2のべき乗 - 1）
+	private static final int MIN_SAMPLE_SIZE = 31;
+	private static final int MAX_SAMPLE_SIZE = 8191;
+
+	/**
+	 * Select n-th element
+	 *
+	 * 選択アルゴリズム（非安定）
+	 * 範囲をソートしたときに array[nth] に来る要素を array[nth] に置き、
+	 * array[from] ～ array[nth - 1] をその値以下、array[nth + 1] ～ array[to - 1] をその値以上の要素にする。
+	 *
+	 * 範囲サイズの 2/3 乗の 1/2 程度の標本をソートし、目的の順位の前後 √(標本数) 個の位置にある標本を２つのピボットとする。
+	 * ２つのピボットで３つに分割すると、目的の要素を含む中央の範囲は元の範囲の 2/√(標本数) 程度になる。
+	 * 各要素は多数派の側のピボットから比較するので、比較回数の期待値は n + min(nth - from, to - nth) 程度になる。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param nth index of element to be selected / 確定する要素の位置
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void selectImpl(final T[] array, int from, int to, final int nth, final Comparator<? super T> comparator)
+	{
+		if (nth < from || nth >= to)
+			throw new IllegalArgumentException("nth is out of range : " + nth);
+
+		// 絞り込みの繰り返し回数の許容値（最悪ケースの入力に対しては mmSort で範囲全体をソートする）
+		int roundRemainder = (int)(Math.log(to - from) / Math.log(2.0) * 2);
+		while (to - from >= ALGORITHM_THRESHOLD) {
+			final int range = to - from;		//	範囲サイズ
+			if (roundRemainder-- < 0) {
+				MmSort.sortImpl(array, from, to, comparator);
+				return;
+			}
+
+			if (range < SAMPLING_THRESHOLD) {
+				// mmSort のパーティション操作（５つのメディアン）で絞り込む
+				final int pivotIdx = MmSort.partition(array, from, to, comparator);
+				if (nth < pivotIdx)
+					to = pivotIdx;
+				else if (nth > pivotIdx)
+					from = pivotIdx + 1;
+				else
+					return;
+				continue;
+			}
+
+			// ソート済みの標本を作成し、目的の順位をはさむ２つのピボットを選ぶ
+			int sampleSize = MIN_SAMPLE_SIZE;
+			final double targetSampleSize = Math.pow(range, 2.0 / 3.0) / 2;
+			while (sampleSize < targetSampleSize && sampleSize < MAX_SAMPLE_SIZE)
+				sampleSize = sampleSize * 2 + 1;
+			final T[] pivots = ManyPivotSort.createPivots(array, from, to, sampleSize, comparator);
+			final int gap = (int)Math.sqrt(sampleSize);
+			final int rank = (int)((long)(nth - from) * sampleSize / range);		//	標本の中での目的の順位
+			final T pivot1 = pivots[Math.max(rank - gap, 0)];
+			final T pivot2 = pivots[Math.min(rank + gap, sampleSize - 1)];
+			final boolean pivotsEqual = comparator.compare(pivot1, pivot2) == 0;
+
+			// ３つに分割する
+			// +-----------------+------------------------------+-------+-----------------+
+			// | value < pivot1  | pivot1 <= value <= pivot2    |   ?   | pivot2 < value  |
+			// +-----------------+------------------------------+-------+-----------------+
+			// ^                 ^                              ^       ^                 ^
+			// from            ltIdx                          curIdx  gtIdx               to
+			int ltIdx = from;
+			int gtIdx = to;
+			int curIdx = from;
+			if (rank < (sampleSize >> 1)) {
+				// 目的の順位が前半なら、大部分の要素は pivot2 より大きいので pivot2 から比較する
+				while (curIdx < gtIdx) {
+					final T value = array[curIdx];
+					if (comparator.compare(value, pivot2) > 0) {
+						array[curIdx] = array[--gtIdx];
+						array[gtIdx] = value;
+					} else if (comparator.compare(value, pivot1) < 0) {
+						array[curIdx++] = array[ltIdx];
+						array[ltIdx++] = value;
+					} else
+						curIdx++;
+				}
+			} else {
+				// 目的の順位が後半なら、大部分の要素は pivot1 より小さいので pivot1 から比較する
+				while (curIdx < gtIdx) {
+					final T value = array[curIdx];
+					if (comparator.compare(value, pivot1) < 0) {
+						array[curIdx++] = array[ltIdx];
+						array[ltIdx++] = value;
+					} else if (comparator.compare(value, pivot2) > 0) {
+						array[curIdx] = array[--gtIdx];
+						array[gtIdx] = value;
+					} else
+						curIdx++;
+				}
+			}
+
+			if (nth < ltIdx)
+				to = ltIdx;
+			else if (nth >= gtIdx)
+				from = gtIdx;
+			else if (pivotsEqual)
+				return;		//	中央の範囲はすべてピボット値と等しい
+			else if (ltIdx == from && gtIdx == to) {
+				// 範囲を絞り込めなかった（標本が範囲の最小値と最大値を含んでいた）ので、mmSort のパーティション操作で絞り込む
+				final int pivotIdx = MmSort.partition(array, from, to, comparator);
+				if (nth < pivotIdx)
+					to = pivotIdx;
+				else if (nth > pivotIdx)
+					from = pivotIdx + 1;
+				else
+					return;
+			} else {
+				from = ltIdx;
+				to = gtIdx;
+			}
+		}
+		InsertionSort.sortImpl(array, from, to, comparator);
+	}
+
+	/**
+	 * Select multiple n-th elements
+	 *
+	 * 複数の順位の選択（例えば 50, 90, 99 パーセンタイル）
+	 * 中央の順位を選択してから、その前後の範囲でそれより前の順位・後の順位を選択する。
+	 * 範囲は順位を選択するたびに分割されるので、後の選択ほど範囲が小さくなる。
+	 * 呼び出し後は nths のすべての位置に、範囲をソートしたときにその位置に来る要素が置かれる。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param nths indexes of elements to be selected / 確定する要素の位置（順不同、重複可）
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void selectImpl(final T[] array, final int from, final int to, final int[] nths, final Comparator<? super T> comparator)
+	{
+		// 順位を昇順に並べ、重複を取り除く
+		final int[] sortedNths = nths.clone();
+		Arrays.sort(sortedNths);
+		int count = 0;
+		for (int idx = 0; idx < sortedNths.length; idx++) {
+			final int nth = sortedNths[idx];
+			if (nth < from || nth >= to)
+				throw new IllegalArgumentException("nth is out of range : " + nth);
+			if (count == 0 || sortedNths[count - 1] != nth)
+				sortedNths[count++] = nth;
+		}
+
+		selectImpl(array, from, to, sortedNths, 0, count, comparator);
+	}
+
+	/**
+	 * 複数の順位の選択（内部処理）
+	 * @param sortedNths 昇順に並べた、重複のない順位
+	 * @param fromNths 選択する順位の開始位置
+	 * @param toNths 選択する順位の終了位置 + 1
+	 */
+	private static final <T> void selectImpl(final T[] array, final int from, final int to, final int[] sortedNths, final int fromNths, final int toNths, final Comparator<? super T> comparator)
+	{
+		if (fromNths >= toNths)
+			return;
+		final int midNths = (fromNths + toNths) >>> 1;
+		final int nth = sortedNths[midNths];
+		selectImpl(array, from, to, nth, comparator);
+		selectImpl(array, from, nth, sortedNths, fromNths, midNths, comparator);
+		selectImpl(array, nth + 1, to, sortedNths, midNths + 1, toNths, comparator);
+	}
+}
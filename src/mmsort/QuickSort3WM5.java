@@ -319,6 +319,178 @@ public class QuickSort3WM5 implements ISortAlgorithm {
 //		assert SortTest.validateArray(array, false, from, to);
 	}
 
+	/**
+	 * Sort + unique
+	 *
+	 * ソートして重複を取り除く（非安定。等しい要素のうちどれが残るかは不定）
+	 * 異なる要素を昇順に array[from] ～ array[from + 戻り値 - 1] に詰める。それ以降の範囲の内容は不定。
+	 * 3 Way partition でピボットと等しい要素を分離した時点でそれらの要素は確定するので、
+	 * ソート後に隣り合う要素を比較しなおす重複除去のパスが不要になり、重複が多いほど比較回数が少なくなる。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param comparator comparator of array element / 比較器
+	 * @return number of distinct elements / 異なる要素の数
+	 */
+	public static final <T> int sortUniqueImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		return sortUniqueImpl(array, from, to, from, null, from, (int)(Math.log(Math.max(to - from, 1)) / Math.log(2.0) * 2), comparator) - from;
+	}
+
+	/**
+	 * Sort + group count
+	 *
+	 * ソートして重複を取り除き、各要素の個数を求める（非安定。等しい要素のうちどれが残るかは不定）
+	 * 異なる要素を昇順に array[from] ～ array[from + 戻り値 - 1] に詰め、その個数を counts[0] ～ counts[戻り値 - 1] に格納する。
+	 * array のそれ以降の範囲の内容は不定。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param counts number of each distinct element (length &gt;= to - from) / 各要素の個数（異なる要素の数以上の長さが必要。to - from あれば足りる）
+	 * @param comparator comparator of array element / 比較器
+	 * @return number of distinct elements / 異なる要素の数
+	 */
+	public static final <T> int sortGroupCountsImpl(final T[] array, final int from, final int to, final int[] counts, final Comparator<? super T> comparator)
+	{
+		return sortUniqueImpl(array, from, to, from, counts, from, (int)(Math.log(Math.max(to - from, 1)) / Math.log(2.0) * 2), comparator) - from;
+	}
+
+	/**
+	 * Sort + unique (internal)
+	 *
+	 * 範囲をピボットで３つに分割し、小さい範囲、ピボット、大きい範囲の順に異なる要素を出力位置に詰める。
+	 * 出力位置は常に処理中の範囲の開始位置以下なので、未処理の要素を上書きすることはない。
+	 * 再帰呼び出しは小さい方の範囲だけで行い、大きい方の範囲はループで処理する。（呼び出しの深さは log2(要素数) 以下）
+	 * 小さい範囲の方が大きい場合は、先に大きい範囲とピボットを大きい範囲の位置に詰めて保留し、
+	 * 小さい範囲の処理が終わった後で出力位置に移動する。
+	 * 分割の回数が許容値を超えた場合はヒープソートと隣り合う要素の比較に切り替える。（イントロソート）
+	 *
+	 * @param out 出力位置（out &lt;= from）
+	 * @param counts 各要素の個数（null なら数えない）
+	 * @param base 出力の開始位置（counts[out - base] に個数を格納する）
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @return 次の出力位置
+	 */
+	private static final <T> int sortUniqueImpl(final T[] array, int from, int to, int out, final int[] counts, final int base, int depthRemainder, final Comparator<? super T> comparator)
+	{
+		// 保留中の出力（ピボット値以上の異なる要素。to 以降の位置にある）
+		int suffixFrom = to;
+		int suffixTo = to;
+
+		while (true) {
+			final int range = to - from;		//	ソート範囲サイズ
+
+			if (range < ALGORITHM_THRESHOLD || depthRemainder < 0) {
+				if (range < ALGORITHM_THRESHOLD)
+					InsertionSort.sortImpl(array, from, to, comparator);
+				else
+					HeapSort.sortImpl(array, from, to, comparator);
+				out = uniqueSorted(array, from, to, out, counts, base, comparator);
+				// 保留中の出力を出力位置に移動
+				final int suffixLen = suffixTo - suffixFrom;
+				if (suffixLen > 0) {
+					System.arraycopy(array, suffixFrom, array, out, suffixLen);
+					if (counts != null)
+						System.arraycopy(counts, suffixFrom - base, counts, out - base, suffixLen);
+					out += suffixLen;
+				}
+				return out;
+			}
+
+			final int p1 = from;
+			final int p5 = to - 1;
+			final int p3 = p1 + (p5 - p1) / 2;
+			final int p2 = p1 + (p3 - p1) / 2;
+			final int p4 = p3 + (p5 - p3) / 2;
+
+			centerOf5(array, p1, p2, p3, p4, p5, comparator);
+			final T pivot = array[p3];
+
+			// ３つに分割する（要素ごとの比較は１回）
+			// +---------------+----------------+-------+---------------+
+			// | value < pivot | value == pivot |   ?   | value > pivot |
+			// +---------------+----------------+-------+---------------+
+			// ^               ^                ^       ^               ^
+			// from          ltIdx            curIdx  gtIdx             to
+			int ltIdx = from;
+			int gtIdx = to;
+			int curIdx = from;
+			while (curIdx < gtIdx) {
+				final T value = array[curIdx];
+				final int comp = comparator.compare(value, pivot);
+				if (comp < 0) {
+					array[curIdx++] = array[ltIdx];
+					array[ltIdx++] = value;
+				} else if (comp > 0) {
+					array[curIdx] = array[--gtIdx];
+					array[gtIdx] = value;
+				} else
+					curIdx++;
+			}
+
+			depthRemainder--;
+			if (ltIdx - from <= to - gtIdx) {
+				// ピボット値より小さい要素（小さい方の範囲）、ピボット値の順に出力し、ピボット値より大きい要素はループで処理
+				out = sortUniqueImpl(array, from, ltIdx, out, counts, base, depthRemainder, comparator);
+				if (counts != null)
+					counts[out - base] = gtIdx - ltIdx;
+				array[out++] = pivot;
+				from = gtIdx;
+			} else {
+				// ピボット値、ピボット値より大きい要素（小さい方の範囲）を gtIdx - 1 以降に詰めて保留し、ピボット値より小さい要素はループで処理
+				// （ピボット値と等しい要素が１つ以上あるので gtIdx - 1 >= ltIdx）
+				final int rightTo = sortUniqueImpl(array, gtIdx, to, gtIdx, counts, base, depthRemainder, comparator);
+				if (counts != null)
+					counts[gtIdx - 1 - base] = gtIdx - ltIdx;
+				array[gtIdx - 1] = pivot;
+				// 以前から保留中の出力を後ろにつなげる（左への移動なので未処理の要素は上書きしない）
+				final int suffixLen = suffixTo - suffixFrom;
+				if (suffixLen > 0) {
+					System.arraycopy(array, suffixFrom, array, rightTo, suffixLen);
+					if (counts != null)
+						System.arraycopy(counts, suffixFrom - base, counts, rightTo - base, suffixLen);
+				}
+				suffixFrom = gtIdx - 1;
+				suffixTo = rightTo + suffixLen;
+				to = ltIdx;
+			}
+		}
+	}
+
+	/**
+	 * ソート済みの範囲の隣り合う要素を比較して、異なる要素を出力位置に詰める
+	 *
+	 * @param out 出力位置（out &lt;= from）
+	 * @param counts 各要素の個数（null なら数えない）
+	 * @param base 出力の開始位置（counts[out - base] に個数を格納する）
+	 * @return 次の出力位置
+	 */
+	private static final <T> int uniqueSorted(final T[] array, final int from, final int to, int out, final int[] counts, final int base, final Comparator<? super T> comparator)
+	{
+		if (from == to)
+			return out;
+		T prev = array[from];
+		int count = 1;
+		for (int idx = from + 1; idx < to; idx++) {
+			final T value = array[idx];
+			if (comparator.compare(prev, value) == 0) {
+				count++;
+			} else {
+				if (counts != null)
+					counts[out - base] = count;
+				array[out++] = prev;
+				prev = value;
+				count = 1;
+			}
+		}
+		if (counts != null)
+			counts[out - base] = count;
+		array[out++] = prev;
+		return out;
+	}
+
 	@Override
 	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
 	{
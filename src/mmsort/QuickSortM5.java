@@ -209,12 +209,28 @@ public class QuickSortM5 implements ISortAlgorithm {
 	/**
 	 * Quick sort (Median of 5)
 	 * クイックソート（５つのメディアン）
+	 * 呼び出し深さの許容値（2 * log2(要素数)）を超えた場合はヒープソートに切り替える。（イントロソート）
 	 * @param array sort target / ソート対象
 	 * @param from index of first element / ソート対象の開始位置
 	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
 	 * @param comparator comparator of array element / 比較器
 	 */
 	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		final int range = to - from;
+		sortImpl(array, from, to, (int)(Math.log(Math.max(range, 1)) / Math.log(2.0) * 2), comparator);
+	}
+
+	/**
+	 * Quick sort (Median of 5)
+	 * クイックソート（５つのメディアン）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depthRemainder The remaining number of times of the depth of the call / 呼び出しの深さの残り回数
+	 * @param comparator comparator of array element / 比較器
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final int depthRemainder, final Comparator<? super T> comparator)
 	{
 		final int range = to - from;		//	ソート範囲サイズ
 
@@ -225,6 +241,12 @@ public class QuickSortM5 implements ISortAlgorithm {
 			return;
 		}
 
+		// 呼び出し深さが限度を超えたら（最悪ケースの入力）ヒープソートに切り替え
+		if (depthRemainder < 0) {
+			HeapSort.sortImpl(array, from, to, comparator);
+			return;
+		}
+
 		final int p1 = from;
 		final int p5 = to - 1;
 		final int p3 = p1 + (p5 - p1) / 2;
@@ -367,8 +389,8 @@ public class QuickSortM5 implements ISortAlgorithm {
 		}
 
 		//	小さいパーティション・大きいパーティションそれぞれで再起
-		sortImpl(array, from, curTo + 1, comparator);
-		sortImpl(array, curFrom, to, comparator);
+		sortImpl(array, from, curTo + 1, depthRemainder - 1, comparator);
+		sortImpl(array, curFrom, to, depthRemainder - 1, comparator);
 	}
 
 	@Override
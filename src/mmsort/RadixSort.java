@@ -0,0 +1,163 @@
+/*
+ * LSD Radix Sort
+ *
+ * LSD 基数ソート（int キー）
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+public class RadixSort implements ISortAlgorithm {
+	// Insersion Sortに切り替える要素数
+	private static final int ALGORITHM_THRESHOLD = 64;
+	// 11ビットの桁（３パス）に切り替える要素数（小さな配列では 2048 個のカウンタのコストが見合わない）
+	private static final int WIDE_DIGIT_THRESHOLD = 65536;
+
+	/**
+	 * LSD Radix sort (int key extractor)
+	 *
+	 * LSD 基数ソート（安定ソート）
+	 * 各要素のキーを一度だけ取り出して int 配列に格納し、下位の桁から順に分布数え上げで並べ替える。
+	 * 桁は要素数に応じて 8 ビット（４パス）または 11 ビット（３パス）とする。
+	 * 全要素でその桁の値が同じ場合（ヒストグラムが１つのバケットに集中する場合）はそのパスを省略する。
+	 * 符号付きの int として昇順になるよう、最上位ビットを反転して桁を求める。
+	 *
+	 * 作業用一時領域はソート対象の範囲サイズ以上が必要（MmsSort と同じ）
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param workArray work area / 作業用一時領域
+	 * @param keyExtractor key extractor of array element / キー抽出関数
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final T[] workArray, final ToIntFunction<? super T> keyExtractor)
+	{
+		// 要素数
+		final int range = to - from;
+
+		// キー配列
+		final int[] keys = new int[range];
+		for (int idx = 0; idx < range; idx++)
+			keys[idx] = keyExtractor.applyAsInt(array[from + idx]);
+
+		if (range < ALGORITHM_THRESHOLD) {
+			System.arraycopy(array, from, workArray, 0, range);
+			InsertionSort.sortImpl(keys, workArray, 0, range);
+			System.arraycopy(workArray, 0, array, from, range);
+			return;
+		}
+
+		// 桁の幅とパス数
+		final int digitBits = (range < WIDE_DIGIT_THRESHOLD) ? 8 : 11;
+		final int passCount = (32 + digitBits - 1) / digitBits;
+		final int bucketCount = 1 << digitBits;
+		final int mask = bucketCount - 1;
+
+		// 全パスのヒストグラムを１回の走査で求める
+		final int[][] counts = new int[passCount][bucketCount];
+		for (int idx = 0; idx < range; idx++) {
+			final int key = keys[idx] ^ 0x80000000;
+			for (int pass = 0; pass < passCount; pass++)
+				counts[pass][(key >>> (pass * digitBits)) & mask]++;
+		}
+
+		// 分布数え上げ（array[from..to) と workArray[0..range) を交互に使用する）
+		int[] srcKeys = keys;
+		int[] dstKeys = new int[range];
+		T[] srcValues = array;
+		int srcFrom = from;
+		T[] dstValues = workArray;
+		int dstFrom = 0;
+		for (int pass = 0; pass < passCount; pass++) {
+			final int[] count = counts[pass];
+			final int shift = pass * digitBits;
+
+			// 全要素でこの桁の値が同じならパスを省略
+			if (count[(((srcKeys[0] ^ 0x80000000) >>> shift) & mask)] == range)
+				continue;
+
+			// 各バケットの書き込み開始位置
+			int pos = 0;
+			for (int bucket = 0; bucket < bucketCount; bucket++) {
+				final int c = count[bucket];
+				count[bucket] = pos;
+				pos += c;
+			}
+
+			for (int idx = 0; idx < range; idx++) {
+				final int key = srcKeys[idx];
+				final int dstIdx = count[((key ^ 0x80000000) >>> shift) & mask]++;
+				dstKeys[dstIdx] = key;
+				dstValues[dstFrom + dstIdx] = srcValues[srcFrom + idx];
+			}
+
+			final int[] tempKeys = srcKeys;
+			srcKeys = dstKeys;
+			dstKeys = tempKeys;
+			final T[] tempValues = srcValues;
+			srcValues = dstValues;
+			dstValues = tempValues;
+			final int tempFrom = srcFrom;
+			srcFrom = dstFrom;
+			dstFrom = tempFrom;
+		}
+
+		// 結果が作業用一時領域にあるなら書き戻し
+		if (srcValues != array)
+			System.arraycopy(srcValues, srcFrom, array, from, range);
+	}
+
+	/**
+	 * LSD Radix sort (int key extractor)
+	 *
+	 * LSD 基数ソート（安定ソート）
+	 * 作業用一時領域は WorkBufferPool から取得する。
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param keyExtractor key extractor of array element / キー抽出関数
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final ToIntFunction<? super T> keyExtractor)
+	{
+		// 作業用配列
+		final T[] workArray = WorkBufferPool.acquireBuffer(to - from);
+
+		sortImpl(array, from, to, workArray, keyExtractor);
+
+		WorkBufferPool.releaseBuffer(workArray);
+	}
+
+	/**
+	 * 比較器が IIntKeyComparator を実装している（比較器の順序が int キーの昇順と一致することが約束されている）場合は
+	 * そのキーで基数ソートを行い、そうでない場合は mmsSort を行う。
+	 */
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		if (comparator instanceof IIntKeyComparator) {
+			@SuppressWarnings("unchecked")
+			final IIntKeyComparator<? super T> keyComparator = (IIntKeyComparator<? super T>)comparator;
+			final ToIntFunction<T> keyExtractor = keyComparator::key;
+			sortImpl(array, from, to, keyExtractor);
+		} else
+			MmsSort.sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "Radix Sort (LSD)";
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * Record Lane Merge
+ *
+ * 固定長バイナリレコードのラン（ファイル上のソート済みの範囲）の多方向マージ
+ * FileMergeSort と ExternalMergeSort のマージ処理で共通に使用する。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Multi-way merge of record runs
+ *
+ * ファイル上のソート済みの固定長レコード列（ラン）を多方向マージする。（安定）
+ * MasSort.merge3 / Mas4Sort.merge4 と同じく、ヒープツリーを使わず、レーンの先頭レコードの並びを整数型変数 state １つで管理する。
+ * state の下位４ビットから順に、先頭レコードが小さいレーンの番号が並ぶ（同じ値ならレーン番号の小さい方が前 : 安定）。
+ * 先頭のレーンから１つ取り出したら、そのレーンの次のレコードを挿入ソートの要領で state 内の適切な位置へ移す。
+ * 各レーンはレーンバッファ内の担当区画にランのレコードをまとめて読み込み、出力は出力バッファにためてまとめて書き出す。
+ * （ファイルはメモリマップせず、FileChannel の位置指定の読み書きで入出力する）
+ * レコードの比較方法と出力先は派生クラスで定める。
+ *
+ * @author matsubara
+ *
+ */
+public abstract class RecordLaneMerge {
+	/**
+	 * レーン数の最大値（レーンの並びを int 型変数の４ビットずつで管理するため）
+	 */
+	public static final int MAX_LANE_COUNT = 8;
+
+	/**
+	 * Lane
+	 *
+	 * マージ対象のラン（レーン）
+	 */
+	private static class Lane {
+		final int bufFrom;		// レーンバッファ内のこのレーンの区画の開始位置（バイト）
+		final int bufBytes;		// レーンバッファ内のこのレーンの区画のサイズ（バイト）
+		FileChannel channel;
+		long next;				// 次に読み込むファイル上の位置（バイト）
+		long to;				// ランの終了位置（バイト）
+		int pos;				// 先頭レコードのレーンバッファ内の位置（バイト）
+		int end;				// 読み込んだレコードのレーンバッファ内の終了位置（バイト）
+
+		public Lane(final int bufFrom, final int bufBytes) {
+			this.bufFrom = bufFrom;
+			this.bufBytes = bufBytes;
+		}
+	}
+
+	/**
+	 * レコードサイズ（バイト）
+	 */
+	protected final int recordSize;
+	/**
+	 * レーンバッファ（各レーンの先頭レコードはこの配列の headOffset(lane) の位置にある）
+	 */
+	protected final byte[] laneBuf;
+	private final byte[] outBuf;
+	private final Lane[] lanes;
+	private int laneCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param recordSize record size (bytes) / レコードサイズ（バイト）
+	 * @param maxLaneCount maximum number of lanes (2 - MAX_LANE_COUNT) / レーン数の最大値 (2 ～ MAX_LANE_COUNT)
+	 * @param laneBuf lane buffer (at least maxLaneCount records) / レーンバッファ（maxLaneCount レコード以上。レーン数で等分して使用する）
+	 * @param outBuf output buffer (at least 1 record) / 出力バッファ（１レコード以上）
+	 */
+	public RecordLaneMerge(final int recordSize, final int maxLaneCount, final byte[] laneBuf, final byte[] outBuf)
+	{
+		if (maxLaneCount < 2 || maxLaneCount > MAX_LANE_COUNT)
+			throw new IllegalArgumentException("maxLaneCount must be 2 - " + MAX_LANE_COUNT + " : " + maxLaneCount);
+		final int laneRecords = laneBuf.length / recordSize / maxLaneCount;
+		if (laneRecords < 1 || outBuf.length < recordSize)
+			throw new IllegalArgumentException("buffer is too small");
+		this.recordSize = recordSize;
+		this.laneBuf = laneBuf;
+		this.outBuf = outBuf;
+		this.lanes = new Lane[maxLaneCount];
+		for (int lane = 0; lane < maxLaneCount; lane++)
+			lanes[lane] = new Lane(lane * laneRecords * recordSize, laneRecords * recordSize);
+	}
+
+	/**
+	 * ファイルチャネルの指定位置から読み込む（length バイトちょうど）
+	 * @param channel file channel / ファイルチャネル
+	 * @param position position in file (bytes) / ファイル上の位置（バイト）
+	 * @param buf destination / 読み込み先
+	 * @param offset offset in buf / 読み込み先の開始位置
+	 * @param length length (bytes) / 読み込むバイト数
+	 * @throws IOException
+	 */
+	public static void read(final FileChannel channel, long position, final byte[] buf, final int offset, final int length) throws IOException
+	{
+		final ByteBuffer buffer = ByteBuffer.wrap(buf, offset, length);
+		while (buffer.hasRemaining()) {
+			final int n = channel.read(buffer, position);
+			if (n < 0)
+				throw new EOFException("unexpected end of file at " + position);
+			position += n;
+		}
+	}
+
+	/**
+	 * ファイルチャネルの指定位置へ書き込む
+	 * @param channel file channel / ファイルチャネル
+	 * @param position position in file (bytes) / ファイル上の位置（バイト）
+	 * @param buf source / 書き込み元
+	 * @param offset offset in buf / 書き込み元の開始位置
+	 * @param length length (bytes) / 書き込むバイト数
+	 * @throws IOException
+	 */
+	public static void write(final FileChannel channel, long position, final byte[] buf, final int offset, final int length) throws IOException
+	{
+		final ByteBuffer buffer = ByteBuffer.wrap(buf, offset, length);
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	/**
+	 * レーンの追加
+	 * @param channel file channel / ファイルチャネル
+	 * @param from index of first record / ランの開始位置（レコード）
+	 * @param to index of last record (exclusive) / ランの終了位置 + 1（レコード）
+	 */
+	public void addLane(final FileChannel channel, final long from, final long to)
+	{
+		if (laneCount >= lanes.length)
+			throw new IllegalStateException("too many lanes : " + (laneCount + 1));
+		final Lane lane = lanes[laneCount++];
+		lane.channel = channel;
+		lane.next = from * recordSize;
+		lane.to = to * recordSize;
+		lane.pos = 0;
+		lane.end = 0;
+	}
+
+	/**
+	 * レーンの先頭レコードの位置
+	 * @param lane lane number / レーン番号
+	 * @return offset in laneBuf / laneBuf 内の位置（バイト）
+	 */
+	protected final int headOffset(final int lane)
+	{
+		return lanes[lane].pos;
+	}
+
+	/**
+	 * レーンの先頭レコードの比較
+	 * @param lane1 lane number 1 / レーン番号１
+	 * @param lane2 lane number 2 / レーン番号２
+	 * @return negative, zero, or positive / 負・ゼロ・正の値
+	 */
+	protected abstract int compareHeads(final int lane1, final int lane2);
+
+	/**
+	 * レーンの先頭レコードが変わった（比較用にレコードを変換しておく場合などに使用する）
+	 * @param lane lane number / レーン番号
+	 */
+	protected void headChanged(final int lane)
+	{
+	}
+
+	/**
+	 * マージ結果の出力
+	 * @param buf records / レコード
+	 * @param offset offset of first record / 先頭レコードの位置（バイト）
+	 * @param count number of records / レコード数
+	 * @throws IOException
+	 */
+	protected abstract void output(final byte[] buf, final int offset, final int count) throws IOException;
+
+	/**
+	 * 続きのレコードをレーンバッファに読み込む
+	 * @return false if end of run / ランの終端に達したら false
+	 * @throws IOException
+	 */
+	private boolean fill(final int lane) throws IOException
+	{
+		final Lane laneObj = lanes[lane];
+		if (laneObj.next >= laneObj.to)
+			return false;
+		final int n = (int)Math.min(laneObj.bufBytes, laneObj.to - laneObj.next);
+		read(laneObj.channel, laneObj.next, laneBuf, laneObj.bufFrom, n);
+		laneObj.next += n;
+		laneObj.pos = laneObj.bufFrom;
+		laneObj.end = laneObj.bufFrom + n;
+		headChanged(lane);
+		return true;
+	}
+
+	/**
+	 * 次のレコードに進む
+	 * @return false if end of run / ランの終端に達したら false
+	 * @throws IOException
+	 */
+	private boolean advance(final int lane) throws IOException
+	{
+		final Lane laneObj = lanes[lane];
+		laneObj.pos += recordSize;
+		if (laneObj.pos < laneObj.end) {
+			headChanged(lane);
+			return true;
+		}
+		return fill(lane);
+	}
+
+	/**
+	 * 追加したレーンをマージして出力する（終了後はレーンが空になるので、続けて別のレーンを追加してマージできる）
+	 * @throws IOException
+	 */
+	public void merge() throws IOException
+	{
+		final int outRecords = outBuf.length / recordSize;
+
+		// 初期状態 : 空でないレーンを先頭レコードの順に並べる
+		int state = 0;
+		int count = 0;
+		for (int lane = 0; lane < laneCount; lane++) {
+			if (!fill(lane))
+				continue;
+			state = insertLane(state, count, lane);
+			count++;
+		}
+		laneCount = 0;
+
+		int outCount = 0;
+		while (count > 1) {
+			// 先頭のレーンからレコードを１つ取り出す
+			final int lane = state & 0xf;
+			System.arraycopy(laneBuf, lanes[lane].pos, outBuf, outCount * recordSize, recordSize);
+			if (++outCount == outRecords) {
+				output(outBuf, 0, outCount);
+				outCount = 0;
+			}
+			state >>>= 4;
+			count--;
+			if (advance(lane)) {
+				state = insertLane(state, count, lane);
+				count++;
+			}
+		}
+		if (outCount > 0)
+			output(outBuf, 0, outCount);
+
+		// 残り１レーンは、レーンバッファの残りとファイル上の残りをそのまま出力
+		if (count == 1) {
+			final Lane last = lanes[state & 0xf];
+			output(laneBuf, last.pos, (last.end - last.pos) / recordSize);
+			while (last.next < last.to) {
+				final int n = (int)Math.min((long)outRecords * recordSize, last.to - last.next);
+				read(last.channel, last.next, outBuf, 0, n);
+				last.next += n;
+				output(outBuf, 0, n / recordSize);
+			}
+		}
+	}
+
+	/**
+	 * state にレーン番号を挿入する
+	 * @param state レーンの並び
+	 * @param count state 内のレーン数
+	 * @param lane 挿入するレーン番号
+	 * @return 新しいレーンの並び
+	 */
+	private int insertLane(final int state, final int count, final int lane)
+	{
+		int pos = 0;
+		while (pos < count) {
+			final int other = (state >>> (pos << 2)) & 0xf;
+			final int comp = compareHeads(other, lane);
+			if (comp < 0 || (comp == 0 && other < lane))
+				pos++;
+			else
+				break;
+		}
+		final int shift = pos << 2;
+		final int lowMask = (1 << shift) - 1;
+		return (state & lowMask) | (lane << shift) | ((state & ~lowMask) << 4);
+	}
+}
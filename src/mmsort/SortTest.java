@@ -9,9 +9,14 @@
  *     A: Ascending Ordered
  *     D: Descending Ordered
  *     F: Flat Data
+ *     K: Anti Quicksort (McIlroy's adversary)
  *   KeyType:
  *     I: Integer
  *     S: String
+ *     P: int[] (primitive, IPrimitiveSortAlgorithm only)
+ *     L: long[] (primitive, IPrimitiveSortAlgorithm only)
+ *     E: Integer (int key extractor, MmsSort.sortByIntKey only)
+ *     EL: Integer (long key extractor, MmsSort.sortByLongKey only)
  *
  *
  * http://www.mmatsubara.com/developer/sort/
@@ -22,6 +27,7 @@
  */
 package mmsort;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Random;
 
@@ -33,15 +39,21 @@ public class SortTest {
 	protected static final int ARRAY_TYPE_ASC = 4;
 	protected static final int ARRAY_TYPE_DESC = 5;
 	protected static final int ARRAY_TYPE_FLAT = 6;
+	protected static final int ARRAY_TYPE_ANTI_QUICKSORT = 7;
 
 	protected static final int KEYTYPE_INT = 0;
 	protected static final int KEYTYPE_STRING = 1;
+	protected static final int KEYTYPE_PRIMITIVE_INT = 2;
+	protected static final int KEYTYPE_PRIMITIVE_LONG = 3;
+	protected static final int KEYTYPE_INT_KEY_EXTRACTOR = 4;
+	protected static final int KEYTYPE_LONG_KEY_EXTRACTOR = 5;
 
 
 	protected static long compareCount = 0;									//	比較された回数
 
 	//	比較器
-	protected static Comparator<SortItem> intComparator = new Comparator<SortItem>() {
+	//	整数キーの比較器はソートキー(IIntKeyComparator.key)も提供する（RadixSort はキーで基数ソートする）
+	static class IntKeyComparator implements IIntKeyComparator<SortItem> {
 		@Override
 		public final int compare(SortItem o1, SortItem o2) {
 			//	マルチスレッド間の調停をしていないのでマルチスレッドのソートは正確な値にならないが、大まかな数値としては問題ない。
@@ -51,8 +63,14 @@ public class SortTest {
 			final int i2 = o2.key;
 			return (i1 < i2) ? -1 : (i1 > i2) ? 1 : 0;
 		}
-	};
-	protected static Comparator<SortItem> strComparator = new Comparator<SortItem>() {
+		@Override
+		public final int key(SortItem o) {
+			return o.key;
+		}
+	}
+	protected static Comparator<SortItem> intComparator = new IntKeyComparator();
+	//	文字列キーの比較器はソートキー(IStringKeyComparator.key)も提供する（StringRadixSort, MmsSortP はキーを使用する）
+	static class StrKeyComparator implements IStringKeyComparator<SortItem> {
 		@Override
 		public final int compare(SortItem o1, SortItem o2) {
 			//	マルチスレッド間の調停をしていないのでマルチスレッドのソートは正確な値にならないが、大まかな数値としては問題ない。
@@ -60,7 +78,12 @@ public class SortTest {
 			SortTest.compareCount++;
 			return o1.keyStr.compareTo(o2.keyStr);
 		}
-	};
+		@Override
+		public final String key(SortItem o) {
+			return o.keyStr;
+		}
+	}
+	protected static Comparator<SortItem> strComparator = new StrKeyComparator();
 
 	/**
 	 * Sort element type
@@ -157,6 +180,60 @@ public class SortTest {
 		}
 	}
 
+	/**
+	 * クイックソートの最悪ケースとなる値で配列を初期化する（M. D. McIlroy "A Killer Adversary for Quicksort"）
+	 * 比較のたびに値を決める比較器（敵対者）を使って sorter に実際にソートさせ、その比較結果と矛盾しない値を割り当てる。
+	 * 値が未確定（gas）の要素どうしを比較するときはピボットの候補と思われる要素から順に小さな値を確定させるので、
+	 * ピボットが常に偏り、クイックソート系のアルゴリズムは O(n^2) の比較が必要になる。
+	 * 比較器はスレッドセーフではないので、マルチスレッドのソートに対しては正確な最悪ケースにならない。
+	 * 再帰の深さに上限のないアルゴリズムは、この配列の生成中（敵対者との比較中）にスタックオーバーフローとなるので、
+	 * その場合はソートの失敗として RuntimeException を投げる。
+	 * @param array 対象配列
+	 * @param sorter 対象のソートアルゴリズム
+	 */
+	public static void initAntiQuicksortArray(SortItem[] array, ISortAlgorithm sorter, int keyType)
+	{
+		final int size = array.length - 2;
+		final int gas = size;			//	未確定の値（確定したどの値よりも大きい）
+		final int[] values = new int[size];
+		final Integer[] indexes = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = gas;
+			indexes[i] = i;
+		}
+		final Comparator<Integer> adversary = new Comparator<Integer>() {
+			private int solidCount = 0;		//	確定した値の数
+			private int candidate = 0;		//	ピボットの候補
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				final int x = o1;
+				final int y = o2;
+				if (values[x] == gas && values[y] == gas) {
+					if (x == candidate)
+						values[x] = solidCount++;
+					else
+						values[y] = solidCount++;
+				}
+				if (values[x] == gas)
+					candidate = x;
+				else if (values[y] == gas)
+					candidate = y;
+				return (values[x] < values[y]) ? -1 : (values[x] > values[y]) ? 1 : 0;
+			}
+		};
+		try {
+			sorter.sort(indexes, 0, size, adversary);
+		} catch (StackOverflowError e) {
+			throw new RuntimeException("sort error. (stack overflow on anti quicksort array) : " + sorter.getName());
+		}
+
+		for (int i = 1; i < array.length - 1; i++) {
+			array[i] = new SortItem(values[i - 1]);
+			if (keyType == KEYTYPE_STRING)
+				array[i].keyStr = String.format("%1$010d", array[i].key);
+		}
+	}
+
 	/**
 	 * 半分ソートされた状態で初期化
 	 * @param array 対象配列
@@ -266,6 +343,93 @@ public class SortTest {
 			throw new RuntimeException("array validation error.");
 	}
 
+	/**
+	 * キー値のみを取り出した int 配列を作成する（プリミティブ型配列のソート用）
+	 * 先頭と末尾は範囲外確認用の番兵値
+	 * @param array 対象配列
+	 * @return キー値の配列
+	 */
+	public static int[] initPrimitiveArray(SortItem[] array)
+	{
+		final int[] keys = new int[array.length];
+		keys[0] = Integer.MIN_VALUE;
+		keys[array.length - 1] = Integer.MIN_VALUE;
+		for (int i = 1; i < array.length - 1; i++) {
+			keys[i] = array[i].key;
+		}
+		return keys;
+	}
+
+	/**
+	 * キー値のみを取り出した long 配列を作成する（プリミティブ型配列のソート用）
+	 * 上位32ビットがキー値、下位32ビットがソート前順序（64ビット値の比較になるように）
+	 * 先頭と末尾は範囲外確認用の番兵値
+	 * @param array 対象配列
+	 * @return キー値の配列
+	 */
+	public static long[] initPrimitiveLongArray(SortItem[] array)
+	{
+		final long[] keys = new long[array.length];
+		keys[0] = Long.MIN_VALUE;
+		keys[array.length - 1] = Long.MIN_VALUE;
+		for (int i = 1; i < array.length - 1; i++) {
+			keys[i] = ((long)array[i].key << 32) | array[i].orginalOrder;
+		}
+		return keys;
+	}
+
+	/**
+	 * int 配列のソート結果を確認する
+	 * 整列しているかに加え、ソート前の配列（array）のキー値を java.util.Arrays でソートしたものと一致するか（値が欠落・重複していないか）を確認する。
+	 * @param keys 対象配列
+	 * @param array ソート前の配列（キー値の取り出し元）
+	 */
+	public static void validatePrimitiveArray(int[] keys, SortItem[] array)
+	{
+		if (keys[0] != Integer.MIN_VALUE)
+			throw new RuntimeException("array validation error. (out of range) : 0");
+		if (keys[keys.length - 1] != Integer.MIN_VALUE)
+			throw new RuntimeException("array validation error. (out of range) : " + (keys.length - 1));
+		for (int i = 1; i < keys.length - 2; i++) {
+			if (keys[i] > keys[i + 1])
+				throw new RuntimeException("array validation error. (primitive) : " + i);
+		}
+
+		//	ソート前のキー値と同じ値の集まりか確認（上書きなどで値が欠落・重複していないか）
+		final int[] expected = initPrimitiveArray(array);
+		Arrays.sort(expected, 1, expected.length - 1);
+		for (int i = 1; i < keys.length - 1; i++) {
+			if (keys[i] != expected[i])
+				throw new RuntimeException("array validation error. (primitive, not a permutation of input) : " + i);
+		}
+	}
+
+	/**
+	 * long 配列のソート結果を確認する
+	 * 整列しているかに加え、ソート前の配列（array）のキー値を java.util.Arrays でソートしたものと一致するか（値が欠落・重複していないか）を確認する。
+	 * @param keys 対象配列
+	 * @param array ソート前の配列（キー値の取り出し元）
+	 */
+	public static void validatePrimitiveArray(long[] keys, SortItem[] array)
+	{
+		if (keys[0] != Long.MIN_VALUE)
+			throw new RuntimeException("array validation error. (out of range) : 0");
+		if (keys[keys.length - 1] != Long.MIN_VALUE)
+			throw new RuntimeException("array validation error. (out of range) : " + (keys.length - 1));
+		for (int i = 1; i < keys.length - 2; i++) {
+			if (keys[i] > keys[i + 1])
+				throw new RuntimeException("array validation error. (primitive) : " + i);
+		}
+
+		//	ソート前のキー値と同じ値の集まりか確認（上書きなどで値が欠落・重複していないか）
+		final long[] expected = initPrimitiveLongArray(array);
+		Arrays.sort(expected, 1, expected.length - 1);
+		for (int i = 1; i < keys.length - 1; i++) {
+			if (keys[i] != expected[i])
+				throw new RuntimeException("array validation error. (primitive, not a permutation of input) : " + i);
+		}
+	}
+
 	/**
 	 * 配列のソート結果を確認する(デバッグ用)
 	 * @param array 対象配列
@@ -304,9 +468,14 @@ public class SortTest {
 	 *     A: Ascending Ordered
 	 *     D: Descending Ordered
 	 *     F: Flat Data
+	 *     K: Anti Quicksort (McIlroy's adversary)
 	 *   KeyType:
 	 *     I: Integer
 	 *     S: String
+	 *     P: int[] (primitive, IPrimitiveSortAlgorithm only)
+	 *     L: long[] (primitive, IPrimitiveSortAlgorithm only)
+	 *     E: Integer (int key extractor, MmsSort.sortByIntKey only)
+	 *     EL: Integer (long key extractor, MmsSort.sortByLongKey only)
 	 *
 	 * @param args arguments
 	 * @throws Exception
@@ -346,6 +515,8 @@ public class SortTest {
 				arrayType = ARRAY_TYPE_DESC;
 			} else if (arrayTypeStr.equals("F")) {	//	Flat values
 				arrayType = ARRAY_TYPE_FLAT;
+			} else if (arrayTypeStr.equals("K")) {	//	Anti quicksort
+				arrayType = ARRAY_TYPE_ANTI_QUICKSORT;
 			}
 			else
 				throw new Exception("arguments error ");
@@ -358,6 +529,14 @@ public class SortTest {
 				keyType = KEYTYPE_INT;
 			} else if (args[3].equals("S")) {	//	String
 				keyType = KEYTYPE_STRING;
+			} else if (args[3].equals("P")) {	//	int[]
+				keyType = KEYTYPE_PRIMITIVE_INT;
+			} else if (args[3].equals("L")) {	//	long[]
+				keyType = KEYTYPE_PRIMITIVE_LONG;
+			} else if (args[3].equals("E")) {	//	int key extractor
+				keyType = KEYTYPE_INT_KEY_EXTRACTOR;
+			} else if (args[3].equals("EL")) {	//	long key extractor
+				keyType = KEYTYPE_LONG_KEY_EXTRACTOR;
 			}
 			else
 				throw new Exception("arguments error ");
@@ -369,6 +548,13 @@ public class SortTest {
 			times = Integer.parseInt(args[4]);
 		}
 
+		//	プリミティブ型配列のソートは IPrimitiveSortAlgorithm を実装したクラスのみ
+		if ((keyType == KEYTYPE_PRIMITIVE_INT || keyType == KEYTYPE_PRIMITIVE_LONG) && !(sorter instanceof IPrimitiveSortAlgorithm))
+			throw new Exception("arguments error (" + sortType + " does not implement IPrimitiveSortAlgorithm)");
+		//	キー抽出関数によるソートは MmsSort のみ
+		if ((keyType == KEYTYPE_INT_KEY_EXTRACTOR || keyType == KEYTYPE_LONG_KEY_EXTRACTOR) && !(sorter instanceof MmsSort))
+			throw new Exception("arguments error (key extractor is supported by mmsort.MmsSort only)");
+
 		SortItem[] array = new SortItem[arraySize + 2];
 		SortItem[] initArray = new SortItem[arraySize + 2];
 		String arrayTypeName = "";
@@ -415,6 +601,12 @@ public class SortTest {
 				arrayTypeName = "Flat";
 				break;
 			}
+			case ARRAY_TYPE_ANTI_QUICKSORT:
+			{
+				initAntiQuicksortArray(array, sorter, keyType);
+				arrayTypeName = "Anti quicksort";
+				break;
+			}
 		}
 		assignOriginalOrderArray(array);	//	元の順序を記憶する（安定ソートの確認用）
 		System.arraycopy(array, 0, initArray, 0, array.length);
@@ -435,21 +627,50 @@ public class SortTest {
 			final String stableStr = stable ? "stable" : "unstable";
 			SortTest.compareCount = 0;
 
+			//	プリミティブ型配列の準備（キー値のみを取り出す）
+			int[] intKeys = null;
+			long[] longKeys = null;
+			if (keyType == KEYTYPE_PRIMITIVE_INT)
+				intKeys = initPrimitiveArray(array);
+			else if (keyType == KEYTYPE_PRIMITIVE_LONG)
+				longKeys = initPrimitiveLongArray(array);
+
 			System.gc();	//	ソート中にGCが（できるだけ）発生しないように
 			final long startTime = System.nanoTime();
 			if (keyType == KEYTYPE_INT)
 				sorter.sort(array, 1, array.length - 1, intComparator);
-			else
+			else if (keyType == KEYTYPE_STRING)
 				sorter.sort(array, 1, array.length - 1, strComparator);
+			else if (keyType == KEYTYPE_INT_KEY_EXTRACTOR)
+				MmsSort.sortByIntKey(array, 1, array.length - 1, item -> item.key);
+			else if (keyType == KEYTYPE_LONG_KEY_EXTRACTOR)
+				MmsSort.sortByLongKey(array, 1, array.length - 1, item -> (long)item.key);
+			else if (keyType == KEYTYPE_PRIMITIVE_INT)
+				((IPrimitiveSortAlgorithm)sorter).sort(intKeys, 1, intKeys.length - 1);
+			else
+				((IPrimitiveSortAlgorithm)sorter).sort(longKeys, 1, longKeys.length - 1);
 			final long endTime = System.nanoTime();
 
 			final long compareCount = SortTest.compareCount;
 			String keyTypeStr = "Integer";
 			if (keyType == KEYTYPE_STRING) {
 				keyTypeStr = "String";
+			} else if (keyType == KEYTYPE_PRIMITIVE_INT) {
+				keyTypeStr = "int[]";
+			} else if (keyType == KEYTYPE_PRIMITIVE_LONG) {
+				keyTypeStr = "long[]";
+			} else if (keyType == KEYTYPE_INT_KEY_EXTRACTOR) {
+				keyTypeStr = "Integer (int key extractor)";
+			} else if (keyType == KEYTYPE_LONG_KEY_EXTRACTOR) {
+				keyTypeStr = "Integer (long key extractor)";
 			}
 			System.out.printf("Java	%d	%s	%s	%s	%d	%f	%d	%s\n", idx, sortName, arrayTypeName, keyTypeStr, arraySize, (endTime - startTime) / 1000000000.0, compareCount, stableStr);
-			validateArray(array, stable);
+			if (keyType == KEYTYPE_PRIMITIVE_INT)
+				validatePrimitiveArray(intKeys, array);
+			else if (keyType == KEYTYPE_PRIMITIVE_LONG)
+				validatePrimitiveArray(longKeys, array);
+			else
+				validateArray(array, stable);
 		}
 	}
 
@@ -0,0 +1,274 @@
+/*
+ * String Radix Sort
+ *
+ * 文字列キーの基数ソート（MSD 基数ソート + Multikey quicksort）
+ * 比較ごとに共通の接頭辞を比較しなおす String.compareTo の代わりに、文字位置ごとに振り分けを行う。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+public class StringRadixSort implements ISortAlgorithm {
+	// Insersion Sortに切り替える要素数
+	private static final int ALGORITHM_THRESHOLD = 20;
+	// MSD 基数ソートで振り分ける要素数（これより小さい範囲は Multikey quicksort）
+	private static final int MSD_THRESHOLD = 1024;
+	// MSD 基数ソートで扱う文字の種類（0 : 文字列の終端, 1 ～ 256 : 文字コード 0 ～ 255）
+	private static final int MSD_RADIX = 257;
+
+	/**
+	 * キー文字列の depth 文字目を返す（文字列の終端なら 0、そうでなければ文字コード + 1）
+	 * @param key キー文字列
+	 * @param depth 文字位置
+	 * @return 文字コード + 1
+	 */
+	private static final int charAt(final String key, final int depth)
+	{
+		return (depth < key.length()) ? key.charAt(depth) + 1 : 0;
+	}
+
+	/**
+	 * キー配列と値配列の要素を入れ替える
+	 */
+	private static final <T> void swap(final String[] keys, final T[] values, final int idx1, final int idx2)
+	{
+		final String key = keys[idx1];
+		keys[idx1] = keys[idx2];
+		keys[idx2] = key;
+		final T value = values[idx1];
+		values[idx1] = values[idx2];
+		values[idx2] = value;
+	}
+
+	/**
+	 * ５つの値の中央値（６回の比較で求める）
+	 */
+	private static final int centerOf5(int v1, int v2, final int v3, int v4, int v5)
+	{
+		int work;
+		// (v1, v2) と (v4, v5) の組をそれぞれ整列
+		if (v1 > v2) { work = v1; v1 = v2; v2 = work; }
+		if (v4 > v5) { work = v4; v4 = v5; v5 = work; }
+		// v1 < v4 となるように組を入れ替える。v1 は４つの中の最小値なので中央値になりえない（v3 と入れ替える）
+		if (v1 > v4) { work = v2; v2 = v5; v5 = work; v4 = v1; }
+		v1 = v3;
+		if (v1 > v2) { work = v1; v1 = v2; v2 = work; }
+		// 同様に v1 < v4 となるように組を入れ替えると、v1 は残り４つの中の最小値なので中央値になりえない
+		if (v1 > v4) { work = v2; v2 = v5; v5 = work; v4 = v1; }
+		// 残りの v2, v4 < v5 の最小値が中央値
+		return (v2 < v4) ? v2 : v4;
+	}
+
+	/**
+	 * Multikey quicksort (3 way radix quicksort)
+	 *
+	 * depth 文字目の文字をキーとした 3 Way partition（QuickSort3WM5 と同じく median of 5 でピボットを選ぶ）を行い、
+	 * ピボットの文字と等しい範囲は次の文字位置で、それ以外の範囲は同じ文字位置でソートする。
+	 * 範囲が大きい場合は MSD 基数ソートで振り分ける。
+	 * 共通の接頭辞が長い場合に文字ごとの再帰呼び出しでスタックが溢れないよう、次の文字位置へ進む処理はループで行い、
+	 * 再帰呼び出しはピボットの文字より小さい範囲と大きい範囲（MSD 基数ソートでは最大の範囲以外）に限る。
+	 *
+	 * @param keys sort key / ソートキー
+	 * @param values values moved with keys / キーと共に移動する値
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param depth character position / 文字位置
+	 * @param workKeys work array of keys / キーの作業用配列
+	 * @param workValues work array of values / 値の作業用配列
+	 */
+	public static final <T> void sortImpl(final String[] keys, final T[] values, int from, int to, int depth, final String[] workKeys, final T[] workValues)
+	{
+		while (true) {
+			final int range = to - from;		//	ソート範囲サイズ
+
+			if (range < ALGORITHM_THRESHOLD) {
+				InsertionSort.sortImpl(keys, values, from, to, depth);
+				return;
+			}
+
+			if (range >= MSD_THRESHOLD) {
+				final int[] counts = new int[MSD_RADIX + 1];
+				final int c = msdSort(keys, values, from, to, depth, counts, workKeys, workValues);
+				if (c == 0)
+					return;
+				if (c > 0) {
+					// 残った範囲を次の文字位置でソート
+					final int bucketFrom = from + counts[c - 1];
+					final int bucketTo = from + counts[c];
+					from = bucketFrom;
+					to = bucketTo;
+					depth++;
+					continue;
+				}
+			}
+
+			final int p1 = from;
+			final int p5 = to - 1;
+			final int p3 = p1 + (p5 - p1) / 2;
+			final int p2 = p1 + (p3 - p1) / 2;
+			final int p4 = p3 + (p5 - p3) / 2;
+			final int pivot = centerOf5(charAt(keys[p1], depth), charAt(keys[p2], depth), charAt(keys[p3], depth), charAt(keys[p4], depth), charAt(keys[p5], depth));
+
+			// +---------------+----------------+-------+---------------+
+			// | value < pivot | value == pivot |   ?   | value > pivot |
+			// +---------------+----------------+-------+---------------+
+			// ^               ^                ^        ^               ^
+			// |               |                |        |               |
+			// from          ltIdx            curIdx    gtIdx            to
+			int ltIdx = from;
+			int gtIdx = to;
+			int curIdx = from;
+			while (curIdx < gtIdx) {
+				final int c = charAt(keys[curIdx], depth);
+				if (c < pivot)
+					swap(keys, values, ltIdx++, curIdx++);
+				else if (c > pivot)
+					swap(keys, values, curIdx, --gtIdx);
+				else
+					curIdx++;
+			}
+
+			sortImpl(keys, values, from, ltIdx, depth, workKeys, workValues);
+			sortImpl(keys, values, gtIdx, to, depth, workKeys, workValues);
+			if (pivot == 0)		//	文字列の終端に達した要素はすべて等しい
+				return;
+			// ピボットの文字と等しい範囲を次の文字位置でソート
+			from = ltIdx;
+			to = gtIdx;
+			depth++;
+		}
+	}
+
+	/**
+	 * MSD radix sort (one digit)
+	 *
+	 * depth 文字目の文字で分布数え上げによる振り分けを行い、振り分けた範囲ごとに次の文字位置でソートする。
+	 * 最大の範囲はソートせずに残し、その文字を返す（呼び出し元が次の文字位置でソートする）。
+	 * 全要素でこの文字が同じ場合は振り分けずにその文字を返す。
+	 * 文字コード 256 以上の文字がある場合は振り分けを行わない。
+	 *
+	 * @param counts 文字ごとの範囲（長さ MSD_RADIX + 1。戻り値が 1 以上のとき、文字 c の範囲は from + counts[c - 1] ～ from + counts[c] - 1）
+	 * @return 残した範囲の文字（0 : 残した範囲はない, -1 : 振り分けを行わなかった）
+	 */
+	private static final <T> int msdSort(final String[] keys, final T[] values, final int from, final int to, final int depth, final int[] counts, final String[] workKeys, final T[] workValues)
+	{
+		final int range = to - from;
+		for (int idx = from; idx < to; idx++) {
+			final int c = charAt(keys[idx], depth);
+			if (c >= MSD_RADIX)
+				return -1;
+			counts[c + 1]++;
+		}
+		// 全要素でこの文字が同じなら、振り分けずに次の文字位置へ（文字列の終端に達していればソート済み）
+		for (int c = 0; c < MSD_RADIX; c++) {
+			if (counts[c + 1] == range) {
+				if (c != 0) {
+					counts[c - 1] = 0;
+					counts[c] = range;
+				}
+				return c;
+			}
+		}
+		for (int c = 0; c < MSD_RADIX; c++)
+			counts[c + 1] += counts[c];
+
+		// 振り分け（安定）と書き戻し
+		for (int idx = from; idx < to; idx++) {
+			final int dstIdx = counts[charAt(keys[idx], depth)]++;
+			workKeys[dstIdx] = keys[idx];
+			workValues[dstIdx] = values[idx];
+		}
+		System.arraycopy(workKeys, 0, keys, from, range);
+		System.arraycopy(workValues, 0, values, from, range);
+
+		// 振り分けた範囲ごとにソート（counts[c] は文字 c の範囲の終了位置になっている。文字列の終端に達した範囲はソート不要）
+		// 最大の範囲は呼び出し元でソートする
+		int largest = 0;
+		for (int c = 1; c < MSD_RADIX; c++) {
+			if (counts[c] - counts[c - 1] > counts[largest] - ((largest == 0) ? 0 : counts[largest - 1]))
+				largest = c;
+		}
+		for (int c = 1; c < MSD_RADIX; c++) {
+			final int bucketFrom = from + counts[c - 1];
+			final int bucketTo = from + counts[c];
+			if (c != largest && bucketTo - bucketFrom > 1)
+				sortImpl(keys, values, bucketFrom, bucketTo, depth + 1, workKeys, workValues);
+		}
+		return largest;
+	}
+
+	/**
+	 * String radix sort (String key extractor)
+	 *
+	 * 文字列キーの基数ソート（不安定ソート）
+	 * 各要素のキー文字列を一度だけ取り出して、キー配列と値配列の組をソートしてから、元の配列に書き戻す。
+	 *
+	 * @param array sort target / ソート対象
+	 * @param from index of first element / ソート対象の開始位置
+	 * @param to index of last element (exclusive) / ソート対象の終了位置 + 1
+	 * @param keyExtractor key extractor of array element / キー抽出関数
+	 */
+	public static final <T> void sortImpl(final T[] array, final int from, final int to, final Function<? super T, String> keyExtractor)
+	{
+		// 要素数
+		final int range = to - from;
+
+		// キー配列と値配列（参照）
+		final String[] keys = new String[range];
+		final T[] values = WorkBufferPool.acquireBuffer(range);
+		for (int idx = 0; idx < range; idx++) {
+			final T value = array[from + idx];
+			keys[idx] = keyExtractor.apply(value);
+			values[idx] = value;
+		}
+
+		// 作業用配列（MSD 基数ソートの振り分け用）
+		final String[] workKeys = (range >= MSD_THRESHOLD) ? new String[range] : null;
+		final T[] workValues = (range >= MSD_THRESHOLD) ? WorkBufferPool.<T>acquireBuffer(range) : null;
+
+		// ソート本体呼び出し
+		sortImpl(keys, values, 0, range, 0, workKeys, workValues);
+
+		// ソート結果を書き戻し
+		System.arraycopy(values, 0, array, from, range);
+
+		WorkBufferPool.releaseBuffer(values);
+		if (workValues != null)
+			WorkBufferPool.releaseBuffer(workValues);
+	}
+
+	/**
+	 * 比較器が IStringKeyComparator を実装している（比較器の順序がキー文字列の辞書順と一致することが約束されている）場合は
+	 * そのキーで文字列の基数ソートを行い、そうでない場合は QuickSort3WM5 を行う。
+	 */
+	@Override
+	public <T> void sort(final T[] array, final int from, final int to, final Comparator<? super T> comparator)
+	{
+		if (comparator instanceof IStringKeyComparator) {
+			@SuppressWarnings("unchecked")
+			final IStringKeyComparator<? super T> keyComparator = (IStringKeyComparator<? super T>)comparator;
+			final Function<T, String> keyExtractor = keyComparator::key;
+			sortImpl(array, from, to, keyExtractor);
+		} else
+			QuickSort3WM5.sortImpl(array, from, to, comparator);
+	}
+
+	@Override
+	public boolean isStable()
+	{
+		return false;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "String Radix Sort (MSD & Multikey quicksort)";
+	}
+}
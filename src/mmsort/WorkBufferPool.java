@@ -0,0 +1,184 @@
+/*
+ * Work buffer pool
+ *
+ * 作業用一時領域のプール
+ * ソートのたびに作業用配列を確保すると、小さな配列を大量にソートする場合に GC の負荷が大きくなるため、
+ * スレッドごとに作業用配列を保持して使いまわす。
+ *
+ * http://www.mmatsubara.com/developer/sort/
+ *
+ * Copyright (c) 2016 matsubara masakazu
+ * Released under the MIT license
+ * https://github.com/m-matsubara/sort/blob/master/LICENSE.txt
+ */
+package mmsort;
+
+import java.util.Arrays;
+
+/**
+ * Work buffer pool (thread local)
+ *
+ * 作業用一時領域のプール（スレッドローカル）
+ * 配列サイズは２のべき乗の区分（サイズクラス）に切り上げ、サイズクラスごとに１つずつをスレッドごとに保持する。
+ * スレッドごとの保持要素数の合計が maxRetainedSize を超える配列は保持せず、GC に任せる。
+ * 返却された配列は参照を残さないように null で埋めてから保持する。
+ *
+ * @author matsubara
+ *
+ */
+public class WorkBufferPool implements IWorkBufferProvider {
+	/**
+	 * 最小のサイズクラス（要素数 2^MIN_SIZE_CLASS）
+	 */
+	public static final int MIN_SIZE_CLASS = 10;
+	/**
+	 * スレッドごとの保持要素数の合計の既定値
+	 */
+	public static final int DEFAULT_MAX_RETAINED_SIZE = 1 << 22;
+
+	/**
+	 * Provider without pooling
+	 *
+	 * プールを使わず、毎回作業用配列を確保する（従来の動作）
+	 */
+	public static final IWorkBufferProvider NO_POOL = new IWorkBufferProvider() {
+		@Override
+		public Object[] acquire(final int minSize) {
+			return new Object[minSize];
+		}
+		@Override
+		public void release(final Object[] buffer) {
+		}
+	};
+
+	private static volatile IWorkBufferProvider provider = new WorkBufferPool(DEFAULT_MAX_RETAINED_SIZE);
+
+	/**
+	 * Thread local cache
+	 *
+	 * スレッドごとの保持領域
+	 */
+	private static class Cache {
+		final Object[][] buffers = new Object[32][];	//	サイズクラスごとの保持配列
+		long retainedSize = 0;							//	保持要素数の合計
+	}
+
+	private final int maxRetainedSize;
+	private final ThreadLocal<Cache> cache = new ThreadLocal<Cache>() {
+		@Override
+		protected Cache initialValue() {
+			return new Cache();
+		}
+	};
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxRetainedSize max retained elements per thread / スレッドごとの保持要素数の合計の上限
+	 */
+	public WorkBufferPool(final int maxRetainedSize)
+	{
+		this.maxRetainedSize = maxRetainedSize;
+	}
+
+	/**
+	 * サイズクラスを求める
+	 * @param size 要素数
+	 * @return size 以上となる最小のサイズクラス（２のべき乗の指数）
+	 */
+	private static int sizeClass(final int size)
+	{
+		if (size <= (1 << MIN_SIZE_CLASS))
+			return MIN_SIZE_CLASS;
+		return 32 - Integer.numberOfLeadingZeros(size - 1);
+	}
+
+	@Override
+	public Object[] acquire(final int minSize)
+	{
+		final int sizeClass = sizeClass(minSize);
+		if (sizeClass >= 31 || (1 << sizeClass) > maxRetainedSize)
+			return new Object[minSize];	//	保持対象外の大きさ
+		final Cache cache = this.cache.get();
+		final Object[] buffer = cache.buffers[sizeClass];
+		if (buffer != null) {
+			cache.buffers[sizeClass] = null;
+			cache.retainedSize -= buffer.length;
+			return buffer;
+		}
+		return new Object[1 << sizeClass];
+	}
+
+	@Override
+	public void release(final Object[] buffer)
+	{
+		final int length = buffer.length;
+		if (length < (1 << MIN_SIZE_CLASS) || Integer.bitCount(length) != 1)
+			return;		//	acquire() で確保したものではない
+		final int sizeClass = Integer.numberOfTrailingZeros(length);
+		final Cache cache = this.cache.get();
+		if (cache.buffers[sizeClass] != null || cache.retainedSize + length > maxRetainedSize)
+			return;
+		Arrays.fill(buffer, null);
+		cache.buffers[sizeClass] = buffer;
+		cache.retainedSize += length;
+	}
+
+	/**
+	 * Clear cache of current thread
+	 *
+	 * 現在のスレッドの保持領域を解放する
+	 */
+	public void clear()
+	{
+		cache.remove();
+	}
+
+	/**
+	 * Current provider
+	 *
+	 * 安定ソートのアルゴリズムが使用する作業用一時領域の提供元
+	 * @return provider / 提供元
+	 */
+	public static IWorkBufferProvider getProvider()
+	{
+		return provider;
+	}
+
+	/**
+	 * Set provider
+	 *
+	 * 安定ソートのアルゴリズムが使用する作業用一時領域の提供元を設定する（NO_POOL で毎回確保する従来の動作）
+	 * @param provider provider / 提供元
+	 */
+	public static void setProvider(final IWorkBufferProvider provider)
+	{
+		if (provider == null)
+			throw new NullPointerException("provider");
+		WorkBufferPool.provider = provider;
+	}
+
+	/**
+	 * Acquire work buffer from current provider
+	 *
+	 * 現在の提供元から作業用一時領域を取得する
+	 * @param minSize required size / 必要な要素数
+	 * @return work buffer / 作業用一時領域
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T[] acquireBuffer(final int minSize)
+	{
+		return (T[])provider.acquire(minSize);
+	}
+
+	/**
+	 * Release work buffer to current provider
+	 *
+	 * 現在の提供元へ作業用一時領域を返却する
+	 * @param buffer work buffer / 作業用一時領域
+	 */
+	public static void releaseBuffer(final Object[] buffer)
+	{
+		provider.release(buffer);
+	}
+}
@@ -10,14 +10,25 @@ rem call test.bat mmsort.CombSort %1
 call test.bat mmsort.ManyPivotSort %1
 rem call test.bat mmsort.ManyPivotSort3W %1
 call test.bat mmsort.MmSort %1
+rem primitive key (MmSort.sortImpl(int[]) / sortImpl(long[]) : compare with the Integer runs above)
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 10000   R10 P %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 10000   R10 L %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 100000  R10 P %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 100000  R10 L %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 1000000 R10 P %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 1000000 R10 L %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 1000000 U   P %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort 1000000 U   L %1
 rem call test.bat mmsort.QuickSort %1
 call test.bat mmsort.QuickSort3WM5 %1
 call test.bat mmsort.QuickSortM3 %1
 call test.bat mmsort.QuickSortM5 %1
+call test.bat mmsort.StringRadixSort %1
 
 
 rem stable sort
 call test.bat mmsort.ArraysSort %1
+call test.bat mmsort.AutoSort %1
 rem call test.bat mmsort.BinInsersionSort %1
 rem call test.bat mmsort.ImprovedMergeSort %1
 rem call test.bat mmsort.InsersionSort %1
@@ -28,5 +39,31 @@ call test.bat mmsort.MatMasSort %1
 call test.bat mmsort.MergeSort %1
 call test.bat mmsort.MmsSort %1
 call test.bat mmsort.MmsSortH %1
+call test.bat mmsort.MmsSortP %1
+call test.bat mmsort.RadixSort %1
+
+rem anti quicksort (McIlroy's adversary : introsort depth guard)
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort      10000   K I %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort      100000  K I %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmSort      1000000 K I %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.QuickSortM5 10000   K I %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.QuickSortM5 100000  K I %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.QuickSortM5 1000000 K I %1
+
+rem key extractor (MmsSort.sortByIntKey / sortByLongKey)
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmsSort 100000  R10 E  %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmsSort 100000  R10 EL %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmsSort 1000000 U   E  %1
+java.exe -server -classpath bin  mmsort.SortTest mmsort.MmsSort 1000000 U   EL %1
+
+rem file sort (FileMergeSort : records, record size, work size (records), duplicate)
+java.exe -server -classpath bin  mmsort.FileSortTest 100000   32 1000   10 %1
+java.exe -server -classpath bin  mmsort.FileSortTest 1000000  16 37     1  %1
+java.exe -server -classpath bin  mmsort.FileSortTest 10000000 32 100000 10 %1
+
+rem external merge sort (ExternalMergeSort : records, chunk size (records), fan-in, duplicate)
+java.exe -server -classpath bin  mmsort.ExternalSortTest 100000   1000   2 10 %1
+java.exe -server -classpath bin  mmsort.ExternalSortTest 1000000  10000  4 10 %1
+java.exe -server -classpath bin  mmsort.ExternalSortTest 10000000 100000 8 1  %1
 
 time /t > con